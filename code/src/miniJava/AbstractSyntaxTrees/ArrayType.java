@@ -6,11 +6,9 @@
 
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ArrayType extends TypeDenoter {
 
-	    public ArrayType(TypeDenoter eltType, SourcePosition posn){
+	    public ArrayType(TypeDenoter eltType, long posn){
 	        super(TypeKind.ARRAY, posn);
 	        this.eltType = eltType;
 	    }
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class AssignStmt extends Statement
 {
-    public AssignStmt(Reference r, Expression e, SourcePosition posn){
+    public AssignStmt(Reference r, Expression e, long posn){
         super(posn);
         ref = r;
         val = e;
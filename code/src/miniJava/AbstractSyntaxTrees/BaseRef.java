@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class BaseRef extends Reference {
 
-	public BaseRef(SourcePosition posn){
+	public BaseRef(long posn){
 		super(posn);
 	}
 
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class BaseType extends TypeDenoter
 {
-    public BaseType(TypeKind t, SourcePosition posn){
+    public BaseType(TypeKind t, long posn){
         super(t, posn);
     }
     
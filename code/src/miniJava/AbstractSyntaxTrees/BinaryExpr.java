@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class BinaryExpr extends Expression
 {
-    public BinaryExpr(Operator o, Expression e1, Expression e2, SourcePosition posn){
+    public BinaryExpr(Operator o, Expression e1, Expression e2, long posn){
         super(posn);
         operator = o;
         left = e1;
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class BlockStmt extends Statement
 {
-    public BlockStmt(StatementList sl, SourcePosition posn){
+    public BlockStmt(StatementList sl, long posn){
         super(posn);
         this.sl = sl;
     }
@@ -5,10 +5,8 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class CastExpr extends Expression {
-  public CastExpr(TypeDenoter type, Expression expr, SourcePosition posn){
+  public CastExpr(TypeDenoter type, Expression expr, long posn){
     super(posn);
     this.type = type;
     this.expr = expr;
@@ -20,5 +18,4 @@ public class CastExpr extends Expression {
 
   public TypeDenoter type;
   public Expression expr;
-  public ClassDecl typeDecl; // null if type not class type
 }
\ No newline at end of file
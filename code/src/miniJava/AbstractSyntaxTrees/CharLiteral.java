@@ -6,12 +6,17 @@
 package miniJava.AbstractSyntaxTrees;
 
 import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenType;
 
 public class CharLiteral extends Terminal {
 
   public CharLiteral(Token t) {
     super(t);
   }
+
+  public CharLiteral(TokenType kind, String spelling, long posn) {
+    super(kind, spelling, posn);
+  }
  
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitCharLiteral(this, o);
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ClassType extends TypeDenoter
 {
-    public ClassType(Identifier cn, SourcePosition posn){
+    public ClassType(Identifier cn, long posn){
         super(TypeKind.CLASS, posn);
         className = cn;
     }
@@ -5,18 +5,11 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.NamePool;
 
 public abstract class Declaration extends AST {
-
-	// for static field decl, is address of field on stack relative to base at r15
-	// for nonstatic field decl, is offset from object address
-	// for class decl, is address of class (and all its static fields) on stack relative to base at r15
-	// for var decl, is address on stack relative to rbp
-	// for method decl, is offset within virtual method table
-	public long memOffset = Long.MAX_VALUE;
 	
-	public Declaration(String name, TypeDenoter type, SourcePosition posn) {
+	public Declaration(String name, TypeDenoter type, long posn) {
 		super(posn);
 		this.name = name;
 		this.type = type;
@@ -24,4 +17,16 @@ public abstract class Declaration extends AST {
 	
 	public String name;
 	public TypeDenoter type;
+
+	private String idName; // name the cached id was interned from
+	private int nameId;
+
+	// name pool id of name, re-interned only when name is reassigned
+	public int nameId() {
+		if (idName != name) {
+			nameId = NamePool.intern(name);
+			idName = name;
+		}
+		return nameId;
+	}
 }
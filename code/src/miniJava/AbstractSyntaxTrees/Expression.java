@@ -5,12 +5,8 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import  miniJava.SyntacticAnalyzer.SourcePosition;
-
 public abstract class Expression extends AST {
-
-  public TypeDenoter resultType;
-  public Expression(SourcePosition posn) {
+  public Expression(long posn) {
     super (posn);
   }
   
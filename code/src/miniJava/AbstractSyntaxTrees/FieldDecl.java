@@ -5,14 +5,12 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class FieldDecl extends MemberDecl {
-	public FieldDecl(boolean isPrivate, boolean isStatic, TypeDenoter t, String name, SourcePosition posn){
+	public FieldDecl(boolean isPrivate, boolean isStatic, TypeDenoter t, String name, long posn){
     super(isPrivate, isStatic, t, name, posn);
 	}
 	
-	public FieldDecl(MemberDecl md, SourcePosition posn) {
+	public FieldDecl(MemberDecl md, long posn) {
 		super(md,posn);
 	}
 	
@@ -0,0 +1,889 @@
+/**
+ * miniJava Abstract Syntax Tree classes
+ * @author prins
+ * @version COMP 520 (v2.2)
+ */
+package miniJava.AbstractSyntaxTrees;
+
+import miniJava.SyntacticAnalyzer.NamePool;
+import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.TokenType;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// compact form of a parsed package, every node a slot in a few primitive arrays instead of a heap object
+// it is what the AST cache stores (see toBytes), and phases walk it through view(), which leaves each method body
+// in the arrays until a phase first reads it
+// nodes are laid out in pre-order (a node comes before its children, children in source order) and linked by
+// first child and next sibling. an absent optional child (a return without a value, an if without an else, ...)
+// is a None node so children keep their place. payloads by kind:
+//   declarations: name pool id of the name, with the private and static flags above it
+//   BaseType: TypeKind ordinal, Operator: TokenType ordinal, Identifier: name pool id
+//   literals: the value decoded by the scanner
+// terminals other than identifiers have no children, their first child slot holds the index of their spelling
+public class FlatAST {
+    public enum Kind {
+        Package, Class, Field, Method, Parameter, VarDecl, List, None,
+        BaseType, ClassType, ArrayType,
+        Block, VarDeclStmt, Assign, IxAssign, CallStmt, Return, If, While, For,
+        Unary, Binary, RefExpr, IxExpr, CallExpr, LiteralExpr, NewObject, NewArray, Cast, InstanceOf,
+        This, Super, IdRef, QualRef,
+        Identifier, Operator, IntLiteral, LongLiteral, FloatLiteral, DoubleLiteral, CharLiteral, BooleanLiteral, NullLiteral,
+    }
+
+    private static final Kind[] kinds = Kind.values();
+    private static final TypeKind[] typeKinds = TypeKind.values();
+    private static final TokenType[] tokenTypes = TokenType.values();
+    private static final long PRIVATE = 1L << 32;
+    private static final long STATIC = 1L << 33;
+    // binary form, see toBytes
+    private static final int CHILD_FOLLOWS = 0x80;
+    private static final long SAME_LINE = 0;
+    private static final long NEW_LINE = 1;
+    private static final long NO_POSITION = 2;
+
+    private byte[] kind;
+    private int[] firstChild; // -1 if none
+    private int[] nextSibling; // -1 if last
+    private long[] payload;
+    private long[] position;
+    private int count;
+    private final List<String> texts = new ArrayList<>(); // spellings of terminals other than identifiers
+
+    private FlatAST(int capacity) {
+        kind = new byte[capacity];
+        firstChild = new int[capacity];
+        nextSibling = new int[capacity];
+        payload = new long[capacity];
+        position = new long[capacity];
+    }
+
+    public static FlatAST flatten(Package prog) {
+        FlatAST flat = new FlatAST(1024);
+        prog.visit(flat.new Builder(), null);
+        flat.trim();
+        return flat;
+    }
+
+    // node accessors
+    public int root() { return 0; }
+    public int size() { return count; }
+    public Kind kind(int node) { return kinds[kind[node]]; }
+    public int firstChild(int node) { return hasText(node) ? -1 : firstChild[node]; }
+    public int nextSibling(int node) { return nextSibling[node]; }
+    public long payload(int node) { return payload[node]; }
+    public long position(int node) { return position[node]; }
+
+    // i-th child of node, -1 if it has fewer children
+    public int child(int node, int i) {
+        int c = firstChild(node);
+        while (c >= 0 && i-- > 0) c = nextSibling[c];
+        return c;
+    }
+
+    public int childCount(int node) {
+        int n = 0;
+        for (int c = firstChild(node); c >= 0; c = nextSibling[c]) n++;
+        return n;
+    }
+
+    // name of a declaration or identifier
+    public String name(int node) { return NamePool.name((int) payload[node]); }
+    public boolean isPrivate(int node) { return (payload[node] & PRIVATE) != 0; }
+    public boolean isStatic(int node) { return (payload[node] & STATIC) != 0; }
+    public TypeKind typeKind(int node) { return typeKinds[(int) payload[node]]; }
+    public TokenType operator(int node) { return tokenTypes[(int) payload[node]]; }
+
+    // spelling of a terminal
+    public String text(int node) {
+        return hasText(node) ? texts.get(firstChild[node]) : name(node);
+    }
+
+    // operators and literals
+    private boolean hasText(int node) {
+        return kind[node] >= Kind.Operator.ordinal();
+    }
+
+    // bytes held by the node arrays
+    public long memorySize() {
+        return (long) kind.length * (1 + 4 + 4 + 8 + 8);
+    }
+
+    // compact binary form, for caching parsed files between compiles
+    // names are written once each to a string table and re-interned when read back, since name pool ids only
+    // hold within one run. numbers are varints: payloads zigzag encoded (names as their table index with the
+    // flags in the low bits), links as the forward distance to the linked node (0 for none, pre-order makes
+    // every link point forward, and a first child straight after its parent is only a flag on the kind byte)
+    // and positions as the change from the previous node's position, within the line where it stays on one.
+    // positions are written without their file, which read supplies
+    public byte[] toBytes() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(count * 6);
+        int[] nameIndex = new int[NamePool.size()];
+        List<Integer> names = new ArrayList<>();
+        for (int n = 0; n < count; ++n) {
+            if (!isNamed(kind[n])) continue;
+            int id = (int) payload[n];
+            if (nameIndex[id] == 0) {
+                names.add(id);
+                nameIndex[id] = names.size();
+            }
+        }
+        writeVarint(out, count);
+        writeVarint(out, names.size());
+        for (int id : names) writeString(out, NamePool.name(id));
+        writeVarint(out, texts.size());
+        for (String text : texts) writeString(out, text);
+        int line = 0;
+        int offset = 0;
+        for (int n = 0; n < count; ++n) {
+            boolean childFollows = !hasText(n) && firstChild[n] == n + 1;
+            out.write(kind[n] | (childFollows ? CHILD_FOLLOWS : 0));
+            if (isNamed(kind[n])) writeVarint(out, (long) (nameIndex[(int) payload[n]] - 1) << 2 | payload[n] >>> 32);
+            else writeVarint(out, zigzag(payload[n]));
+            if (hasText(n)) writeVarint(out, firstChild[n]);
+            else if (!childFollows) writeVarint(out, firstChild[n] < 0 ? 0 : firstChild[n] - n);
+            writeVarint(out, nextSibling[n] < 0 ? 0 : nextSibling[n] - n);
+            if (position[n] == SourcePosition.NONE) {
+                writeVarint(out, NO_POSITION);
+                continue;
+            }
+            int nodeLine = SourcePosition.line(position[n]);
+            int nodeOffset = SourcePosition.offset(position[n]);
+            if (nodeLine == line) {
+                writeVarint(out, zigzag(nodeOffset - offset) << 2 | SAME_LINE);
+            } else {
+                writeVarint(out, zigzag(nodeLine - line) << 2 | NEW_LINE);
+                writeVarint(out, nodeOffset);
+            }
+            line = nodeLine;
+            offset = nodeOffset;
+        }
+        return out.toByteArray();
+    }
+
+    // reads back the form written by toBytes, with positions in the given file
+    // throws IllegalArgumentException if data is not a well formed flat AST
+    public static FlatAST fromBytes(byte[] data, int file) {
+        ByteReader in = new ByteReader(data);
+        int count = in.count();
+        FlatAST flat = new FlatAST(Math.max(count, 1));
+        int[] names = new int[in.count()];
+        for (int i = 0; i < names.length; ++i) {
+            int length = in.count();
+            names[i] = NamePool.intern(data, in.skip(length), length);
+        }
+        int textCount = in.count();
+        for (int i = 0; i < textCount; ++i) {
+            int length = in.count();
+            flat.texts.add(new String(data, in.skip(length), length, StandardCharsets.ISO_8859_1));
+        }
+        int line = 0;
+        int offset = 0;
+        for (int n = 0; n < count; ++n) {
+            int kindByte = in.nextByte();
+            byte k = (byte) checkIndex(kindByte & ~CHILD_FOLLOWS, kinds.length);
+            flat.kind[n] = k;
+            flat.count = n + 1;
+            if (isNamed(k)) {
+                long value = in.varint();
+                flat.payload[n] = names[checkIndex(value >>> 2, names.length)] | (value & 3) << 32;
+            } else {
+                flat.payload[n] = unzigzag(in.varint());
+            }
+            if (flat.hasText(n)) {
+                flat.firstChild[n] = in.index(textCount);
+            } else if ((kindByte & CHILD_FOLLOWS) != 0) {
+                flat.firstChild[n] = n + checkIndex(1, count - n);
+            } else {
+                int distance = in.index(count - n);
+                flat.firstChild[n] = distance == 0 ? -1 : n + distance;
+            }
+            int distance = in.index(count - n);
+            flat.nextSibling[n] = distance == 0 ? -1 : n + distance;
+            long change = in.varint();
+            if (change == NO_POSITION) {
+                flat.position[n] = SourcePosition.NONE;
+                continue;
+            }
+            if ((change & 3) == SAME_LINE) {
+                offset += (int) unzigzag(change >>> 2);
+            } else {
+                line += (int) unzigzag(change >>> 2);
+                offset = (int) in.varint();
+            }
+            flat.position[n] = SourcePosition.inFile(SourcePosition.pack(line, offset), file);
+        }
+        if (count == 0 || flat.kind[0] != Kind.Package.ordinal() || !in.atEnd())
+            throw new IllegalArgumentException("malformed flat AST");
+        return flat;
+    }
+
+    private static boolean isNamed(byte k) {
+        return k >= Kind.Class.ordinal() && k <= Kind.VarDecl.ordinal() || k == Kind.Identifier.ordinal();
+    }
+
+    private static long zigzag(long value) {
+        return value << 1 ^ value >> 63;
+    }
+
+    private static long unzigzag(long value) {
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7fL) != 0) {
+            out.write((int) value & 0x7f | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.ISO_8859_1);
+        writeVarint(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static int checkIndex(long index, int bound) {
+        if (index < 0 || index >= bound) throw new IllegalArgumentException("malformed flat AST");
+        return (int) index;
+    }
+
+    // bounds checked cursor over toBytes output
+    private static class ByteReader {
+        private final byte[] data;
+        private int at;
+
+        ByteReader(byte[] data) {
+            this.data = data;
+        }
+
+        long varint() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = nextByte();
+                value |= (long) (b & 0x7f) << shift;
+                if (b < 0x80) return value;
+            }
+            throw new IllegalArgumentException("malformed flat AST");
+        }
+
+        int nextByte() {
+            if (at == data.length) throw new IllegalArgumentException("malformed flat AST");
+            return data[at++] & 0xff;
+        }
+
+        // a count or length, which cannot exceed the bytes left
+        int count() {
+            return checkIndex(varint(), data.length - at + 1);
+        }
+
+        int index(int bound) {
+            return checkIndex(varint(), bound);
+        }
+
+        // skips length bytes, returning where they start
+        int skip(int length) {
+            int start = at;
+            at = start + checkIndex(length, data.length - start + 1);
+            return start;
+        }
+
+        boolean atEnd() {
+            return at == data.length;
+        }
+    }
+
+    private int node(Kind k, long value, long posn) {
+        if (count == kind.length) {
+            int capacity = count * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            payload = Arrays.copyOf(payload, capacity);
+            position = Arrays.copyOf(position, capacity);
+        }
+        kind[count] = (byte) k.ordinal();
+        firstChild[count] = -1;
+        nextSibling[count] = -1;
+        payload[count] = value;
+        position[count] = posn;
+        return count++;
+    }
+
+    private void trim() {
+        kind = Arrays.copyOf(kind, count);
+        firstChild = Arrays.copyOf(firstChild, count);
+        nextSibling = Arrays.copyOf(nextSibling, count);
+        payload = Arrays.copyOf(payload, count);
+        position = Arrays.copyOf(position, count);
+    }
+
+    // links children under parent in order
+    private int link(int parent, int... children) {
+        int prev = -1;
+        for (int c : children) {
+            if (prev < 0) firstChild[parent] = c;
+            else nextSibling[prev] = c;
+            prev = c;
+        }
+        return parent;
+    }
+
+    private static long flags(boolean isPrivate, boolean isStatic) {
+        return (isPrivate ? PRIVATE : 0) | (isStatic ? STATIC : 0);
+    }
+
+    // appends each visited node (and its subtree) and returns its index
+    private class Builder implements Visitor<Object, Integer> {
+        private int visit(AST ast) {
+            return ast == null ? node(Kind.None, 0, 0) : ast.visit(this, null);
+        }
+
+        private int list(Iterable<? extends AST> list, long posn) {
+            int node = node(Kind.List, 0, posn);
+            int prev = -1;
+            for (AST ast : list) {
+                int c = visit(ast);
+                if (prev < 0) firstChild[node] = c;
+                else nextSibling[prev] = c;
+                prev = c;
+            }
+            return node;
+        }
+
+        private int terminal(Kind k, Terminal t, long value) {
+            int node = node(k, value, t.posn);
+            firstChild[node] = texts.size();
+            texts.add(t.spelling);
+            return node;
+        }
+
+        public Integer visitPackage(Package prog, Object arg) {
+            int node = node(Kind.Package, 0, prog.posn);
+            int prev = -1;
+            for (ClassDecl cd : prog.classDeclList) {
+                int c = visit(cd);
+                if (prev < 0) firstChild[node] = c;
+                else nextSibling[prev] = c;
+                prev = c;
+            }
+            return node;
+        }
+
+        // Class: parent, fields (List), methods (List)
+        public Integer visitClassDecl(ClassDecl cd, Object arg) {
+            int node = node(Kind.Class, cd.nameId(), cd.posn);
+            return link(node, visit(cd.parent), list(cd.fieldDeclList, cd.posn), list(cd.methodDeclList, cd.posn));
+        }
+
+        // Field: type
+        public Integer visitFieldDecl(FieldDecl fd, Object arg) {
+            int node = node(Kind.Field, fd.nameId() | flags(fd.isPrivate, fd.isStatic), fd.posn);
+            return link(node, visit(fd.type));
+        }
+
+        // Method: type, parameters (List), statements (List)
+        public Integer visitMethodDecl(MethodDecl md, Object arg) {
+            int node = node(Kind.Method, md.nameId() | flags(md.isPrivate, md.isStatic), md.posn);
+            return link(node, visit(md.type), list(md.parameterDeclList, md.posn), list(md.statementList, md.posn));
+        }
+
+        public Integer visitParameterDecl(ParameterDecl pd, Object arg) {
+            return link(node(Kind.Parameter, pd.nameId(), pd.posn), visit(pd.type));
+        }
+
+        public Integer visitVarDecl(VarDecl decl, Object arg) {
+            return link(node(Kind.VarDecl, decl.nameId(), decl.posn), visit(decl.type));
+        }
+
+        public Integer visitBaseType(BaseType type, Object arg) {
+            return node(Kind.BaseType, type.typeKind.ordinal(), type.posn);
+        }
+
+        public Integer visitClassType(ClassType type, Object arg) {
+            return link(node(Kind.ClassType, 0, type.posn), visit(type.className));
+        }
+
+        public Integer visitArrayType(ArrayType type, Object arg) {
+            return link(node(Kind.ArrayType, 0, type.posn), visit(type.eltType));
+        }
+
+        public Integer visitBlockStmt(BlockStmt stmt, Object arg) {
+            int node = node(Kind.Block, 0, stmt.posn);
+            return link(node, list(stmt.sl, stmt.posn));
+        }
+
+        public Integer visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+            int node = node(Kind.VarDeclStmt, 0, stmt.posn);
+            return link(node, visit(stmt.varDecl), visit(stmt.initExp));
+        }
+
+        public Integer visitAssignStmt(AssignStmt stmt, Object arg) {
+            int node = node(Kind.Assign, 0, stmt.posn);
+            return link(node, visit(stmt.ref), visit(stmt.val));
+        }
+
+        public Integer visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+            int node = node(Kind.IxAssign, 0, stmt.posn);
+            return link(node, visit(stmt.ref), visit(stmt.ix), visit(stmt.exp));
+        }
+
+        public Integer visitCallStmt(CallStmt stmt, Object arg) {
+            int node = node(Kind.CallStmt, 0, stmt.posn);
+            return link(node, visit(stmt.methodRef), list(stmt.argList, stmt.posn));
+        }
+
+        public Integer visitReturnStmt(ReturnStmt stmt, Object arg) {
+            return link(node(Kind.Return, 0, stmt.posn), visit(stmt.returnExpr));
+        }
+
+        public Integer visitIfStmt(IfStmt stmt, Object arg) {
+            int node = node(Kind.If, 0, stmt.posn);
+            return link(node, visit(stmt.cond), visit(stmt.thenStmt), visit(stmt.elseStmt));
+        }
+
+        public Integer visitWhileStmt(WhileStmt stmt, Object arg) {
+            int node = node(Kind.While, 0, stmt.posn);
+            return link(node, visit(stmt.cond), visit(stmt.body));
+        }
+
+        public Integer visitForStmt(ForStmt stmt, Object arg) {
+            int node = node(Kind.For, 0, stmt.posn);
+            return link(node, visit(stmt.init), visit(stmt.cond), visit(stmt.incr), visit(stmt.body));
+        }
+
+        public Integer visitUnaryExpr(UnaryExpr expr, Object arg) {
+            int node = node(Kind.Unary, 0, expr.posn);
+            return link(node, visit(expr.operator), visit(expr.expr));
+        }
+
+        public Integer visitBinaryExpr(BinaryExpr expr, Object arg) {
+            int node = node(Kind.Binary, 0, expr.posn);
+            return link(node, visit(expr.operator), visit(expr.left), visit(expr.right));
+        }
+
+        public Integer visitRefExpr(RefExpr expr, Object arg) {
+            return link(node(Kind.RefExpr, 0, expr.posn), visit(expr.ref));
+        }
+
+        public Integer visitIxExpr(IxExpr expr, Object arg) {
+            int node = node(Kind.IxExpr, 0, expr.posn);
+            return link(node, visit(expr.ref), visit(expr.ixExpr));
+        }
+
+        public Integer visitCallExpr(CallExpr expr, Object arg) {
+            int node = node(Kind.CallExpr, 0, expr.posn);
+            return link(node, visit(expr.functionRef), list(expr.argList, expr.posn));
+        }
+
+        public Integer visitLiteralExpr(LiteralExpr expr, Object arg) {
+            return link(node(Kind.LiteralExpr, 0, expr.posn), visit(expr.lit));
+        }
+
+        public Integer visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+            return link(node(Kind.NewObject, 0, expr.posn), visit(expr.classtype));
+        }
+
+        public Integer visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+            int node = node(Kind.NewArray, 0, expr.posn);
+            return link(node, visit(expr.eltType), visit(expr.sizeExpr));
+        }
+
+        public Integer visitCastExpr(CastExpr expr, Object arg) {
+            int node = node(Kind.Cast, 0, expr.posn);
+            return link(node, visit(expr.type), visit(expr.expr));
+        }
+
+        public Integer visitInstanceOfExpr(InstanceOfExpr expr, Object arg) {
+            int node = node(Kind.InstanceOf, 0, expr.posn);
+            return link(node, visit(expr.expr), visit(expr.type));
+        }
+
+        public Integer visitThisRef(ThisRef ref, Object arg) {
+            return node(Kind.This, 0, ref.posn);
+        }
+
+        public Integer visitSuperRef(SuperRef ref, Object arg) {
+            return node(Kind.Super, 0, ref.posn);
+        }
+
+        public Integer visitIdRef(IdRef ref, Object arg) {
+            return link(node(Kind.IdRef, 0, ref.posn), visit(ref.id));
+        }
+
+        public Integer visitQRef(QualRef ref, Object arg) {
+            int node = node(Kind.QualRef, 0, ref.posn);
+            return link(node, visit(ref.ref), visit(ref.id));
+        }
+
+        public Integer visitIdentifier(Identifier id, Object arg) {
+            return node(Kind.Identifier, id.id, id.posn);
+        }
+
+        public Integer visitOperator(Operator op, Object arg) {
+            return terminal(Kind.Operator, op, op.kind.ordinal());
+        }
+
+        public Integer visitIntLiteral(IntLiteral num, Object arg) {
+            return terminal(Kind.IntLiteral, num, num.value);
+        }
+
+        public Integer visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+            return terminal(Kind.BooleanLiteral, bool, bool.value);
+        }
+
+        public Integer visitNullLiteral(NullLiteral nullLiteral, Object arg) {
+            return terminal(Kind.NullLiteral, nullLiteral, nullLiteral.value);
+        }
+
+        public Integer visitLongLiteral(LongLiteral longLiteral, Object arg) {
+            return terminal(Kind.LongLiteral, longLiteral, longLiteral.value);
+        }
+
+        public Integer visitFloatLiteral(FloatLiteral floatLiteral, Object arg) {
+            return terminal(Kind.FloatLiteral, floatLiteral, floatLiteral.value);
+        }
+
+        public Integer visitDoubleLiteral(DoubleLiteral doubleLiteral, Object arg) {
+            return terminal(Kind.DoubleLiteral, doubleLiteral, doubleLiteral.value);
+        }
+
+        public Integer visitCharLiteral(CharLiteral charLiteral, Object arg) {
+            return terminal(Kind.CharLiteral, charLiteral, charLiteral.value);
+        }
+    }
+
+    // the package as the phases walk it: class, field and method headers are built from the arrays up front, and each
+    // method body is built (as a lazily parsed body is, see StatementList) when first read and again if read after a
+    // release, so a one pass compile only ever holds the body it is on. bodies are checked to be well formed first,
+    // throwing IllegalArgumentException if one is not, so a bad cache entry fails here and not once a phase reads it
+    public Package view() {
+        ClassDeclList classes = new ClassDeclList();
+        for (int c = firstChild(0); c >= 0; c = nextSibling[c]) classes.add(classDecl(c));
+        return new Package(classes, position[0]);
+    }
+
+    private ClassDecl classDecl(int node) {
+        ClassDecl cd = new ClassDecl(name(node), new FieldDeclList(), new MethodDeclList(), position[node]);
+        cd.parent = identifier(child(node, 0));
+        for (int f = firstChild(child(node, 1)); f >= 0; f = nextSibling[f]) {
+            cd.fieldDeclList.add(new FieldDecl(isPrivate(f), isStatic(f), type(firstChild(f)), name(f), position[f]));
+        }
+        for (int m = firstChild(child(node, 2)); m >= 0; m = nextSibling[m]) {
+            FieldDecl header = new FieldDecl(isPrivate(m), isStatic(m), type(child(m, 0)), name(m), position[m]);
+            ParameterDeclList parameters = new ParameterDeclList();
+            for (int p = firstChild(child(m, 1)); p >= 0; p = nextSibling[p]) {
+                parameters.add(new ParameterDecl(type(firstChild(p)), name(p), position[p]));
+            }
+            int body = child(m, 2);
+            checkStatements(body);
+            cd.methodDeclList.add(new MethodDecl(header, parameters, new StatementList(() -> statements(body)), position[m]));
+        }
+        return cd;
+    }
+
+    private List<Statement> statements(int list) {
+        List<Statement> statements = new ArrayList<>();
+        for (int s = firstChild(list); s >= 0; s = nextSibling[s]) statements.add(statement(s));
+        return statements;
+    }
+
+    private ExprList expressions(int list) {
+        ExprList expressions = new ExprList();
+        for (int e = firstChild(list); e >= 0; e = nextSibling[e]) expressions.add(expression(e));
+        return expressions;
+    }
+
+    private Statement statement(int node) {
+        long posn = position[node];
+        switch (kind(node)) {
+            case None:
+                return null;
+            case Block: {
+                StatementList statements = new StatementList();
+                for (Statement s : statements(firstChild(node))) statements.add(s);
+                return new BlockStmt(statements, posn);
+            }
+            case VarDeclStmt: {
+                int decl = child(node, 0);
+                VarDecl varDecl = new VarDecl(type(firstChild(decl)), name(decl), position[decl]);
+                return new VarDeclStmt(varDecl, expression(child(node, 1)), posn);
+            }
+            case Assign:
+                return new AssignStmt(reference(child(node, 0)), expression(child(node, 1)), posn);
+            case IxAssign:
+                return new IxAssignStmt(reference(child(node, 0)), expression(child(node, 1)), expression(child(node, 2)), posn);
+            case CallStmt:
+                return new CallStmt(reference(child(node, 0)), expressions(child(node, 1)), posn);
+            case Return:
+                return new ReturnStmt(expression(child(node, 0)), posn);
+            case If:
+                return new IfStmt(expression(child(node, 0)), statement(child(node, 1)), statement(child(node, 2)), posn);
+            case While:
+                return new WhileStmt(expression(child(node, 0)), statement(child(node, 1)), posn);
+            case For:
+                return new ForStmt(statement(child(node, 0)), expression(child(node, 1)), statement(child(node, 2)), statement(child(node, 3)), posn);
+            default:
+                throw new IllegalStateException(String.format("%s node is not a statement", kind(node)));
+        }
+    }
+
+    private Expression expression(int node) {
+        long posn = position[node];
+        switch (kind(node)) {
+            case None:
+                return null;
+            case Unary:
+                return new UnaryExpr((Operator) terminal(child(node, 0)), expression(child(node, 1)), posn);
+            case Binary:
+                return new BinaryExpr((Operator) terminal(child(node, 0)), expression(child(node, 1)), expression(child(node, 2)), posn);
+            case RefExpr:
+                return new RefExpr(reference(firstChild(node)), posn);
+            case IxExpr:
+                return new IxExpr(reference(child(node, 0)), expression(child(node, 1)), posn);
+            case CallExpr:
+                return new CallExpr(reference(child(node, 0)), expressions(child(node, 1)), posn);
+            case LiteralExpr:
+                return new LiteralExpr(terminal(firstChild(node)), posn);
+            case NewObject:
+                return new NewObjectExpr((ClassType) type(firstChild(node)), posn);
+            case NewArray:
+                return new NewArrayExpr(type(child(node, 0)), expression(child(node, 1)), posn);
+            case Cast:
+                return new CastExpr(type(child(node, 0)), expression(child(node, 1)), posn);
+            case InstanceOf:
+                return new InstanceOfExpr(expression(child(node, 0)), (ClassType) type(child(node, 1)), posn);
+            default:
+                throw new IllegalStateException(String.format("%s node is not an expression", kind(node)));
+        }
+    }
+
+    private Reference reference(int node) {
+        long posn = position[node];
+        switch (kind(node)) {
+            case This:
+                return new ThisRef(posn);
+            case Super:
+                return new SuperRef(posn);
+            case IdRef:
+                return new IdRef(identifier(firstChild(node)), posn);
+            case QualRef:
+                return new QualRef(reference(child(node, 0)), identifier(child(node, 1)), posn);
+            default:
+                throw new IllegalStateException(String.format("%s node is not a reference", kind(node)));
+        }
+    }
+
+    private TypeDenoter type(int node) {
+        long posn = position[node];
+        switch (kind(node)) {
+            case BaseType:
+                return new BaseType(typeKind(node), posn);
+            case ClassType:
+                return new ClassType(identifier(firstChild(node)), posn);
+            case ArrayType:
+                return new ArrayType(type(firstChild(node)), posn);
+            default:
+                throw new IllegalStateException(String.format("%s node is not a type", kind(node)));
+        }
+    }
+
+    private Identifier identifier(int node) {
+        return new Identifier(TokenType.Identifier, name(node), (int) payload[node], position[node]);
+    }
+
+    private Terminal terminal(int node) {
+        String spelling = text(node);
+        long posn = position[node];
+        Terminal terminal;
+        switch (kind(node)) {
+            case Operator:
+                return new Operator(operator(node), spelling, posn);
+            case IntLiteral:
+                terminal = new IntLiteral(TokenType.IntLiteral, spelling, posn);
+                break;
+            case LongLiteral:
+                terminal = new LongLiteral(TokenType.LongLiteral, spelling, posn);
+                break;
+            case FloatLiteral:
+                terminal = new FloatLiteral(TokenType.FloatLiteral, spelling, posn);
+                break;
+            case DoubleLiteral:
+                terminal = new DoubleLiteral(TokenType.DoubleLiteral, spelling, posn);
+                break;
+            case CharLiteral:
+                terminal = new CharLiteral(TokenType.CharLiteral, spelling, posn);
+                break;
+            case BooleanLiteral:
+                terminal = new BooleanLiteral(TokenType.BooleanLiteral, spelling, posn);
+                break;
+            case NullLiteral:
+                terminal = new NullLiteral(TokenType.NullLiteral, spelling, posn);
+                break;
+            default:
+                throw new IllegalStateException(String.format("%s node is not a terminal", kind(node)));
+        }
+        terminal.value = payload[node];
+        return terminal;
+    }
+
+    // checks the nodes under a body have the kinds statements() builds from, without building anything
+    private void checkStatements(int list) {
+        require(list, Kind.List);
+        for (int s = firstChild(list); s >= 0; s = nextSibling[s]) checkStatement(s);
+    }
+
+    private void checkExpressions(int list) {
+        require(list, Kind.List);
+        for (int e = firstChild(list); e >= 0; e = nextSibling[e]) checkExpression(e);
+    }
+
+    private void checkStatement(int node) {
+        switch (kindOf(node)) {
+            case None:
+                return;
+            case Block:
+                checkStatements(firstChild(node));
+                return;
+            case VarDeclStmt:
+                require(child(node, 0), Kind.VarDecl);
+                checkType(firstChild(child(node, 0)));
+                checkExpression(child(node, 1));
+                return;
+            case Assign:
+                checkReference(child(node, 0));
+                checkExpression(child(node, 1));
+                return;
+            case IxAssign:
+                checkReference(child(node, 0));
+                checkExpression(child(node, 1));
+                checkExpression(child(node, 2));
+                return;
+            case CallStmt:
+                checkReference(child(node, 0));
+                checkExpressions(child(node, 1));
+                return;
+            case Return:
+                checkExpression(child(node, 0));
+                return;
+            case If:
+                checkExpression(child(node, 0));
+                checkStatement(child(node, 1));
+                checkStatement(child(node, 2));
+                return;
+            case While:
+                checkExpression(child(node, 0));
+                checkStatement(child(node, 1));
+                return;
+            case For:
+                checkStatement(child(node, 0));
+                checkExpression(child(node, 1));
+                checkStatement(child(node, 2));
+                checkStatement(child(node, 3));
+                return;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void checkExpression(int node) {
+        switch (kindOf(node)) {
+            case None:
+                return;
+            case Unary:
+                checkTerminal(require(child(node, 0), Kind.Operator));
+                checkExpression(child(node, 1));
+                return;
+            case Binary:
+                checkTerminal(require(child(node, 0), Kind.Operator));
+                checkExpression(child(node, 1));
+                checkExpression(child(node, 2));
+                return;
+            case RefExpr:
+                checkReference(firstChild(node));
+                return;
+            case IxExpr:
+                checkReference(child(node, 0));
+                checkExpression(child(node, 1));
+                return;
+            case CallExpr:
+                checkReference(child(node, 0));
+                checkExpressions(child(node, 1));
+                return;
+            case LiteralExpr:
+                checkTerminal(firstChild(node));
+                return;
+            case NewObject:
+                checkType(require(firstChild(node), Kind.ClassType));
+                return;
+            case NewArray:
+            case Cast:
+                checkType(child(node, 0));
+                checkExpression(child(node, 1));
+                return;
+            case InstanceOf:
+                checkExpression(child(node, 0));
+                checkType(require(child(node, 1), Kind.ClassType));
+                return;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void checkReference(int node) {
+        switch (kindOf(node)) {
+            case This:
+            case Super:
+                return;
+            case IdRef:
+                require(firstChild(node), Kind.Identifier);
+                return;
+            case QualRef:
+                checkReference(child(node, 0));
+                require(child(node, 1), Kind.Identifier);
+                return;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void checkType(int node) {
+        switch (kindOf(node)) {
+            case BaseType:
+                checkIndex(payload[node], typeKinds.length);
+                return;
+            case ClassType:
+                require(firstChild(node), Kind.Identifier);
+                return;
+            case ArrayType:
+                checkType(firstChild(node));
+                return;
+            default:
+                throw malformed();
+        }
+    }
+
+    private void checkTerminal(int node) {
+        if (kindOf(node).ordinal() < Kind.Operator.ordinal()) throw malformed();
+        if (kind(node) == Kind.Operator) checkIndex(payload[node], tokenTypes.length);
+    }
+
+    private Kind kindOf(int node) {
+        if (node < 0) throw malformed();
+        return kind(node);
+    }
+
+    private int require(int node, Kind k) {
+        if (kindOf(node) != k) throw malformed();
+        return node;
+    }
+
+    private static IllegalArgumentException malformed() {
+        return new IllegalArgumentException("malformed flat AST");
+    }
+}
@@ -5,12 +5,10 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ForStmt extends Statement
 {
 
-    public ForStmt(Statement init, Expression cond, Statement incr, Statement body, SourcePosition posn){
+    public ForStmt(Statement init, Expression cond, Statement incr, Statement body, long posn){
         super(posn);
         this.init = init;
         this.cond = cond;
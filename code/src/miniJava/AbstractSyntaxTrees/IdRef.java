@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class IdRef extends BaseRef {
 	
-	public IdRef(Identifier id, SourcePosition posn){
+	public IdRef(Identifier id, long posn){
 		super(posn);
 		this.id = id;
 	}
@@ -5,12 +5,25 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
+import miniJava.SyntacticAnalyzer.NamePool;
 import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenType;
 
 public class Identifier extends Terminal {
-  public Declaration decl = null;
+  public final int id; // name pool id of spelling
   public Identifier (Token t) {
     super (t);
+    id = NamePool.intern(spelling);
+  }
+
+  public Identifier (TokenType kind, String spelling, long posn) {
+    this (kind, spelling, -1, posn);
+  }
+
+  // id already interned by the scanner (negative if not)
+  public Identifier (TokenType kind, String spelling, int id, long posn) {
+    super (kind, spelling, posn);
+    this.id = id >= 0 ? id : NamePool.intern(spelling);
   }
 
   public <A,R> R visit(Visitor<A,R> v, A o) {
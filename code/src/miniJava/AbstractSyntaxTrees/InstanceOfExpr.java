@@ -5,12 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class InstanceOfExpr extends Expression
 {
-    public ClassDecl typeDecl;
-    public InstanceOfExpr(Expression expr, ClassType type, SourcePosition posn){
+    public InstanceOfExpr(Expression expr, ClassType type, long posn){
         super(posn);
         this.expr = expr;
         this.type = type;
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class LiteralExpr extends Expression
 {
-    public LiteralExpr(Terminal t, SourcePosition posn){
+    public LiteralExpr(Terminal t, long posn){
         super(t.posn);
         lit = t;
     }
@@ -6,12 +6,17 @@
 package miniJava.AbstractSyntaxTrees;
 
 import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenType;
 
 public class LongLiteral extends Terminal {
 
   public LongLiteral(Token t) {
     super(t);
   }
+
+  public LongLiteral(TokenType kind, String spelling, long posn) {
+    super(kind, spelling, posn);
+  }
  
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitLongLiteral(this, o);
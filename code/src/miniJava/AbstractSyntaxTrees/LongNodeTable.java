@@ -0,0 +1,38 @@
+/**
+ * miniJava Abstract Syntax Tree classes
+ * @author prins
+ * @version COMP 520 (v2.2)
+ */
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.Arrays;
+
+// NodeTable of primitive longs, nodes without a value read as the table's default
+public class LongNodeTable {
+    private final Package prog;
+    private final long missing;
+    private long[] values;
+
+    public LongNodeTable(Package prog, long missing) {
+        this.prog = prog;
+        this.missing = missing;
+        values = new long[Math.max(16, prog.nodeCount())];
+        Arrays.fill(values, missing);
+    }
+
+    public long get(AST node) {
+        int id = prog.idOf(node);
+        return id >= 0 && id < values.length ? values[id] : missing;
+    }
+
+    public long put(AST node, long value) {
+        int id = prog.nodeId(node);
+        if (id >= values.length) {
+            int length = values.length;
+            values = Arrays.copyOf(values, Math.max(length * 2, id + 1));
+            Arrays.fill(values, length, values.length, missing);
+        }
+        values[id] = value;
+        return value;
+    }
+}
@@ -5,17 +5,15 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 abstract public class MemberDecl extends Declaration {
     public ClassDecl parent;
-    public MemberDecl(boolean isPrivate, boolean isStatic, TypeDenoter mt, String name, SourcePosition posn) {
+    public MemberDecl(boolean isPrivate, boolean isStatic, TypeDenoter mt, String name, long posn) {
         super(name, mt, posn);
         this.isPrivate = isPrivate;
         this.isStatic = isStatic;
     }
     
-    public MemberDecl(MemberDecl md, SourcePosition posn){
+    public MemberDecl(MemberDecl md, long posn){
     	super(md.name, md.type, posn);
     	this.isPrivate = md.isPrivate;
     	this.isStatic = md.isStatic;
@@ -6,12 +6,10 @@
 package miniJava.AbstractSyntaxTrees;
 
 import miniJava.ContextualAnalysis.Signature;
-import miniJava.SyntacticAnalyzer.SourcePosition;
 
 public class MethodDecl extends MemberDecl {
     public Signature signature;
-    public boolean lastRefDirectCall; // true if last reference is a direct call
-	public MethodDecl(MemberDecl md, ParameterDeclList pl, StatementList sl, SourcePosition posn){
+	public MethodDecl(MemberDecl md, ParameterDeclList pl, StatementList sl, long posn){
         super(md,posn);
         parameterDeclList = pl;
         statementList = sl;
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class NewObjectExpr extends NewExpr
 {
-    public NewObjectExpr(ClassType ct, SourcePosition posn){
+    public NewObjectExpr(ClassType ct, long posn){
         super(posn);
         classtype = ct;
     }
@@ -19,5 +17,4 @@ public class NewObjectExpr extends NewExpr
     }
     
     public ClassType classtype;
-    public ClassDecl decl;
 }
@@ -0,0 +1,246 @@
+/**
+ * miniJava Abstract Syntax Tree classes
+ * @author prins
+ * @version COMP 520 (v2.2)
+ */
+package miniJava.AbstractSyntaxTrees;
+
+// gives node ids (see Package.nodeId) to the nodes of a parsed tree in one pre-order pass
+// only the kinds of node phases key side tables by get one: declarations, expressions and references. method
+// bodies not parsed yet are skipped, they are numbered once read
+class NodeNumbering implements Visitor<Object, Object> {
+    private final Package prog;
+
+    NodeNumbering(Package prog) {
+        this.prog = prog;
+    }
+
+    private void visit(AST ast) {
+        if (ast != null) ast.visit(this, null);
+    }
+
+    void body(StatementList statements) {
+        if (!statements.isParsed()) return;
+        for (Statement stmt : statements) visit(stmt);
+    }
+
+    public Object visitPackage(Package prog, Object arg) {
+        for (ClassDecl cd : prog.classDeclList) visit(cd);
+        return null;
+    }
+
+    public Object visitClassDecl(ClassDecl cd, Object arg) {
+        prog.nodeId(cd);
+        for (FieldDecl fd : cd.fieldDeclList) visit(fd);
+        for (MethodDecl md : cd.methodDeclList) visit(md);
+        return null;
+    }
+
+    public Object visitFieldDecl(FieldDecl fd, Object arg) {
+        prog.nodeId(fd);
+        return null;
+    }
+
+    public Object visitMethodDecl(MethodDecl md, Object arg) {
+        prog.nodeId(md);
+        for (ParameterDecl pd : md.parameterDeclList) visit(pd);
+        body(md.statementList);
+        return null;
+    }
+
+    public Object visitParameterDecl(ParameterDecl pd, Object arg) {
+        prog.nodeId(pd);
+        return null;
+    }
+
+    public Object visitVarDecl(VarDecl decl, Object arg) {
+        prog.nodeId(decl);
+        return null;
+    }
+
+    public Object visitBaseType(BaseType type, Object arg) {
+        return null;
+    }
+
+    public Object visitClassType(ClassType type, Object arg) {
+        return null;
+    }
+
+    public Object visitArrayType(ArrayType type, Object arg) {
+        return null;
+    }
+
+    public Object visitBlockStmt(BlockStmt stmt, Object arg) {
+        for (Statement s : stmt.sl) visit(s);
+        return null;
+    }
+
+    public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
+        visit(stmt.varDecl);
+        visit(stmt.initExp);
+        return null;
+    }
+
+    public Object visitAssignStmt(AssignStmt stmt, Object arg) {
+        visit(stmt.ref);
+        visit(stmt.val);
+        return null;
+    }
+
+    public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
+        visit(stmt.ref);
+        visit(stmt.ix);
+        visit(stmt.exp);
+        return null;
+    }
+
+    public Object visitCallStmt(CallStmt stmt, Object arg) {
+        visit(stmt.methodRef);
+        for (Expression e : stmt.argList) visit(e);
+        return null;
+    }
+
+    public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
+        visit(stmt.returnExpr);
+        return null;
+    }
+
+    public Object visitIfStmt(IfStmt stmt, Object arg) {
+        visit(stmt.cond);
+        visit(stmt.thenStmt);
+        visit(stmt.elseStmt);
+        return null;
+    }
+
+    public Object visitWhileStmt(WhileStmt stmt, Object arg) {
+        visit(stmt.cond);
+        visit(stmt.body);
+        return null;
+    }
+
+    public Object visitForStmt(ForStmt stmt, Object arg) {
+        visit(stmt.init);
+        visit(stmt.cond);
+        visit(stmt.incr);
+        visit(stmt.body);
+        return null;
+    }
+
+    public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.expr);
+        return null;
+    }
+
+    public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.left);
+        visit(expr.right);
+        return null;
+    }
+
+    public Object visitRefExpr(RefExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.ref);
+        return null;
+    }
+
+    public Object visitIxExpr(IxExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.ref);
+        visit(expr.ixExpr);
+        return null;
+    }
+
+    public Object visitCallExpr(CallExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.functionRef);
+        for (Expression e : expr.argList) visit(e);
+        return null;
+    }
+
+    public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
+        prog.nodeId(expr);
+        return null;
+    }
+
+    public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
+        prog.nodeId(expr);
+        return null;
+    }
+
+    public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.sizeExpr);
+        return null;
+    }
+
+    public Object visitCastExpr(CastExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.expr);
+        return null;
+    }
+
+    public Object visitInstanceOfExpr(InstanceOfExpr expr, Object arg) {
+        prog.nodeId(expr);
+        visit(expr.expr);
+        return null;
+    }
+
+    public Object visitThisRef(ThisRef ref, Object arg) {
+        prog.nodeId(ref);
+        return null;
+    }
+
+    public Object visitSuperRef(SuperRef ref, Object arg) {
+        prog.nodeId(ref);
+        return null;
+    }
+
+    public Object visitIdRef(IdRef ref, Object arg) {
+        prog.nodeId(ref);
+        return null;
+    }
+
+    public Object visitQRef(QualRef ref, Object arg) {
+        prog.nodeId(ref);
+        visit(ref.ref);
+        return null;
+    }
+
+    public Object visitIdentifier(Identifier id, Object arg) {
+        return null;
+    }
+
+    public Object visitOperator(Operator op, Object arg) {
+        return null;
+    }
+
+    public Object visitIntLiteral(IntLiteral num, Object arg) {
+        return null;
+    }
+
+    public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
+        return null;
+    }
+
+    public Object visitNullLiteral(NullLiteral nullLiteral, Object arg) {
+        return null;
+    }
+
+    public Object visitLongLiteral(LongLiteral longLiteral, Object arg) {
+        return null;
+    }
+
+    public Object visitFloatLiteral(FloatLiteral floatLiteral, Object arg) {
+        return null;
+    }
+
+    public Object visitDoubleLiteral(DoubleLiteral doubleLiteral, Object arg) {
+        return null;
+    }
+
+    public Object visitCharLiteral(CharLiteral charLiteral, Object arg) {
+        return null;
+    }
+}
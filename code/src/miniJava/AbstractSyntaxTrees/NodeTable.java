@@ -0,0 +1,39 @@
+/**
+ * miniJava Abstract Syntax Tree classes
+ * @author prins
+ * @version COMP 520 (v2.2)
+ */
+package miniJava.AbstractSyntaxTrees;
+
+import java.util.Arrays;
+
+// attribute a phase keeps for the nodes of one package, in an array indexed by node id (see Package.nodeId)
+// the phase owns the table and hands it to the phases reading it, once they are done it can be dropped
+public class NodeTable<V> {
+    private final Package prog;
+    private Object[] values;
+
+    public NodeTable(Package prog) {
+        this.prog = prog;
+        values = new Object[Math.max(16, prog.nodeCount())];
+    }
+
+    // a phase handed the table checks it was kept for the package it works on
+    public void checkPackage(Package prog) {
+        if (prog != this.prog) throw new IllegalArgumentException("side table of another package");
+    }
+
+    // null if node has no value
+    @SuppressWarnings("unchecked")
+    public V get(AST node) {
+        int id = prog.idOf(node);
+        return id >= 0 && id < values.length ? (V) values[id] : null;
+    }
+
+    public V put(AST node, V value) {
+        int id = prog.nodeId(node);
+        if (id >= values.length) values = Arrays.copyOf(values, Math.max(values.length * 2, id + 1));
+        values[id] = value;
+        return value;
+    }
+}
@@ -1,12 +1,17 @@
 package miniJava.AbstractSyntaxTrees;
 
 import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenType;
 
 public class NullLiteral extends Terminal {
     public NullLiteral(Token t) {
         super(t);
     }
 
+    public NullLiteral(TokenType kind, String spelling, long posn) {
+        super(kind, spelling, posn);
+    }
+
     @Override
     public <A, R> R visit(Visitor<A, R> v, A o) {
         return v.visitNullLiteral(this, o);
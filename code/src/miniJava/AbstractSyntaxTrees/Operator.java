@@ -8,6 +8,7 @@ package miniJava.AbstractSyntaxTrees;
 import miniJava.SyntacticAnalyzer.Token;
 import miniJava.SyntacticAnalyzer.TokenType;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -15,6 +16,7 @@ public class Operator extends Terminal {
 
   public static Map<TokenType, Integer> binOpPrecedence; // low precedence = handled first
   public static final int precedenceLevelCount;
+  private static final int[] precedence; // binOpPrecedence indexed by token type ordinal, -1 if not a binary operator
   static {
     binOpPrecedence = new HashMap();
     binOpPrecedence.put(TokenType.Multiply, 0);
@@ -33,12 +35,26 @@ public class Operator extends Terminal {
     binOpPrecedence.put(TokenType.LogAnd, 7);
     binOpPrecedence.put(TokenType.LogOr, 8);
     precedenceLevelCount = 9;
+    precedence = new int[TokenType.values().length];
+    Arrays.fill(precedence, -1);
+    for (Map.Entry<TokenType, Integer> entry : binOpPrecedence.entrySet()) {
+      precedence[entry.getKey().ordinal()] = entry.getValue();
+    }
+  }
+
+  // precedence level of a binary operator token, -1 for any other token
+  public static int precedence(TokenType kind) {
+    return precedence[kind.ordinal()];
   }
 
   public Operator (Token t) {
     super (t);
   }
 
+  public Operator (TokenType kind, String spelling, long posn) {
+    super (kind, spelling, posn);
+  }
+
   public <A,R> R visit(Visitor<A,R> v, A o) {
       return v.visitOperator(this, o);
   }
@@ -5,14 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
-import java.util.ArrayList;
-import java.util.List;
-
 public class Package extends AST {
 
-  public Package(ClassDeclList cdl, SourcePosition posn) {
+  public Package(ClassDeclList cdl, long posn) {
     super(posn);
     classDeclList = cdl;
   }
@@ -22,5 +17,40 @@ public class Package extends AST {
     }
 
     public ClassDeclList classDeclList;
-    public List<ClassDecl> topoOrder = new ArrayList<>(); // topologically sorted classes
+
+    // dense ids for the package's nodes, which phases key their side tables by. parsing numbers the parsed nodes in
+    // one pass (numberNodes) and a lazily parsed method body once it is read, so phases don't write ids into parsed
+    // nodes. nodes a phase adds (casts, sig groups, ...) are numbered when first keyed, under the package's lock, so
+    // threads keying nodes at once get distinct ids. a node only holds its id, so nodes shared between packages (like
+    // the Matcher's predefined types) can't be keyed, and a side table checks it is read with its own package
+    private int nodeCount;
+
+    public int nodeId(AST node) {
+        int id = node.nodeId;
+        return id >= 0 ? id : newNodeId(node);
+    }
+
+    // a thread seeing no id yet takes the lock, where it sees an id given by another thread
+    private synchronized int newNodeId(AST node) {
+        if (node.nodeId < 0) node.nodeId = nodeCount++;
+        return node.nodeId;
+    }
+
+    // id of node, -1 if it has none
+    public int idOf(AST node) {
+        return node.nodeId;
+    }
+
+    public synchronized int nodeCount() {
+        return nodeCount;
+    }
+
+    public void numberNodes() {
+        visit(new NodeNumbering(this), null);
+    }
+
+    // numbers a method body parsed after the rest of the package
+    public void numberNodes(MethodDecl md) {
+        new NodeNumbering(this).body(md.statementList);
+    }
 }
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ParameterDecl extends LocalDecl {
 	
-	public ParameterDecl(TypeDenoter t, String name, SourcePosition posn){
+	public ParameterDecl(TypeDenoter t, String name, long posn){
 		super(name, t, posn);
 	}
 	
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class QualRef extends Reference {
 	
-	public QualRef(Reference ref, Identifier id, SourcePosition posn){
+	public QualRef(Reference ref, Identifier id, long posn){
 		super(posn);
 		this.ref = ref;
 		this.id  = id;
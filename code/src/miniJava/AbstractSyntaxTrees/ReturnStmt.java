@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ReturnStmt extends Statement 
 {
-	public ReturnStmt(Expression e, SourcePosition posn){
+	public ReturnStmt(Expression e, long posn){
 		super(posn);
 		returnExpr = e;
 	}
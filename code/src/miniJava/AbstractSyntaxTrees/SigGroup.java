@@ -1,21 +1,21 @@
 package miniJava.AbstractSyntaxTrees;
 
 import miniJava.ContextualAnalysis.Signature;
+import miniJava.SyntacticAnalyzer.SourcePosition;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Objects;
 import java.util.Set;
 
 // For resolving MethodDecls which have the same name but different signatures
 // Not visitable
+// signatures are kept in declaration order, so error messages listing them are the same every compile
 public class SigGroup extends MemberDecl {
-    public final Set<Signature> sigs = new HashSet<>();
+    public final Set<Signature> sigs = new LinkedHashSet<>();
     public final ClassDecl parent;
-    public boolean lastRefStatic; // true if last reference was from static context
-    public ClassDecl lastContext; // context of last reference
 
     public SigGroup(String name, ClassDecl parent) {
-        super(false, false, null, name, null);
+        super(false, false, null, name, SourcePosition.NONE);
         this.parent = parent;
     }
 
@@ -6,28 +6,56 @@
 package miniJava.AbstractSyntaxTrees;
 
 import java.util.*;
+import java.util.function.Supplier;
 
 public class StatementList implements Iterable<Statement>
 {
     public StatementList() {
         slist = new ArrayList<Statement>();
     }
+
+    // statements produced by body on first use (method bodies parsed lazily)
+    public StatementList(Supplier<List<Statement>> body) {
+        this.body = body;
+        this.source = body;
+    }
+
+    public boolean isParsed() {
+        return body == null;
+    }
+
+    // drops the statements of a lazily parsed body, they are parsed again if read again
+    public void release() {
+        if (source == null) return;
+        slist = null;
+        body = source;
+    }
     
     public void add(Statement s){
-        slist.add(s);
+        statements().add(s);
     }
     
     public Statement get(int i){
-        return slist.get(i);
+        return statements().get(i);
     }
     
     public int size() {
-        return slist.size();
+        return statements().size();
     }
     
     public Iterator<Statement> iterator() {
-    	return slist.iterator();
+    	return statements().iterator();
+    }
+
+    private List<Statement> statements() {
+        if (body != null) {
+            slist = body.get();
+            body = null;
+        }
+        return slist;
     }
     
     private List<Statement> slist;
+    private Supplier<List<Statement>> body;
+    private Supplier<List<Statement>> source; // null unless parsed lazily
 }
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class SuperRef extends BaseRef {
 
-	public SuperRef(SourcePosition posn) {
+	public SuperRef(long posn) {
 		super(posn);
 	}
 
@@ -14,8 +14,17 @@ abstract public class Terminal extends AST {
 	super(t.getTokenPosition());
     spelling = t.getTokenText();
     kind = t.getTokenType();
+    value = t.getPayload();
+  }
+
+  public Terminal (TokenType kind, String spelling, long posn) {
+    super(posn);
+    this.spelling = spelling;
+    this.kind = kind;
   }
 
   public TokenType kind;
   public String spelling;
+  public long value; // literal value decoded by the scanner, as Token.getPayload
+
 }
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class ThisRef extends BaseRef {
 	
-	public ThisRef(SourcePosition posn) {
+	public ThisRef(long posn) {
 		super(posn);
 	}
 
@@ -5,16 +5,15 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 abstract public class TypeDenoter extends AST {
     
-    public TypeDenoter(TypeKind type, SourcePosition posn){
+    public TypeDenoter(TypeKind type, long posn){
         super(posn);
         typeKind = type;
     }
     
     public TypeKind typeKind;
+    public int typeId = -1; // canonical type id once interned, see ContextualAnalysis/TypeTable
     
 }
 
@@ -5,11 +5,9 @@
  */
 package miniJava.AbstractSyntaxTrees;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class VarDecl extends LocalDecl {
 	
-	public VarDecl(TypeDenoter t, String name, SourcePosition posn) {
+	public VarDecl(TypeDenoter t, String name, long posn) {
 		super(name, t, posn);
 	}
 	
@@ -4,18 +4,20 @@ import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
 import miniJava.CodeGeneration.x64.*;
 import miniJava.CodeGeneration.x64.ISA.*;
+import miniJava.ContextualAnalysis.ClassHierarchy;
 import miniJava.ContextualAnalysis.TypeChecker;
 import miniJava.ErrorReporter;
 import miniJava.SyntacticAnalyzer.SourcePosition;
 import miniJava.SyntacticAnalyzer.Token;
 import miniJava.SyntacticAnalyzer.TokenType;
 
-import java.nio.ByteBuffer;
 import java.util.*;
 
 public class Codifier implements Visitor<Object, Object> {
     private static class UnresolvedAddress {
-        public static Map<String, Integer> labelMap = new HashMap<>();
+        // indexed by label id, offset is -1 until the label is placed
+        public static List<String> labelNames = new ArrayList<>();
+        public static int[] labelOffsets = new int[64];
 
         enum Type {CALL, JMP, COND_JMP, MOV_ADDR}
 
@@ -36,21 +38,21 @@ public class Codifier implements Visitor<Object, Object> {
             else if (instr instanceof Mov_ri64)
                 type = Type.MOV_ADDR;
             else throw new IllegalArgumentException("unsupported instruction type for unresolved address");
-            if (!(target instanceof MethodDecl || target instanceof String))
-                throw new IllegalArgumentException("unsupported target type for unresolved address (must be MethodDecl or String)");
+            if (!(target instanceof MethodDecl || target instanceof Integer))
+                throw new IllegalArgumentException("unsupported target type for unresolved address (must be MethodDecl or label id)");
             this.target = target;
         }
 
-        public void resolve() {
+        public void resolve(LongNodeTable methodOffsets) {
             Instruction newInstr;
             int targetOffset;
             if (target instanceof MethodDecl) {
-                targetOffset = (int) ((MethodDecl) target).asmOffset;
+                targetOffset = (int) methodOffsets.get((MethodDecl) target);
             } else {
-                String label = (String) target;
-                if (!labelMap.containsKey(label))
-                    throw new CodeGenerationError(String.format("Error when resolving address: Cannot find address with label %s", label));
-                targetOffset = labelMap.get(label);
+                int label = (Integer) target;
+                if (labelOffsets[label] == -1)
+                    throw new CodeGenerationError(String.format("Error when resolving address: Cannot find address with label %s", labelNames.get(label)));
+                targetOffset = labelOffsets[label];
             }
             switch (type) {
                 case JMP:
@@ -81,14 +83,41 @@ public class Codifier implements Visitor<Object, Object> {
     private ALUHandler alu;
     private int rbpOffset;
 
-    public Codifier(ErrorReporter errors) {
+    private final NodeTable<TypeDenoter> resultTypes; // expression types from contextual analysis
+    private final NodeTable<Declaration> refDecls; // reference declarations from contextual analysis
+    private final NodeTable<ClassDecl> typeDecls; // classes of new object, cast and instanceof expressions
+    private final ClassHierarchy hierarchy; // class parents and order from contextual analysis
+    private Package prog;
+    // for static field decl, is address of field on stack relative to base at r15
+    // for nonstatic field decl, is offset from object address
+    // for class decl, is address of class (and all its static fields) on stack relative to base at r15
+    // for var decl, is address on stack relative to rbp
+    // for method decl, is offset within virtual method table
+    private LongNodeTable memOffsets;
+    private LongNodeTable methodOffsets; // code offset of each method
+    private LongNodeTable vmtOffsets; // offset of start of each class's vmt relative to stack base
+    private BitSet directCalls; // methods whose last reference is a direct call
+
+    public Codifier(ErrorReporter errors, NodeTable<TypeDenoter> resultTypes, NodeTable<Declaration> refDecls,
+                    NodeTable<ClassDecl> typeDecls, ClassHierarchy hierarchy) {
         this.errors = errors;
+        this.resultTypes = resultTypes;
+        this.refDecls = refDecls;
+        this.typeDecls = typeDecls;
+        this.hierarchy = hierarchy;
+    }
+
+    private long memOffset(Declaration decl) {
+        // array length is the same predefined declaration in every package, its offset is fixed
+        if ("array.length".equals(decl.specialTag)) return 0;
+        return memOffsets.get(decl);
     }
 
     private int thisMemOffset;
     private ClassDecl currentClass;
     private MethodDecl currentMethod;
     private long nextNonce;
+    private final Map<Long, Integer> epilogueLabels = new HashMap<>(); // label ids keyed by class and method name ids
 
     private MethodDecl printAddrDecl = null;
     // prints address stored in R15
@@ -119,7 +148,21 @@ public class Codifier implements Visitor<Object, Object> {
         unresolvedAddressList.add(new UnresolvedAddress(asm, idx, target));
     }
 
+    // one pass compiles take the steps of parse themselves: begin once all headers are matched, then emitMethod
+    // for each method as soon as it is matched (in the order parse visits them), then finish
     public void parse(Package prog) {
+        if (!begin(prog)) return;
+        try {
+            prog.visit(this, null);
+        } catch (CodeGenerationError e) {
+            errors.reportError(e.getMessage());
+            return;
+        }
+        finish();
+    }
+
+    // sets up code generation for prog (main, field and method table layout, startup code), false on an error
+    public boolean begin(Package prog) {
         try {
             // If you haven't refactored the name "ModRMSIB" to something like "R",
             //  go ahead and do that now. You'll be needing that object a lot.
@@ -164,9 +207,18 @@ public class Codifier implements Visitor<Object, Object> {
             //  Note the false means that it is a 32-bit immediate for jumping (an int)
             //     _asm.patch( someJump.listIdx, new Jmp(asm.size(), someJump.startAddress, false) );
             unresolvedAddressList = new ArrayList<>();
+            this.prog = prog;
+            resultTypes.checkPackage(prog);
+            refDecls.checkPackage(prog);
+            typeDecls.checkPackage(prog);
+            hierarchy.checkPackage(prog);
+            memOffsets = new LongNodeTable(prog, Long.MAX_VALUE);
+            methodOffsets = new LongNodeTable(prog, -1);
+            vmtOffsets = new LongNodeTable(prog, 0);
+            directCalls = new BitSet();
 
             // find public static void main
-            TypeDenoter strArrType = new ArrayType(new ClassType(new Identifier(new Token(TokenType.Identifier, "String", -1, -1)), new SourcePosition(-1, -1)), new SourcePosition(-1, -1));
+            TypeDenoter strArrType = new ArrayType(new ClassType(new Identifier(new Token(TokenType.Identifier, "String", -1, -1)), SourcePosition.pack(-1, -1)), SourcePosition.pack(-1, -1));
             List<ClassDecl> mainClasses = new ArrayList<>();
             for (ClassDecl classDecl : prog.classDeclList) {
                 for (MethodDecl methodDecl : classDecl.methodDeclList) {
@@ -206,7 +258,8 @@ public class Codifier implements Visitor<Object, Object> {
             // create bookkeeping objects
             asm = new InstructionList();
             blockScopeStackSizes = new Stack<>();
-            UnresolvedAddress.labelMap.clear();
+            UnresolvedAddress.labelNames.clear();
+            epilogueLabels.clear();
             nextNonce = 0;
             fpu = new FPUHandler(asm);
             alu = new ALUHandler(asm, fpu);
@@ -231,22 +284,21 @@ public class Codifier implements Visitor<Object, Object> {
             long stackBaseOffset = 0;
             instr(new Xor(new ModRMSIB(Reg64.RAX, Reg64.RAX)));
             for (ClassDecl classDecl : prog.classDeclList) {
-                classDecl.memOffset = stackBaseOffset;
+                memOffsets.put(classDecl, stackBaseOffset);
                 long classMemOffset = 8; // first 8 bytes is VMT addr
                 for (FieldDecl fieldDecl : classDecl.fieldDeclList) {
                     if (fieldDecl.isStatic) {
                         // static field (relative to stack base)
                         stackBaseOffset -= 8;
-                        fieldDecl.memOffset = stackBaseOffset;
+                        memOffsets.put(fieldDecl, stackBaseOffset);
                         instr(new Push(0));
                     } else {
                         // nonstatic field (relative to obj heap addr)
-                        fieldDecl.memOffset = classMemOffset;
+                        memOffsets.put(fieldDecl, classMemOffset);
                         classMemOffset += 8;
                     }
-                    System.out.printf("field %s.%s mem offset: %d\n", classDecl.name, fieldDecl.name, fieldDecl.memOffset);
+                    System.out.printf("field %s.%s mem offset: %d\n", classDecl.name, fieldDecl.name, memOffset(fieldDecl));
                 }
-                classDecl.memSize = classMemOffset;
             }
             System.out.printf("static memory size: %d\n", stackBaseOffset);
 
@@ -255,7 +307,7 @@ public class Codifier implements Visitor<Object, Object> {
             ClassDecl sysDecl = null;
             ClassDecl psDecl = null;
             loadTextBase(Reg64.RCX);
-            for (ClassDecl classDecl : prog.topoOrder) {
+            for (ClassDecl classDecl : hierarchy.topoOrder()) {
                 System.out.printf("Push %s VMT: %x\n", classDecl.name, 0x1b0 + asm.getSize());
                 // ith method decl refers to ith VMT element
                 for (int i = classDecl.methodDeclList.size()-1; i >= 0; --i) {
@@ -263,23 +315,23 @@ public class Codifier implements Visitor<Object, Object> {
                     addUnresolved(instr(new Mov_ri64(Reg64.RAX, 0)), methodDecl); // resolve address of method later
                     instr(new Add(new ModRMSIB(Reg64.RAX, Reg64.RCX)));
                     instr(new Push(Reg64.RAX));
-                    methodDecl.memOffset = i * 8L + 8L; // offset in VMT
+                    memOffsets.put(methodDecl, i * 8L + 8L); // offset in VMT
                     stackBaseOffset -= 8;
                 }
                 // add pointer to parent VMT at start
                 stackBaseOffset -= 8;
                 loadStackBase(Reg64.RAX);
-                if (classDecl.parentDecl == classDecl) {
+                if (hierarchy.parent(classDecl) == classDecl) {
                     // special case for Object class
                     instr(new Add(new ModRMSIB(Reg64.RAX, true), (int)stackBaseOffset));
                     instr(new Push(Reg64.RAX));
                 } else {
                     // all other classes have parent VMTs pushed first
-                    instr(new Add(new ModRMSIB(Reg64.RAX, true), (int)classDecl.parentDecl.vmtOffset));
+                    instr(new Add(new ModRMSIB(Reg64.RAX, true), (int)vmtOffsets.get(hierarchy.parent(classDecl))));
                     instr(new Push(Reg64.RAX));
                 }
-                classDecl.vmtOffset = stackBaseOffset;
-                System.out.println(classDecl.vmtOffset);
+                vmtOffsets.put(classDecl, stackBaseOffset);
+                System.out.println(stackBaseOffset);
                 if (classDecl.name.equals("System"))
                     sysDecl = classDecl;
                 else if (classDecl.name.equals("_PrintStream"))
@@ -289,7 +341,7 @@ public class Codifier implements Visitor<Object, Object> {
             // init System.out object;`
             createObject(psDecl);
             loadStackBase(Reg64.RAX);
-            instr(new Lea(new ModRMSIB(Reg64.RAX, (int)sysDecl.fieldDeclList.get(0).memOffset, Reg64.RAX)));
+            instr(new Lea(new ModRMSIB(Reg64.RAX, (int) memOffset(sysDecl.fieldDeclList.get(0)), Reg64.RAX)));
             instr(new Pop(Reg64.RCX));
             instr(new Mov_rmr(new ModRMSIB(Reg64.RAX, 0, Reg64.RCX)));
             instr(new Mov_rrm(new ModRMSIB(Reg64.RCX, 0, Reg64.R15)));
@@ -313,13 +365,28 @@ public class Codifier implements Visitor<Object, Object> {
             // exit
             instr(new Xor(new ModRMSIB(Reg64.RDI, Reg64.RDI)));
             addExit();
+            return true;
+        } catch (CodeGenerationError e) {
+            errors.reportError(e.getMessage());
+            return false;
+        }
+    }
 
-            // main code generation
-            prog.visit(this, null);
+    // generates method md as visited in class cd
+    public void emitMethod(ClassDecl cd, MethodDecl md) {
+        try {
+            visitClassMethod(cd, md);
+        } catch (CodeGenerationError e) {
+            errors.reportError(e.getMessage());
+        }
+    }
 
+    // resolves addresses left for later and outputs a.out, if there were no errors
+    public void finish() {
+        try {
             // resolve unresolved addresses
             for (UnresolvedAddress unresolvedAddress : unresolvedAddressList) {
-                unresolvedAddress.resolve();
+                unresolvedAddress.resolve(methodOffsets);
             }
 
             // Output the file "a.out" if no errors
@@ -418,7 +485,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitPackage(Package prog, Object arg) {
-        prog.asmOffset = asm.getSize();
         for (ClassDecl classDecl : prog.classDeclList) {
             classDecl.visit(this, arg);
         }
@@ -427,23 +493,47 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitClassDecl(ClassDecl cd, Object arg) {
-        currentClass = cd;
-        cd.asmOffset = asm.getSize();
         for (MethodDecl methodDecl : cd.methodDeclList) {
-            methodDecl.visit(this, arg);
+            visitClassMethod(cd, methodDecl);
         }
         return null;
     }
 
+    private void visitClassMethod(ClassDecl cd, MethodDecl md) {
+        currentClass = cd;
+        md.visit(this, null);
+    }
+
     @Override
     public Object visitFieldDecl(FieldDecl fd, Object arg) {
         throw new CodeGenerationError("visitFieldDecl should not be called");
     }
 
+    // allocates a label id, name is only used for printing
+    private int newLabel(String name) {
+        int label = UnresolvedAddress.labelNames.size();
+        UnresolvedAddress.labelNames.add(name);
+        if (label == UnresolvedAddress.labelOffsets.length)
+            UnresolvedAddress.labelOffsets = Arrays.copyOf(UnresolvedAddress.labelOffsets, label * 2);
+        UnresolvedAddress.labelOffsets[label] = -1;
+        return label;
+    }
+
+    // label at the epilogue of method md as visited in class cd
+    private int epilogueLabel(ClassDecl cd, MethodDecl md) {
+        long key = (long) cd.nameId() << 32 | md.nameId();
+        Integer label = epilogueLabels.get(key);
+        if (label == null) {
+            label = newLabel(String.format("%s.%s.epilogue", cd.name, md.name));
+            epilogueLabels.put(key, label);
+        }
+        return label;
+    }
+
     // adds label at current instruction address
-    private void addLabel(String label) {
-        UnresolvedAddress.labelMap.put(label, asm.getSize());
-        System.out.printf("label %s: 0x%x\n", label, asm.getSize() + 0x1b0);
+    private void addLabel(int label) {
+        UnresolvedAddress.labelOffsets[label] = asm.getSize();
+        System.out.printf("label %s: 0x%x\n", UnresolvedAddress.labelNames.get(label), asm.getSize() + 0x1b0);
     }
 
     private void checkThisMemOffset() {
@@ -455,8 +545,8 @@ public class Codifier implements Visitor<Object, Object> {
     @Override
     public Object visitMethodDecl(MethodDecl md, Object arg) {
         currentMethod = md;
-        md.asmOffset = asm.getSize();
-        System.out.printf("method %s.%s address: 0x%x\n", md.parent.name, md.name, md.asmOffset + 0x1b0);
+        methodOffsets.put(md, asm.getSize());
+        System.out.printf("method %s.%s address: 0x%x\n", md.parent.name, md.name, methodOffsets.get(md) + 0x1b0);
 
         // PROLOGUE
         // update rbp and rsp
@@ -466,7 +556,7 @@ public class Codifier implements Visitor<Object, Object> {
         // map parameters
         int paramOffset = ARG_OFFSET;
         for (ParameterDecl param : md.parameterDeclList) {
-            param.memOffset = paramOffset;
+            memOffsets.put(param, paramOffset);
             System.out.printf("param %s: 0x%x\n", param.name, paramOffset);
             paramOffset += 8;
         }
@@ -484,7 +574,7 @@ public class Codifier implements Visitor<Object, Object> {
         if (md.specialTag != null) {
             // handle predefined methods
             if (md.specialTag.equals("System.out.println")) {
-                int memOffset = (int) md.parameterDeclList.get(0).memOffset;
+                int memOffset = (int) memOffset(md.parameterDeclList.get(0));
                 instr(new Lea(new ModRMSIB(Reg64.RBP, memOffset, Reg64.RSI)));
                 instr(new Mov_rmi(new ModRMSIB(Reg64.RDX, true), 1));
                 addPrintln();
@@ -498,7 +588,7 @@ public class Codifier implements Visitor<Object, Object> {
         }
 
         // EPILOGUE
-        addLabel(String.format("%s.%s.epilogue", md.parent.name, md.name));
+        addLabel(epilogueLabel(md.parent, md));
         // update rbp and rsp
         instr(new Mov_rmr(new ModRMSIB(Reg64.RSP, Reg64.RBP))); // mov rsp,rbp (pop all local variables)
         instr(new Pop(Reg64.RBP)); // pop rbp
@@ -535,7 +625,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitBlockStmt(BlockStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         blockScopeStackSizes.push(0);
         for (Statement nestedStmt : stmt.sl) {
             nestedStmt.visit(this, arg);
@@ -549,13 +638,12 @@ public class Codifier implements Visitor<Object, Object> {
     // push var onto stack in bookkeeping
     private void stackAlloc(VarDecl var) {
         rbpOffset -= 8;
-        var.memOffset = rbpOffset;
+        memOffsets.put(var, rbpOffset);
         blockScopeStackSizes.push(blockScopeStackSizes.pop() + 8);
     }
 
     @Override
     public Object visitVardeclStmt(VarDeclStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         stmt.initExp.visit(this, arg);
         stackAlloc(stmt.varDecl);
         return null;
@@ -563,7 +651,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitAssignStmt(AssignStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         stmt.ref.visit(this, arg);
         stmt.val.visit(this, arg);
         instr(new Pop(Reg64.RAX));
@@ -584,8 +671,8 @@ public class Codifier implements Visitor<Object, Object> {
         instr(new Mov_rrm(new ModRMSIB(reg, 0, Reg64.RDX))); // rdx: arr length
 
         // out of index error if index < 0 or index >= len
-        String idxOOBErrLabel = "idxOOBErrLabel " + genNonce();
-        String loadArrayElementEndLabel = "loadArrayElementEndLabel " + genNonce();
+        int idxOOBErrLabel = newLabel("idxOOBErrLabel " + genNonce());
+        int loadArrayElementEndLabel = newLabel("loadArrayElementEndLabel " + genNonce());
         instr(new Cmp(new ModRMSIB(Reg64.RCX, true), 0));
         addUnresolved(instr(new CondJmp(Condition.LT, 0, 0, false)), idxOOBErrLabel);
         instr(new Cmp(new ModRMSIB(Reg64.RCX, Reg64.RDX)));
@@ -601,7 +688,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitIxAssignStmt(IxAssignStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         stmt.exp.visit(this, arg);
         loadArrayElement(stmt.ref, stmt.ix, Reg64.RDI);
         instr(new Pop(Reg64.RAX));
@@ -611,14 +697,15 @@ public class Codifier implements Visitor<Object, Object> {
 
     private void handleCall(ExprList argList, Reference methodRef) {
         methodRef.visit(this, null); // pushes this if nonstatic and nothing otherwise
-        int argBytes = (((MethodDecl)methodRef.decl).isStatic ? 0 : 8) + argList.size() * 8;
+        MethodDecl method = (MethodDecl) refDecls.get(methodRef);
+        int argBytes = (method.isStatic ? 0 : 8) + argList.size() * 8;
         for (int i = argList.size()-1; i >= 0; i--) {
             argList.get(i).visit(this, null);
         }
 
-        if (((MethodDecl)methodRef.decl).lastRefDirectCall) {
+        if (directCalls.get(prog.nodeId(method))) {
             // direct call
-            addUnresolved(instr(new Call(0, 0)), methodRef.decl);
+            addUnresolved(instr(new Call(0, 0)), method);
         } else {
             // virtual call
             // get address of call from VMT
@@ -627,7 +714,7 @@ public class Codifier implements Visitor<Object, Object> {
             // mov RDI,[RDI] - dereference current object to get VMT address
             instr(new Mov_rrm(new ModRMSIB(Reg64.RDI, 0, Reg64.RDI)));
             // mov RDI,[RDI+method.memOffset] - get correct entry of VMT and mov call addr to RDI
-            instr(new Mov_rrm(new ModRMSIB(Reg64.RDI, (int) methodRef.decl.memOffset, Reg64.RDI)));
+            instr(new Mov_rrm(new ModRMSIB(Reg64.RDI, (int) memOffset(method), Reg64.RDI)));
             // call
             instr(new Call(new ModRMSIB(Reg64.RDI, true)));
         }
@@ -636,31 +723,28 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitCallStmt(CallStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         handleCall(stmt.argList, stmt.methodRef);
         return null;
     }
 
     @Override
     public Object visitReturnStmt(ReturnStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
         if (stmt.returnExpr != null) {
             stmt.returnExpr.visit(this, arg);
             instr(new Pop(Reg64.RAX));
         }
-        addUnresolved(instr(new Jmp(0,0,false)), String.format("%s.%s.epilogue", currentClass.name, currentMethod.name));
+        addUnresolved(instr(new Jmp(0,0,false)), epilogueLabel(currentClass, currentMethod));
         return null;
     }
 
     @Override
     public Object visitIfStmt(IfStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
 
         // condition
         stmt.cond.visit(this, arg);
         instr(new Pop(Reg64.RAX));
         instr(new Cmp(new ModRMSIB(Reg64.RAX, true), 0)); // check if false
-        String ifSkipLabel = "ifSkipLabel " + genNonce();
+        int ifSkipLabel = newLabel("ifSkipLabel " + genNonce());
         addUnresolved(instr(new CondJmp(Condition.E, 0, 0, false)), ifSkipLabel); // jump if false
 
         // then
@@ -668,7 +752,7 @@ public class Codifier implements Visitor<Object, Object> {
 
         // else
         if (stmt.elseStmt != null) {
-            String elseEndLabel = "elseEndLabel " + genNonce();
+            int elseEndLabel = newLabel("elseEndLabel " + genNonce());
             addUnresolved(instr(new Jmp(0, 0, false)), elseEndLabel);
             addLabel(ifSkipLabel);
             stmt.elseStmt.visit(this, arg);
@@ -681,10 +765,9 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitWhileStmt(WhileStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
 
         // initial jump
-        String condJmpLabel = "condJmpLabel " + genNonce();
+        int condJmpLabel = newLabel("condJmpLabel " + genNonce());
         addUnresolved(instr(new Jmp(0, 0, false)), condJmpLabel);
 
         // body
@@ -702,14 +785,13 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitForStmt(ForStmt stmt, Object arg) {
-        stmt.asmOffset = asm.getSize();
 
         // push scope and init
         blockScopeStackSizes.push(0);
         if (stmt.init != null) stmt.init.visit(this, arg);
 
         // initial jump
-        String condJmpLabel = "condJmpLabel " + genNonce();
+        int condJmpLabel = newLabel("condJmpLabel " + genNonce());
         addUnresolved(instr(new Jmp(0, 0, false)), condJmpLabel);
 
         // body, incr
@@ -737,10 +819,9 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitUnaryExpr(UnaryExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         expr.expr.visit(this, arg);
         instr(new Pop(Reg64.RAX));
-        TypeKind type = expr.resultType == null ? null : expr.resultType.typeKind;
+        TypeKind type = resultTypes.get(expr) == null ? null : resultTypes.get(expr).typeKind;
         switch (expr.operator.kind) {
             case Minus:
                 alu.neg(type);
@@ -757,13 +838,12 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitBinaryExpr(BinaryExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         expr.left.visit(this, arg);
         expr.right.visit(this, arg);
         instr(new Pop(Reg64.RCX));
         instr(new Pop(Reg64.RAX));
         Condition cond = null;
-        TypeKind type = expr.left.resultType == null ? null : expr.left.resultType.typeKind;
+        TypeKind type = resultTypes.get(expr.left) == null ? null : resultTypes.get(expr.left).typeKind;
         switch (expr.operator.kind) {
             case Add:
                 alu.add(type);
@@ -813,7 +893,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitRefExpr(RefExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         expr.ref.visit(this, arg);
         instr(new Pop(Reg64.RAX));
         instr(new Mov_rrm(new ModRMSIB(Reg64.RAX, 0, Reg64.RAX)));
@@ -823,7 +902,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitIxExpr(IxExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         loadArrayElement(expr.ref, expr.ixExpr, Reg64.RAX);
         instr(new Mov_rrm(new ModRMSIB(Reg64.RAX, 0, Reg64.RAX)));
         instr(new Push(Reg64.RAX));
@@ -832,7 +910,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitCallExpr(CallExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         handleCall(expr.argList, expr.functionRef);
         instr(new Push(Reg64.RAX));
         return null;
@@ -840,7 +917,6 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitLiteralExpr(LiteralExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         long val = (Long)expr.lit.visit(this, arg);
         instr(new Mov_ri64(Reg64.RAX, val));
         instr(new Push(Reg64.RAX));
@@ -850,7 +926,7 @@ public class Codifier implements Visitor<Object, Object> {
     // loads vmt addr of class decl into reg
     private void loadVmtAddr(Reg64 reg, ClassDecl decl) {
         loadStackBase(reg);
-        instr(new Lea(new ModRMSIB(reg, (int)decl.vmtOffset, reg)));
+        instr(new Lea(new ModRMSIB(reg, (int)vmtOffsets.get(decl), reg)));
     }
 
     // creates instance of class defined by decl and pushes address onto stack
@@ -867,14 +943,12 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitNewObjectExpr(NewObjectExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
-        createObject(expr.decl);
+        createObject(typeDecls.get(expr));
         return null;
     }
 
     @Override
     public Object visitNewArrayExpr(NewArrayExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         expr.sizeExpr.visit(this, arg);
         addMalloc();
         instr(new Pop(Reg64.RCX));
@@ -922,20 +996,19 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitCastExpr(CastExpr expr, Object arg) {
-        expr.asmOffset = asm.getSize();
         expr.expr.visit(this, arg);
         instr(new Pop(Reg64.RAX));
 
         // perform cast on value in RAX
-        if (expr.resultType instanceof ClassType) {
+        if (resultTypes.get(expr) instanceof ClassType) {
             // dynamic class cast
-            loadVmtAddr(Reg64.RCX, expr.typeDecl);
+            loadVmtAddr(Reg64.RCX, typeDecls.get(expr));
             instr(new Mov_rmr(new ModRMSIB(Reg64.RBX, Reg64.RAX)));
             addInstanceOf(Reg64.RBX, Reg64.RCX, Reg64.RDX);
             instr(new Cmp(new ModRMSIB(Reg64.RDX, true), 1));
-            String skipExitLabel = "skipExitLabel " + genNonce();
+            int skipExitLabel = newLabel("skipExitLabel " + genNonce());
             addUnresolved(instr(new CondJmp(Condition.E, 0, 0, false)), skipExitLabel);
-            directPrint(String.format("Invalid dynamic cast to instance of %s\n", ((ClassType)expr.resultType).className.spelling));
+            directPrint(String.format("Invalid dynamic cast to instance of %s\n", ((ClassType)resultTypes.get(expr)).className.spelling));
             addPrintln();
             instr(new Mov_ri64(Reg64.RDI, -1));
             addExit();
@@ -947,7 +1020,7 @@ public class Codifier implements Visitor<Object, Object> {
         int intSizeDst = 0;
         int intSizeSrc = 0;
         boolean isDbl = false;
-        TypeKind srcType = expr.expr.resultType.typeKind;
+        TypeKind srcType = resultTypes.get(expr.expr).typeKind;
         TypeKind dstType = expr.type.typeKind;
         if (srcType != dstType) {
             switch (dstType) {
@@ -1025,8 +1098,8 @@ public class Codifier implements Visitor<Object, Object> {
     // boolean result put into res
     private void addInstanceOf(Reg64 aAddr, Reg64 vmtAddr, Reg64 res) {
         instr(new Mov_ri64(res, 0));
-        String iofSuccessLabel = "iofSuccessLabel " + genNonce();
-        String iofEndLabel = "iofEndLabel" + genNonce();
+        int iofSuccessLabel = newLabel("iofSuccessLabel " + genNonce());
+        int iofEndLabel = newLabel("iofEndLabel" + genNonce());
         int loopTop = asm.getSize();
         // top of loop
         instr(new Mov_rrm(new ModRMSIB(aAddr, 0, aAddr))); // dereference aAddr to get VMT addr
@@ -1049,7 +1122,7 @@ public class Codifier implements Visitor<Object, Object> {
     @Override
     public Object visitInstanceOfExpr(InstanceOfExpr expr, Object arg) {
         expr.expr.visit(this, arg);
-        loadVmtAddr(Reg64.RDX, expr.typeDecl);
+        loadVmtAddr(Reg64.RDX, typeDecls.get(expr));
         instr(new Pop(Reg64.RCX));
         addInstanceOf(Reg64.RCX, Reg64.RDX, Reg64.RAX);
         instr(new Push(Reg64.RAX));
@@ -1059,9 +1132,8 @@ public class Codifier implements Visitor<Object, Object> {
     @Override
     public Object visitThisRef(ThisRef ref, Object arg) {
         // pushes address of object + VTM address
-        ref.asmOffset = asm.getSize();
         checkThisMemOffset();
-        ref.decl.memOffset = thisMemOffset;
+        memOffsets.put(refDecls.get(ref), thisMemOffset);
         instr(new Lea(new ModRMSIB(Reg64.RBP, thisMemOffset, Reg64.RAX)));
         instr(new Push(Reg64.RAX));
         return null;
@@ -1070,9 +1142,8 @@ public class Codifier implements Visitor<Object, Object> {
     @Override
     public Object visitSuperRef(SuperRef ref, Object arg) {
         // same as this, member decl resolved during identification
-        ref.asmOffset = asm.getSize();
         checkThisMemOffset();
-        ref.decl.memOffset = thisMemOffset;
+        memOffsets.put(refDecls.get(ref), thisMemOffset);
         instr(new Lea(new ModRMSIB(Reg64.RBP, thisMemOffset, Reg64.RAX)));
         instr(new Push(Reg64.RAX));
         return null;
@@ -1083,14 +1154,15 @@ public class Codifier implements Visitor<Object, Object> {
     // for qualref with super as ref and method as id, directly accesses methods instead of looking at VMT
     // clobbers RAX and RSI
     void pushRefAddress(Reference ref) {
+        Declaration decl = refDecls.get(ref);
         // load ref address into rax
-        if (ref.decl instanceof ClassDecl) {
+        if (decl instanceof ClassDecl) {
             loadStackBase(Reg64.RAX);
-            instr(new Lea(new ModRMSIB(Reg64.RAX, (int) ref.decl.memOffset, Reg64.RAX)));
-        } else if (ref.decl instanceof FieldDecl) {
-            if (((FieldDecl) ref.decl).isStatic) {
+            instr(new Lea(new ModRMSIB(Reg64.RAX, (int) memOffset(decl), Reg64.RAX)));
+        } else if (decl instanceof FieldDecl) {
+            if (((FieldDecl) decl).isStatic) {
                 loadStackBase(Reg64.RAX);
-                instr(new Lea(new ModRMSIB(Reg64.RAX, (int) ref.decl.memOffset, Reg64.RAX)));
+                instr(new Lea(new ModRMSIB(Reg64.RAX, (int) memOffset(decl), Reg64.RAX)));
             } else {
                 if (ref instanceof QualRef) {
                     QualRef qualRef = (QualRef)ref;
@@ -1101,14 +1173,14 @@ public class Codifier implements Visitor<Object, Object> {
                     checkThisMemOffset();
                     instr(new Mov_rrm(new ModRMSIB(Reg64.RBP, thisMemOffset, Reg64.RSI)));
                 }
-                instr(new Lea(new ModRMSIB(Reg64.RSI, (int) ref.decl.memOffset, Reg64.RAX)));
+                instr(new Lea(new ModRMSIB(Reg64.RSI, (int) memOffset(decl), Reg64.RAX)));
             }
-        } else if (ref.decl instanceof LocalDecl) {
-            instr(new Lea(new ModRMSIB(Reg64.RBP, (int) ref.decl.memOffset, Reg64.RAX)));
-        } else if (ref.decl instanceof MethodDecl) {
-            MethodDecl method = (MethodDecl)ref.decl;
+        } else if (decl instanceof LocalDecl) {
+            instr(new Lea(new ModRMSIB(Reg64.RBP, (int) memOffset(decl), Reg64.RAX)));
+        } else if (decl instanceof MethodDecl) {
+            MethodDecl method = (MethodDecl)decl;
             if (method.isStatic) {
-                method.lastRefDirectCall = true;
+                directCalls.set(prog.nodeId(method));
                 return; // push nothing since is static
             }
 
@@ -1117,11 +1189,11 @@ public class Codifier implements Visitor<Object, Object> {
                 qualRef.ref.visit(this, null);
                 if (qualRef.ref instanceof SuperRef) {
                     // is direct call
-                    method.lastRefDirectCall = true;
+                    directCalls.set(prog.nodeId(method));
                     return;
                 } else {
                     // uses VMT
-                    method.lastRefDirectCall = false;
+                    directCalls.clear(prog.nodeId(method));
                     instr(new Pop(Reg64.RAX));
                 }
             } else if (ref instanceof IdRef) {
@@ -1130,7 +1202,7 @@ public class Codifier implements Visitor<Object, Object> {
             }
             instr(new Mov_rrm(new ModRMSIB(Reg64.RAX, 0, Reg64.RAX)));
         } else {
-            throw new RuntimeException(String.format("unknown declaration subclass for ref %s", ref.decl.name));
+            throw new RuntimeException(String.format("unknown declaration subclass for ref %s", decl.name));
         }
 
         // push ref address onto stack
@@ -1139,14 +1211,12 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitIdRef(IdRef ref, Object arg) {
-        ref.asmOffset = asm.getSize();
         pushRefAddress(ref);
         return null;
     }
 
     @Override
     public Object visitQRef(QualRef ref, Object arg) {
-        ref.asmOffset = asm.getSize();
         pushRefAddress(ref);
         return null;
     }
@@ -1163,44 +1233,38 @@ public class Codifier implements Visitor<Object, Object> {
 
     @Override
     public Object visitIntLiteral(IntLiteral num, Object arg) {
-        num.asmOffset = asm.getSize();
-        return (long)Integer.parseInt(num.spelling);
+        return num.value;
     }
 
     @Override
     public Object visitBooleanLiteral(BooleanLiteral bool, Object arg) {
-        bool.asmOffset = asm.getSize();
-        return bool.spelling.equals("true") ? 1L : 0L;
+        return bool.value;
     }
 
     @Override
     public Object visitNullLiteral(NullLiteral nullLiteral, Object arg) {
-        nullLiteral.asmOffset = asm.getSize();
         return 0;
     }
 
     @Override
     public Object visitLongLiteral(LongLiteral longLiteral, Object arg) {
-        longLiteral.asmOffset = asm.getSize();
-        return Long.valueOf(longLiteral.spelling);
+        return longLiteral.value;
     }
 
     @Override
     public Object visitFloatLiteral(FloatLiteral floatLiteral, Object arg) {
-        floatLiteral.asmOffset = asm.getSize();
-        // convert String to float to IEEE 754 bytes to int to long
-        return (long)ByteBuffer.allocate(4).putFloat(Float.parseFloat(floatLiteral.spelling)).getInt(0);
+        // IEEE 754 bits decoded by the scanner, sign extended from int to long
+        return floatLiteral.value;
     }
 
     @Override
     public Object visitDoubleLiteral(DoubleLiteral doubleLiteral, Object arg) {
-        doubleLiteral.asmOffset = asm.getSize();
-        // convert String to double to IEEE 754 bytes to long
-        return ByteBuffer.allocate(8).putDouble(Double.parseDouble(doubleLiteral.spelling)).getLong(0);
+        // IEEE 754 bits decoded by the scanner
+        return doubleLiteral.value;
     }
 
     @Override
     public Object visitCharLiteral(CharLiteral charLiteral, Object arg) {
-        return (long)charLiteral.spelling.charAt(0);
+        return charLiteral.value;
     }
 }
@@ -5,46 +5,100 @@ import miniJava.AbstractSyntaxTrees.ASTDisplay;
 import miniJava.AbstractSyntaxTrees.Package;
 import miniJava.CodeGeneration.Codifier;
 import miniJava.ContextualAnalysis.Matcher;
-import miniJava.SyntacticAnalyzer.Parser;
-import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.ASTCache;
+import miniJava.SyntacticAnalyzer.ParallelParser;
+import miniJava.SyntacticAnalyzer.SourceBuffer;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class Compiler {
-	// Main function, the file to compile will be an argument.
-	public static void main(String[] args) throws FileNotFoundException {
+	// Main function, the files to compile will be the arguments.
+	// several files are compiled together into one program, and errors then name the file they are in
+	// options before the files:
+	//   -batch                   report every error instead of stopping at the first one
+	//   -pipeline                lex each file on its own thread while it is parsed, instead of in parallel chunks
+	//   -cache <directory>       reuse the parse of unchanged files from an AST cache in directory
+	//   -cache-limit <megabytes> size the cache is kept under by evicting least recently used entries
+	//   -fast                    compile in one pass, generating each method as soon as it is matched and then
+	//                            dropping its body, instead of holding the whole program's AST (no tree display)
+	public static void main(String[] args) throws IOException {
 		ErrorReporter errors = new ErrorReporter();
-		if (args.length == 0) throw new IllegalArgumentException("Missing source code file path");
-		InputStream in;
-		try {
-			File file = new File(args[0]);
-			in = new FileInputStream(file);
-		} catch (IOException e) {
-			throw new FileNotFoundException("Source code file not found");
+		File cacheDirectory = null;
+		long cacheLimit = ASTCache.DEFAULT_MAX_BYTES;
+		boolean batch = false;
+		boolean pipeline = false;
+		boolean fast = false;
+		int first = 0;
+		while (first + 1 < args.length && args[first].startsWith("-")) {
+			String option = args[first++];
+			if (option.equals("-batch")) batch = true;
+			else if (option.equals("-pipeline")) pipeline = true;
+			else if (option.equals("-fast")) fast = true;
+			else if (option.equals("-cache")) cacheDirectory = new File(args[first++]);
+			else if (option.equals("-cache-limit")) cacheLimit = Long.parseLong(args[first++]) << 20;
+			else throw new IllegalArgumentException(String.format("Unknown option %s", option));
 		}
-		Scanner scanner = new Scanner(in, errors);
-		Parser parser = new Parser(scanner, errors);
-		Package ast = (Package)parser.parse();
-		if (ast != null) {
-			ASTDisplay display = new ASTDisplay();
-			Matcher matcher = new Matcher(errors);
-			matcher.match(ast);
-			if (!errors.hasErrors()) {
-				display.showTree(ast);
-				Codifier codifier = new Codifier(errors);
-				codifier.parse(ast);
+		List<String> paths = Arrays.asList(args).subList(first, args.length);
+		if (paths.isEmpty()) throw new IllegalArgumentException("Missing source code file path");
+		List<SourceBuffer> sources = new ArrayList<>();
+		for (String path : paths) {
+			try {
+				sources.add(SourceBuffer.map(new File(path)));
+			} catch (IOException e) {
+				throw new FileNotFoundException(String.format("Source code file not found: %s", path));
 			}
 		}
+		if (paths.size() > 1) errors.setFileNames(paths);
+		ASTCache cache = cacheDirectory == null ? null : new ASTCache(cacheDirectory, cacheLimit);
+		if (fast) {
+			compileFast(sources, errors, cache, batch, pipeline);
+		} else {
+			compile(sources, errors, cache, batch, pipeline);
+		}
 		if (errors.hasErrors()) {
 			System.out.println("Error");
 			errors.outputErrors();
 		} else {
 			System.out.println("Success");
 		}
-		try {
-			in.close();
-		} catch (IOException e) {
-			throw new RuntimeException("file close error");
+		if (cache != null) System.out.println(cache.report());
+	}
+
+	private static void compile(List<SourceBuffer> sources, ErrorReporter errors, ASTCache cache, boolean batch, boolean pipeline) {
+		Package ast = ParallelParser.parse(sources, errors, cache, batch, pipeline);
+		if (ast != null) {
+			ASTDisplay display = new ASTDisplay();
+			Matcher matcher = new Matcher(errors);
+			if (batch) matcher.enableRecovery();
+			matcher.match(ast);
+			if (!errors.hasErrors()) {
+				display.showTree(ast);
+				Codifier codifier = new Codifier(errors, matcher.getResultTypes(), matcher.getRefDecls(), matcher.getTypeDecls(), matcher.getHierarchy());
+				codifier.parse(ast);
+			}
 		}
 	}
+
+	// only headers are parsed up front, then each method body is parsed, matched, generated and dropped in turn
+	private static void compileFast(List<SourceBuffer> sources, ErrorReporter errors, ASTCache cache, boolean batch, boolean pipeline) {
+		Package ast = ParallelParser.parseHeaders(sources, errors, cache, batch, pipeline);
+		if (ast == null) return;
+		Matcher matcher = new Matcher(errors);
+		if (batch) matcher.enableRecovery();
+		matcher.matchHeaders(ast);
+		// code generation errors are only reported for a program without other errors, as in the full pipeline
+		ErrorReporter codeErrors = new ErrorReporter();
+		Codifier codifier = new Codifier(codeErrors, matcher.getResultTypes(), matcher.getRefDecls(), matcher.getTypeDecls(), matcher.getHierarchy());
+		if (!errors.hasErrors()) codifier.begin(ast);
+		matcher.matchMethods(ast, (cd, md) -> {
+			if (!errors.hasErrors() && !codeErrors.hasErrors()) codifier.emitMethod(cd, md);
+			md.statementList.release();
+		});
+		if (errors.hasErrors()) return;
+		if (!codeErrors.hasErrors()) codifier.finish();
+		errors.addAll(codeErrors);
+	}
 }
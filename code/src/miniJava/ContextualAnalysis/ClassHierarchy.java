@@ -0,0 +1,58 @@
+package miniJava.ContextualAnalysis;
+
+import miniJava.AbstractSyntaxTrees.*;
+import miniJava.AbstractSyntaxTrees.Package;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// inheritance the matcher finds, kept in side tables instead of the class decls
+// each class has its parent (Object is its own) and its depth below Object, -1 for a class not reached from Object,
+// and the classes reached are listed parents first
+public class ClassHierarchy {
+    private final NodeTable<ClassDecl> parents;
+    private final LongNodeTable depths;
+    private final List<ClassDecl> topoOrder = new ArrayList<>();
+
+    public ClassHierarchy(Package prog) {
+        parents = new NodeTable<>(prog);
+        depths = new LongNodeTable(prog, -1);
+    }
+
+    public ClassDecl parent(ClassDecl cd) {
+        return parents.get(cd);
+    }
+
+    void setParent(ClassDecl cd, ClassDecl parent) {
+        parents.put(cd, parent);
+    }
+
+    public int depth(ClassDecl cd) {
+        return (int) depths.get(cd);
+    }
+
+    // adds cd at depth after the classes already ordered
+    void addInOrder(ClassDecl cd, int depth) {
+        depths.put(cd, depth);
+        topoOrder.add(cd);
+    }
+
+    // topologically sorted classes
+    public List<ClassDecl> topoOrder() {
+        return topoOrder;
+    }
+
+    // checks if b is a subclass of a
+    // note: a is counted as a subclass of itself
+    public boolean ancestorOf(ClassDecl a, ClassDecl b) {
+        if (a.nameId() == b.nameId()) return true;
+        if (depth(a) > depth(b)) return false;
+        while (depth(b) > depth(a))
+            b = parent(b);
+        return a.nameId() == b.nameId();
+    }
+
+    public void checkPackage(Package prog) {
+        parents.checkPackage(prog);
+    }
+}
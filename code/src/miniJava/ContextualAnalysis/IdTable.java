@@ -1,15 +1,15 @@
 package miniJava.ContextualAnalysis;
 
 import miniJava.AbstractSyntaxTrees.*;
-import miniJava.SyntacticAnalyzer.SourcePosition;
+import miniJava.SyntacticAnalyzer.NamePool;
 
 import java.util.*;
 
 public class IdTable {
     private static class MemberIdTable {
         public final ClassDecl classDecl;
-        public final HashMap<String, FieldDecl> fieldIdTable = new HashMap<>();
-        public final HashMap<String, SigGroup> methodIdTable = new HashMap<>();
+        public final IntMap<FieldDecl> fieldIdTable = new IntMap<>();
+        public final IntMap<SigGroup> methodIdTable = new IntMap<>();
         public final List<SigGroup> sigGroups = new ArrayList<>();
 
         MemberIdTable(ClassDecl classDecl) {
@@ -50,132 +50,138 @@ public class IdTable {
         }
     }
 
-    private final Map<String, MemberIdTable> classIdTable = new HashMap<>();
-    private final Map<String, DeclScopeHandler> idTable = new HashMap<>();
-    private final Stack<List<String>> idStack = new Stack<>();
+    // class and scoped decl tables are indexed directly by name pool id
+    private MemberIdTable[] classIdTable = new MemberIdTable[0];
+    private DeclScopeHandler[] idTable = new DeclScopeHandler[0];
+    private int[] scopedIds = new int[64]; // ids added to open scopes, innermost scope last
+    private int scopedIdCount = 0;
+    private int[] scopeStarts = new int[16]; // scopedIdCount when each scope level was opened
     private int scopeLevel = 0;
 
-    public IdTable() {
-        idStack.push(new ArrayList<>());
-    }
+    public IdTable() {}
 
     void openScope() {
-        idStack.push(new ArrayList<>());
         scopeLevel++;
+        if (scopeLevel == scopeStarts.length) scopeStarts = Arrays.copyOf(scopeStarts, scopeLevel * 2);
+        scopeStarts[scopeLevel] = scopedIdCount;
     }
 
     void closeScope() {
-        for (String id : idStack.lastElement()) {
-            DeclScopeHandler handler = idTable.get(id);
+        while (scopedIdCount > scopeStarts[scopeLevel]) {
+            int id = scopedIds[--scopedIdCount];
+            DeclScopeHandler handler = idTable[id];
             handler.pop();
-            if (handler.isEmpty()) idTable.remove(id);
+            if (handler.isEmpty()) idTable[id] = null;
         }
-        idStack.pop();
         scopeLevel--;
     }
 
     public void addScopedDecl(Declaration decl) {
-        if (!idTable.containsKey(decl.name))
-            idTable.put(decl.name, new DeclScopeHandler());
-        idTable.get(decl.name).push(decl, Math.min(scopeLevel, 2));
-        idStack.lastElement().add(decl.name);
+        int id = decl.nameId();
+        if (id >= idTable.length) idTable = Arrays.copyOf(idTable, Math.max(id + 1, NamePool.size()));
+        if (idTable[id] == null)
+            idTable[id] = new DeclScopeHandler();
+        idTable[id].push(decl, Math.min(scopeLevel, 2));
+        if (scopedIdCount == scopedIds.length) scopedIds = Arrays.copyOf(scopedIds, scopedIdCount * 2);
+        scopedIds[scopedIdCount++] = id;
     }
 
     public void addClassDecl(ClassDecl decl) {
-        if (classIdTable.containsKey(decl.name))
+        int id = decl.nameId();
+        if (id >= classIdTable.length) classIdTable = Arrays.copyOf(classIdTable, Math.max(id + 1, NamePool.size()));
+        if (classIdTable[id] != null)
             throw new MatcherError(decl.posn, String.format("Multiple definitions for class %s", decl.name));
-        classIdTable.put(decl.name, new MemberIdTable(decl));
+        classIdTable[id] = new MemberIdTable(decl);
     }
 
     public void addClassMembers(ClassDecl decl) {
         for (FieldDecl fieldDecl : decl.fieldDeclList)
-            addFieldDecl(decl.name, fieldDecl);
+            addFieldDecl(decl, fieldDecl);
         for (MethodDecl methodDecl : decl.methodDeclList) {
-            addMethodDecl(decl.name, methodDecl);
+            addMethodDecl(decl, methodDecl);
         }
     }
 
-    private void addFieldDecl(String className, FieldDecl decl) {
-        System.out.printf("FIELD: %s.%s\n", className, decl.name);
-        HashMap<String, FieldDecl> fieldIdTable = classIdTable.get(className).fieldIdTable;
-        if (fieldIdTable.containsKey(decl.name))
-            throw new MatcherError(decl.posn, String.format("Multiple definitions for field %s.%s", className, decl.name));
-        fieldIdTable.put(decl.name, decl);
+    private void addFieldDecl(ClassDecl classDecl, FieldDecl decl) {
+        System.out.printf("FIELD: %s.%s\n", classDecl.name, decl.name);
+        IntMap<FieldDecl> fieldIdTable = classIdTable[classDecl.nameId()].fieldIdTable;
+        if (fieldIdTable.containsKey(decl.nameId()))
+            throw new MatcherError(decl.posn, String.format("Multiple definitions for field %s.%s", classDecl.name, decl.name));
+        fieldIdTable.put(decl.nameId(), decl);
     }
 
-    private void addMethodDecl(String className, MethodDecl decl) {
-        System.out.printf("METHOD: %s.%s\n", className, decl.name);
-        String baseName = decl.name.substring(0, decl.name.indexOf('('));
-        MemberIdTable memberIdTable = classIdTable.get(className);
-        Map<String, SigGroup> methodIdTable = memberIdTable.methodIdTable;
-        if (!methodIdTable.containsKey(baseName)) {
-            SigGroup sigGroup = new SigGroup(baseName, decl.parent);
-            methodIdTable.put(baseName, sigGroup);
+    private void addMethodDecl(ClassDecl classDecl, MethodDecl decl) {
+        System.out.printf("METHOD: %s.%s\n", classDecl.name, decl.name);
+        // decl.name is the full signature by now, the signature keeps the base name
+        int baseId = NamePool.intern(decl.signature.name);
+        MemberIdTable memberIdTable = classIdTable[classDecl.nameId()];
+        IntMap<SigGroup> methodIdTable = memberIdTable.methodIdTable;
+        if (!methodIdTable.containsKey(baseId)) {
+            SigGroup sigGroup = new SigGroup(NamePool.name(baseId), decl.parent);
+            methodIdTable.put(baseId, sigGroup);
             memberIdTable.sigGroups.add(sigGroup);
         }
-        SigGroup sigGroup = methodIdTable.get(baseName);
+        SigGroup sigGroup = methodIdTable.get(baseId);
         if (sigGroup.sigs.contains(decl.signature))
-            throw new MatcherError(decl.posn, String.format("Multiple definitions for method %s.%s", className, decl.signature));
+            throw new MatcherError(decl.posn, String.format("Multiple definitions for method %s.%s", classDecl.name, decl.signature));
         sigGroup.add(decl.signature);
     }
 
-    public Declaration getScopedDecl(SourcePosition posn, String name) {
-        if (!idTable.containsKey(name))
-            throw new MatcherError(posn, String.format("Undeclared identifier %s", name));
-        DeclScopeHandler handler = idTable.get(name);
+    public Declaration getScopedDecl(long posn, int nameId) {
+        if (nameId >= idTable.length || idTable[nameId] == null)
+            throw new MatcherError(posn, String.format("Undeclared identifier %s", NamePool.name(nameId)));
+        DeclScopeHandler handler = idTable[nameId];
         if (handler.locked)
-            throw new MatcherError(posn, String.format("Cannot reference variable %s within its declaration statement", name));
+            throw new MatcherError(posn, String.format("Cannot reference variable %s within its declaration statement", NamePool.name(nameId)));
         return handler.getLast();
     }
 
+    private MemberIdTable getMemberIdTable(long posn, int classId) {
+        if (classId >= classIdTable.length || classIdTable[classId] == null)
+            throw new MatcherError(posn, String.format("Undeclared class %s", NamePool.name(classId)));
+        return classIdTable[classId];
+    }
+
     // returns type FieldDecl if member is a field decl and type SigGroupDecl if member is a method decl
-    public MemberDecl getClassMember(SourcePosition posn, String className, String memberName) {
-        if (!classIdTable.containsKey(className))
-            throw new MatcherError(posn, String.format("Undeclared class %s", className));
-        MemberIdTable memberIdTable = classIdTable.get(className);
-        if (memberIdTable.fieldIdTable.containsKey(memberName))
-            return memberIdTable.fieldIdTable.get(memberName);
-        if (memberIdTable.methodIdTable.containsKey(memberName))
-            return memberIdTable.methodIdTable.get(memberName);
-        throw new MatcherError(posn, String.format("Undeclared member %s.%s", className, memberName));
+    public MemberDecl getClassMember(long posn, int classId, int memberId) {
+        MemberIdTable memberIdTable = getMemberIdTable(posn, classId);
+        FieldDecl fieldDecl = memberIdTable.fieldIdTable.get(memberId);
+        if (fieldDecl != null)
+            return fieldDecl;
+        SigGroup sigGroup = memberIdTable.methodIdTable.get(memberId);
+        if (sigGroup != null)
+            return sigGroup;
+        throw new MatcherError(posn, String.format("Undeclared member %s.%s", NamePool.name(classId), NamePool.name(memberId)));
     }
 
-    public ClassDecl getClassDecl(SourcePosition posn, String className) {
-        if (!classIdTable.containsKey(className))
-            throw new MatcherError(posn, String.format("Undeclared class %s", className));
-        return classIdTable.get(className).classDecl;
+    public ClassDecl getClassDecl(long posn, int classId) {
+        return getMemberIdTable(posn, classId).classDecl;
     }
 
-    public FieldDecl getFieldDecl(SourcePosition posn, String className, String fieldName) {
-        if (!classIdTable.containsKey(className))
-            throw new MatcherError(posn, String.format("Undeclared class %s", className));
-        MemberIdTable memberIdTable = classIdTable.get(className);
-        if (!memberIdTable.fieldIdTable.containsKey(fieldName))
-            throw new MatcherError(posn, String.format("Undeclared field %s.%s", className, fieldName));
-        return memberIdTable.fieldIdTable.get(fieldName);
+    public FieldDecl getFieldDecl(long posn, int classId, int fieldId) {
+        MemberIdTable memberIdTable = getMemberIdTable(posn, classId);
+        if (!memberIdTable.fieldIdTable.containsKey(fieldId))
+            throw new MatcherError(posn, String.format("Undeclared field %s.%s", NamePool.name(classId), NamePool.name(fieldId)));
+        return memberIdTable.fieldIdTable.get(fieldId);
     }
 
-    public SigGroup getMethodSignatures(SourcePosition posn, String className, String methodName) {
-        if (!classIdTable.containsKey(className))
-            throw new MatcherError(posn, String.format("Undeclared class %s", className));
-        MemberIdTable memberIdTable = classIdTable.get(className);
-        if (!memberIdTable.methodIdTable.containsKey(methodName))
-            throw new MatcherError(posn, String.format("Undeclared method %s.%s", className, methodName));
-        return memberIdTable.methodIdTable.get(methodName);
+    public SigGroup getMethodSignatures(long posn, int classId, int methodId) {
+        MemberIdTable memberIdTable = getMemberIdTable(posn, classId);
+        if (!memberIdTable.methodIdTable.containsKey(methodId))
+            throw new MatcherError(posn, String.format("Undeclared method %s.%s", NamePool.name(classId), NamePool.name(methodId)));
+        return memberIdTable.methodIdTable.get(methodId);
     }
 
-    public List<SigGroup> getClassSigGroups(SourcePosition posn, String className) {
-        if (!classIdTable.containsKey(className))
-            throw new MatcherError(posn, String.format("Undeclared class %s", className));
-        return classIdTable.get(className).sigGroups;
+    public List<SigGroup> getClassSigGroups(long posn, int classId) {
+        return getMemberIdTable(posn, classId).sigGroups;
     }
 
     // lock/unlock var decl methods assume variable already added to scope
     public void lockVarDecl(VarDecl decl) {
-        idTable.get(decl.name).locked = true;
+        idTable[decl.nameId()].locked = true;
     }
 
     public void unlockVarDecl(VarDecl decl) {
-        idTable.get(decl.name).locked = false;
+        idTable[decl.nameId()].locked = false;
     }
 }
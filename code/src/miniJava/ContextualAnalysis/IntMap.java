@@ -0,0 +1,75 @@
+package miniJava.ContextualAnalysis;
+
+// map from name pool ids to values for tables too sparse to index by id directly
+// open addressing with linear probing over parallel key and value arrays
+class IntMap<V> {
+    private int[] keys; // key + 1, 0 if empty
+    private Object[] values;
+    private int size;
+
+    IntMap() {
+        keys = new int[8];
+        values = new Object[8];
+    }
+
+    boolean containsKey(int key) {
+        return keys[find(key)] != 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(int key) {
+        return (V) values[find(key)];
+    }
+
+    void put(int key, V value) {
+        int slot = find(key);
+        values[slot] = value;
+        if (keys[slot] != 0) return;
+        keys[slot] = key + 1;
+        if (++size * 2 > keys.length) grow();
+    }
+
+    void remove(int key) {
+        int mask = keys.length - 1;
+        int slot = find(key);
+        if (keys[slot] == 0) return;
+        // shift later entries of the probe run back so lookups never stop at the hole
+        for (int next = (slot + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int home = mix(keys[next] - 1) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+        }
+        keys[slot] = 0;
+        values[slot] = null;
+        size--;
+    }
+
+    // slot holding key, or the empty slot where it would go
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key + 1) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new Object[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; ++i) {
+            if (oldKeys[i] == 0) continue;
+            int slot = find(oldKeys[i] - 1);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private static int mix(int key) {
+        int hash = key * 0x9e3779b9;
+        return hash ^ (hash >>> 16);
+    }
+}
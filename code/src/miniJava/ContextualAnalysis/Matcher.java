@@ -3,11 +3,13 @@ package miniJava.ContextualAnalysis;
 import miniJava.AbstractSyntaxTrees.*;
 import miniJava.AbstractSyntaxTrees.Package;
 import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.NamePool;
 import miniJava.SyntacticAnalyzer.SourcePosition;
 import miniJava.SyntacticAnalyzer.Token;
 import miniJava.SyntacticAnalyzer.TokenType;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 
 // references return Declaration
 // identifiers return Declaration
@@ -15,31 +17,52 @@ import java.util.*;
 // types return TypeDenoter
 // return statements return TypeDenoter
 public class Matcher implements Visitor<IdTable, Object> {
-    static final TypeDenoter INT_TYPE = new BaseType(TypeKind.INT, null);
-    static final TypeDenoter LONG_TYPE = new BaseType(TypeKind.LONG, null);
-    static final TypeDenoter FLOAT_TYPE = new BaseType(TypeKind.FLOAT, null);
-    static final TypeDenoter DOUBLE_TYPE = new BaseType(TypeKind.DOUBLE, null);
-    static final TypeDenoter CHAR_TYPE = new BaseType(TypeKind.CHAR, null);
-    static final TypeDenoter BOOLEAN_TYPE = new BaseType(TypeKind.BOOLEAN, null);
-    static final TypeDenoter UNSUPPORTED_TYPE = new BaseType(TypeKind.UNSUPPORTED, null);
-    static final TypeDenoter NULL_TYPE = new ClassType(new Identifier(new Token(TokenType.NullLiteral, "null", -1, -1)), null);
-    static final TypeDenoter VOID_TYPE = new ClassType(new Identifier(new Token(TokenType.VoidType, "void", -1, -1)), null);
-    static final SourcePosition PREDEF_POSN = new SourcePosition(-1, -1);
-    static final FieldDecl ARR_LENGTH_DECL = new FieldDecl(false, false, INT_TYPE, "length", new SourcePosition(-1, -1));
+    static final TypeDenoter INT_TYPE = new BaseType(TypeKind.INT, SourcePosition.NONE);
+    static final TypeDenoter LONG_TYPE = new BaseType(TypeKind.LONG, SourcePosition.NONE);
+    static final TypeDenoter FLOAT_TYPE = new BaseType(TypeKind.FLOAT, SourcePosition.NONE);
+    static final TypeDenoter DOUBLE_TYPE = new BaseType(TypeKind.DOUBLE, SourcePosition.NONE);
+    static final TypeDenoter CHAR_TYPE = new BaseType(TypeKind.CHAR, SourcePosition.NONE);
+    static final TypeDenoter BOOLEAN_TYPE = new BaseType(TypeKind.BOOLEAN, SourcePosition.NONE);
+    static final TypeDenoter UNSUPPORTED_TYPE = new BaseType(TypeKind.UNSUPPORTED, SourcePosition.NONE);
+    static final TypeDenoter NULL_TYPE = new ClassType(new Identifier(new Token(TokenType.NullLiteral, "null", -1, -1)), SourcePosition.NONE);
+    static final TypeDenoter VOID_TYPE = new ClassType(new Identifier(new Token(TokenType.VoidType, "void", -1, -1)), SourcePosition.NONE);
+    static final long PREDEF_POSN = SourcePosition.pack(-1, -1);
+    static final int NO_CLASS_ID = -1;
+    static final int ARRAY_CLASS_ID = NamePool.intern("<ARRAY>");
+    static final int LENGTH_ID = NamePool.intern("length");
+    static final FieldDecl ARR_LENGTH_DECL = new FieldDecl(false, false, INT_TYPE, "length", SourcePosition.pack(-1, -1));
     static {
         ARR_LENGTH_DECL.specialTag = "array.length";
-        ARR_LENGTH_DECL.memOffset = 0;
     }
     public ClassDecl activeClass;
     public ClassDecl activeClassParent;
     public MethodDecl activeMethod;
     public final ErrorReporter errors;
     boolean staticActive;
+    private boolean recovering;
+    private Package prog;
+    private NodeTable<TypeDenoter> resultTypes; // type of each expression, read by code generation
+    private NodeTable<Declaration> refDecls; // declaration of each reference, read by code generation
+    private NodeTable<ClassDecl> typeDecls; // class each new object, cast and instanceof expression names
+    private ClassHierarchy hierarchy; // parents and order of classes, read by code generation
+    private BitSet staticSigGroupRefs; // sig groups whose last reference was from a static context
+    private NodeTable<Map<Resolution.ArgTypes, Resolution>> resolutions; // overload resolutions of each sig group
+    private IdTable headerTable; // ids added by matchHeaders, null if it stopped on an error
+    private BiConsumer<ClassDecl, MethodDecl> methodMatched; // set by matchMethods
+    private boolean bodyFailed; // matchMethods read a body with a syntax error
     public Matcher(ErrorReporter errors) {
         this.errors = errors;
     }
 
-    void checkTypeMatch(String context, SourcePosition posn, TypeDenoter actual, TypeDenoter... expected) {
+    // report every independent error instead of stopping at the first one
+    // an error abandons the statement or member it is in and matching goes on with the next one, an undeclared
+    // parent class is taken to be Object, and errors in the class structure (duplicate classes or members,
+    // cyclical inheritance) still stop matching
+    public void enableRecovery() {
+        recovering = true;
+    }
+
+    void checkTypeMatch(String context, long posn, TypeDenoter actual, TypeDenoter... expected) {
         assert(expected.length > 0);
         if (TypeChecker.typeMatches(actual, expected)) return;
         StringBuilder expStr = new StringBuilder();
@@ -51,18 +74,18 @@ public class Matcher implements Visitor<IdTable, Object> {
         errors.reportError(posn, String.format("Type mismatch in %s: expected %s, but got %s", context, expStr, TypeChecker.typeStr(actual)));
     }
 
-    // takes in decl, returns name of class
-    // if decl is class returns its name
-    // if decl is object returns its class name
-    // if decl is array return <ARRAY>
-    // otherwise return null
-    String getClassName(Declaration decl) {
-        if (decl.type == null) return decl.name;
+    // takes in decl, returns name id of class
+    // if decl is class returns its name id
+    // if decl is object returns its class name id
+    // if decl is array return ARRAY_CLASS_ID
+    // otherwise return NO_CLASS_ID
+    int getClassNameId(Declaration decl) {
+        if (decl.type == null) return decl.nameId();
         if (decl.type.typeKind == TypeKind.CLASS)
-            return ((ClassType)decl.type).className.spelling;
+            return ((ClassType)decl.type).className.id;
         if (decl.type.typeKind == TypeKind.ARRAY)
-            return "<ARRAY>";
-        return null;
+            return ARRAY_CLASS_ID;
+        return NO_CLASS_ID;
     }
 
     private ClassDecl objectClassDecl;
@@ -80,7 +103,7 @@ public class Matcher implements Visitor<IdTable, Object> {
         // System.out.println
         {
             ClassDecl SystemDecl = new ClassDecl("System", new FieldDeclList(), new MethodDeclList(), PREDEF_POSN);
-            SystemDecl.fieldDeclList.add(new FieldDecl(false, true, new ClassType(new Identifier(new Token(TokenType.Identifier, "_PrintStream", PREDEF_POSN.line, PREDEF_POSN.offset)), PREDEF_POSN), "out", PREDEF_POSN));
+            SystemDecl.fieldDeclList.add(new FieldDecl(false, true, new ClassType(new Identifier(new Token(TokenType.Identifier, "_PrintStream", SourcePosition.line(PREDEF_POSN), SourcePosition.offset(PREDEF_POSN))), PREDEF_POSN), "out", PREDEF_POSN));
             ClassDecl PrintStreamDecl = new ClassDecl("_PrintStream", new FieldDeclList(), new MethodDeclList(), PREDEF_POSN);
             MethodDecl printlnMethod = new MethodDecl(new FieldDecl(false, false, new BaseType(TypeKind.VOID, PREDEF_POSN), "println", PREDEF_POSN), new ParameterDeclList(), new StatementList(), PREDEF_POSN);
             printlnMethod.specialTag = "System.out.println";
@@ -94,6 +117,26 @@ public class Matcher implements Visitor<IdTable, Object> {
         }
     }
 
+    // expression types found by the last match, null for expressions it did not reach
+    public NodeTable<TypeDenoter> getResultTypes() {
+        return resultTypes;
+    }
+
+    // declarations references resolve to in the last match, null for references it did not reach
+    public NodeTable<Declaration> getRefDecls() {
+        return refDecls;
+    }
+
+    // classes named by new object, cast to class and instanceof expressions in the last match
+    public NodeTable<ClassDecl> getTypeDecls() {
+        return typeDecls;
+    }
+
+    // class hierarchy found by the last match
+    public ClassHierarchy getHierarchy() {
+        return hierarchy;
+    }
+
     public void match(AST ast) {
         activeClass = null;
         activeMethod = null;
@@ -102,14 +145,100 @@ public class Matcher implements Visitor<IdTable, Object> {
         try {
             ast.visit(this, idTable);
         } catch (MatcherError idErr) {
-            errors.clear();
+            matchFailed(idErr);
+        }
+    }
+
+    // reports the error matching stopped at, which is thrown on unless recovering
+    private void matchFailed(MatcherError idErr) {
+        if (recovering) {
             errors.reportError(idErr.posn, idErr.getMessage());
-            throw idErr;
+            return;
+        }
+        errors.clear();
+        errors.reportError(idErr.posn, idErr.getMessage());
+        throw idErr;
+    }
+
+    // one pass compiles match in two steps, so each method can be compiled as soon as it is matched
+    // matchHeaders does all the work that needs only class, field and method headers (everything match does
+    // before visiting class decls), then matchMethods visits the classes, handing each method to methodMatched
+    // once it is matched. an error ending matching is handled as by match, and a syntax error found reading a
+    // lazily parsed body ends matching before that body is matched. when recovering the bodies left are still read,
+    // so all of their syntax errors are reported too
+    public void matchHeaders(Package prog) {
+        activeClass = null;
+        activeMethod = null;
+        staticActive = false;
+        IdTable idTable = new IdTable();
+        try {
+            visitHeaders(prog, idTable);
+            headerTable = idTable;
+        } catch (MatcherError idErr) {
+            matchFailed(idErr);
+        }
+    }
+
+    public void matchMethods(Package prog, BiConsumer<ClassDecl, MethodDecl> methodMatched) {
+        if (headerTable == null) return;
+        this.methodMatched = methodMatched;
+        bodyFailed = false;
+        try {
+            for (ClassDecl classDecl : prog.classDeclList) {
+                if (!bodyFailed) classDecl.visit(this, headerTable);
+                if (bodyFailed && !recovering) break;
+                if (bodyFailed) readBodies(classDecl);
+            }
+        } catch (MatcherError idErr) {
+            matchFailed(idErr);
+        } finally {
+            this.methodMatched = null;
+            headerTable = null;
+        }
+    }
+
+    // visits node, in recovery mode reporting an error from it and returning null instead of throwing
+    private Object visitRecovering(AST node, IdTable arg) {
+        if (!recovering) return node.visit(this, arg);
+        try {
+            return node.visit(this, arg);
+        } catch (MatcherError err) {
+            errors.reportError(err.posn, err.getMessage());
+            return null;
+        }
+    }
+
+    private void addScopedRecovering(Declaration decl, IdTable arg) {
+        if (!recovering) {
+            arg.addScopedDecl(decl);
+            return;
+        }
+        try {
+            arg.addScopedDecl(decl);
+        } catch (MatcherError err) {
+            errors.reportError(err.posn, err.getMessage());
         }
     }
 
     @Override
     public Object visitPackage(Package prog, IdTable arg) {
+        visitHeaders(prog, arg);
+
+        // visit class decls
+        for (ClassDecl classDecl : prog.classDeclList)
+            classDecl.visit(this, arg);
+        return null;
+    }
+
+    private void visitHeaders(Package prog, IdTable arg) {
+        this.prog = prog;
+        resultTypes = new NodeTable<>(prog);
+        refDecls = new NodeTable<>(prog);
+        typeDecls = new NodeTable<>(prog);
+        hierarchy = new ClassHierarchy(prog);
+        staticSigGroupRefs = new BitSet();
+        resolutions = new NodeTable<>(prog);
+
         // add predefined objects
         addPredefined(prog);
 
@@ -141,56 +270,66 @@ public class Matcher implements Visitor<IdTable, Object> {
         }
 
         // determine relationships of classes
+        NodeTable<List<ClassDecl>> subclasses = new NodeTable<>(prog);
         for (ClassDecl classDecl : prog.classDeclList) {
             if (classDecl == objectClassDecl) continue;
-            classDecl.parentDecl = arg.getClassDecl(classDecl.parent.posn, classDecl.parent.spelling);
-            classDecl.parentDecl.subclasses.add(classDecl);
-            System.out.printf("%s extends %s\n", classDecl.name, classDecl.parentDecl.name);
+            ClassDecl parentDecl;
+            try {
+                parentDecl = arg.getClassDecl(classDecl.parent.posn, classDecl.parent.id);
+            } catch (MatcherError err) {
+                if (!recovering) throw err;
+                errors.reportError(err.posn, err.getMessage());
+                parentDecl = objectClassDecl;
+            }
+            hierarchy.setParent(classDecl, parentDecl);
+            if (subclasses.get(parentDecl) == null) subclasses.put(parentDecl, new ArrayList<>());
+            subclasses.get(parentDecl).add(classDecl);
+            System.out.printf("%s extends %s\n", classDecl.name, parentDecl.name);
         }
-        objectClassDecl.parentDecl = objectClassDecl;
+        hierarchy.setParent(objectClassDecl, objectClassDecl);
 
         // detect cycles (not traversable from Object)
         int next = 0;
-        objectClassDecl.hierarchyDepth = 0;
-        prog.topoOrder.add(objectClassDecl);
-        while (next < prog.topoOrder.size()) {
-            ClassDecl classDecl = prog.topoOrder.get(next++);
-            for (ClassDecl subclassDecl : classDecl.subclasses) {
-                subclassDecl.hierarchyDepth = classDecl.hierarchyDepth + 1;
-                prog.topoOrder.add(subclassDecl);
+        hierarchy.addInOrder(objectClassDecl, 0);
+        List<ClassDecl> topoOrder = hierarchy.topoOrder();
+        while (next < topoOrder.size()) {
+            ClassDecl classDecl = topoOrder.get(next++);
+            if (subclasses.get(classDecl) == null) continue;
+            for (ClassDecl subclassDecl : subclasses.get(classDecl)) {
+                hierarchy.addInOrder(subclassDecl, hierarchy.depth(classDecl) + 1);
             }
         }
         for (ClassDecl classDecl : prog.classDeclList) {
-            if (classDecl.hierarchyDepth != -1) continue;
+            if (hierarchy.depth(classDecl) != -1) continue;
             List<String> cycle = new ArrayList<>();
             ClassDecl curr = classDecl;
             cycle.add(classDecl.name);
-            while (curr.parentDecl != classDecl) {
-                cycle.add(curr.parentDecl.name);
-                curr = classDecl.parentDecl;
+            while (hierarchy.parent(curr) != classDecl) {
+                cycle.add(hierarchy.parent(curr).name);
+                curr = hierarchy.parent(classDecl);
             }
             cycle.add(classDecl.name);
             throw new MatcherError(classDecl.posn, String.format("Cyclical inheritance: %s", String.join(" extends ", cycle)));
         }
 
         // update classDecl.fieldDeclList and classDecl.methodDeclList to inherit parent fields
-        for (ClassDecl classDecl : prog.topoOrder) {
+        for (ClassDecl classDecl : topoOrder) {
             if (classDecl == objectClassDecl) continue;
-            ClassDecl parentDecl = classDecl.parentDecl;
+            ClassDecl parentDecl = hierarchy.parent(classDecl);
 
             // inherit and override methods
             MethodDeclList updatedMethods = new MethodDeclList();
-            Map<String, MethodDecl> nonOverriderMethods = new HashMap<>();
+            IntMap<MethodDecl> nonOverriderMethods = new IntMap<>();
             for (int i = 0; i < classDecl.methodDeclList.size(); ++i) {
                 MethodDecl methodDecl = classDecl.methodDeclList.get(i);
-                nonOverriderMethods.put(methodDecl.name, methodDecl);
+                nonOverriderMethods.put(methodDecl.nameId(), methodDecl);
             }
             for (int i = 0; i < parentDecl.methodDeclList.size(); ++i) {
                 MethodDecl inherited = parentDecl.methodDeclList.get(i);
-                if (nonOverriderMethods.containsKey(inherited.name)) {
+                if (nonOverriderMethods.containsKey(inherited.nameId())) {
                     // override parent method
-                    MethodDecl overrider = nonOverriderMethods.get(inherited.name);
-                    nonOverriderMethods.remove(inherited.name);
+                    MethodDecl overrider = nonOverriderMethods.get(inherited.nameId());
+                    nonOverriderMethods.remove(inherited.nameId());
                     updatedMethods.add(overrider);
                 } else {
                     // inherit parent method
@@ -199,7 +338,7 @@ public class Matcher implements Visitor<IdTable, Object> {
             }
             for (int i = 0; i < classDecl.methodDeclList.size(); ++i) {
                 MethodDecl method = classDecl.methodDeclList.get(i);
-                if (!nonOverriderMethods.containsKey(method.name))
+                if (!nonOverriderMethods.containsKey(method.nameId()))
                     continue;
 
                 // add method that doesn't override inherited method
@@ -226,11 +365,6 @@ public class Matcher implements Visitor<IdTable, Object> {
         for (ClassDecl classDecl : prog.classDeclList) {
             arg.addClassMembers(classDecl);
         }
-
-        // visit class decls
-        for (ClassDecl classDecl : prog.classDeclList)
-            classDecl.visit(this, arg);
-        return null;
     }
 
     @Override
@@ -242,23 +376,25 @@ public class Matcher implements Visitor<IdTable, Object> {
         for (FieldDecl fieldDecl : cd.fieldDeclList) {
             if (fieldDecl.isPrivate && fieldDecl.parent != cd)
                 continue; // skip private parent fields
-            arg.addScopedDecl(fieldDecl); // field name --> method decl
+            addScopedRecovering(fieldDecl, arg); // field name --> method decl
         }
         for (MethodDecl methodDecl : cd.methodDeclList) {
             if (methodDecl.isPrivate && methodDecl.parent != cd)
                 continue; // skip private parent methods
-            arg.addScopedDecl(methodDecl); // method signature string --> method decl
+            addScopedRecovering(methodDecl, arg); // method signature string --> method decl
         }
-        for (SigGroup sigGroup : arg.getClassSigGroups(cd.posn, cd.name)) {
-            arg.addScopedDecl(sigGroup); // method name --> signature group
+        for (SigGroup sigGroup : arg.getClassSigGroups(cd.posn, cd.nameId())) {
+            addScopedRecovering(sigGroup, arg); // method name --> signature group
         }
 
         // visit
         for (FieldDecl fieldDecl : cd.fieldDeclList) {
-            fieldDecl.visit(this, arg);
+            visitRecovering(fieldDecl, arg);
         }
         for (MethodDecl methodDecl : cd.methodDeclList) {
-            methodDecl.visit(this, arg);
+            if (!readBody(methodDecl) && methodMatched != null) break;
+            visitRecovering(methodDecl, arg);
+            if (methodMatched != null) methodMatched.accept(cd, methodDecl);
         }
 
         arg.closeScope();
@@ -266,6 +402,22 @@ public class Matcher implements Visitor<IdTable, Object> {
         return null;
     }
 
+    // reads the body of a method about to be matched if it is not read yet (parsed lazily, or left in a flat AST view)
+    // and numbers its nodes, false if that reported a syntax error matching stops at
+    private boolean readBody(MethodDecl md) {
+        if (md.statementList.isParsed()) return true;
+        int reported = errors.errorCount();
+        md.statementList.size();
+        prog.numberNodes(md);
+        if (errors.errorCount() == reported) return true;
+        bodyFailed = true;
+        return false;
+    }
+
+    private void readBodies(ClassDecl cd) {
+        for (MethodDecl methodDecl : cd.methodDeclList) readBody(methodDecl);
+    }
+
     @Override
     public Object visitFieldDecl(FieldDecl fd, IdTable arg) {
         fd.type.visit(this, arg);
@@ -279,10 +431,12 @@ public class Matcher implements Visitor<IdTable, Object> {
         staticActive = md.isStatic;
         arg.openScope();
         for (ParameterDecl pd : md.parameterDeclList)
-            pd.visit(this, arg);
+            visitRecovering(pd, arg);
         TypeDenoter lastRetType = null;
         for (Statement stmt : md.statementList) {
-            lastRetType = (TypeDenoter)stmt.visit(this, arg);
+            lastRetType = (TypeDenoter)visitRecovering(stmt, arg);
+            // a return statement with an error still returns
+            if (lastRetType == null && stmt instanceof ReturnStmt) lastRetType = md.type;
         }
         if (md.type.typeKind != TypeKind.VOID && lastRetType == null)
             errors.reportError(md.posn, String.format("Method %s.%s has no last return statement", activeClass.name, md.name));
@@ -311,7 +465,7 @@ public class Matcher implements Visitor<IdTable, Object> {
 
     @Override
     public Object visitClassType(ClassType type, IdTable arg) {
-        ClassDecl decl = arg.getClassDecl(type.posn, type.className.spelling);
+        ClassDecl decl = arg.getClassDecl(type.posn, type.className.id);
         return decl.unsupported ? UNSUPPORTED_TYPE : type;
     }
 
@@ -325,7 +479,7 @@ public class Matcher implements Visitor<IdTable, Object> {
     public Object visitBlockStmt(BlockStmt stmt, IdTable arg) {
         arg.openScope();
         for (Statement nestedStmt : stmt.sl)
-            nestedStmt.visit(this, arg);
+            visitRecovering(nestedStmt, arg);
         arg.closeScope();
         return null;
     }
@@ -334,11 +488,15 @@ public class Matcher implements Visitor<IdTable, Object> {
     public Object visitVardeclStmt(VarDeclStmt stmt, IdTable arg) {
         TypeDenoter declType = (TypeDenoter)stmt.varDecl.visit(this, arg);
         arg.lockVarDecl(stmt.varDecl);
-        TypeDenoter exprType = (TypeDenoter)stmt.initExp.visit(this, arg);
-        arg.unlockVarDecl(stmt.varDecl);
-        if (!TypeChecker.typeMatches(exprType, declType) && TypeChecker.validCast(arg, exprType, declType, false)) {
+        TypeDenoter exprType;
+        try {
+            exprType = (TypeDenoter)stmt.initExp.visit(this, arg);
+        } finally {
+            arg.unlockVarDecl(stmt.varDecl);
+        }
+        if (!TypeChecker.typeMatches(exprType, declType) && TypeChecker.validCast(arg, hierarchy, exprType, declType, false)) {
             stmt.initExp = new CastExpr(declType, stmt.initExp, stmt.posn);
-            stmt.initExp.resultType = declType;
+            resultTypes.put(stmt.initExp, declType);
             exprType = declType;
             setCastTypeDecl(stmt.initExp, arg);
         }
@@ -346,14 +504,14 @@ public class Matcher implements Visitor<IdTable, Object> {
         return null;
     }
 
-    void checkIsTyped(SourcePosition posn, Declaration decl) {
+    void checkIsTyped(long posn, Declaration decl) {
         if (decl instanceof ClassDecl)
             throw new MatcherError(posn, String.format("Class %s has no type", decl.name));
         if (decl instanceof MethodDecl)
             throw new MatcherError(posn, String.format("Method %s has no type", decl.name));
     }
 
-    void checkIsCallable(SourcePosition posn, Declaration decl) {
+    void checkIsCallable(long posn, Declaration decl) {
         if (!(decl instanceof SigGroup))
             throw new MatcherError(posn, String.format("%s is not callable", decl.name));
     }
@@ -363,9 +521,9 @@ public class Matcher implements Visitor<IdTable, Object> {
         TypeDenoter exprType = (TypeDenoter)stmt.val.visit(this, arg);
         Declaration refDecl = (Declaration)stmt.ref.visit(this, arg);
         checkIsTyped(refDecl.posn, refDecl);
-        if (!TypeChecker.typeMatches(exprType, refDecl.type) && TypeChecker.validCast(arg, exprType, refDecl.type, false)) {
+        if (!TypeChecker.typeMatches(exprType, refDecl.type) && TypeChecker.validCast(arg, hierarchy, exprType, refDecl.type, false)) {
             stmt.val = new CastExpr(refDecl.type, stmt.val, stmt.posn);
-            stmt.val.resultType = refDecl.type;
+            resultTypes.put(stmt.val, refDecl.type);
             exprType = refDecl.type;
             setCastTypeDecl(stmt.val, arg);
         }
@@ -387,9 +545,9 @@ public class Matcher implements Visitor<IdTable, Object> {
             return null;
         }
         TypeDenoter eltType = ((ArrayType) refDecl.type).eltType;
-        if (!TypeChecker.typeMatches(exprType, eltType) && TypeChecker.validCast(arg, exprType, eltType, false)) {
+        if (!TypeChecker.typeMatches(exprType, eltType) && TypeChecker.validCast(arg, hierarchy, exprType, eltType, false)) {
             stmt.exp = new CastExpr(eltType, stmt.exp, stmt.posn);
-            stmt.exp.resultType = eltType;
+            resultTypes.put(stmt.exp, eltType);
             exprType = eltType;
             setCastTypeDecl(stmt.exp, arg);
         }
@@ -410,9 +568,9 @@ public class Matcher implements Visitor<IdTable, Object> {
     public Object visitReturnStmt(ReturnStmt stmt, IdTable arg) {
         TypeDenoter retType = stmt.returnExpr == null ? VOID_TYPE : (TypeDenoter)stmt.returnExpr.visit(this, arg);
         TypeDenoter mRetType = activeMethod.type;
-        if (!TypeChecker.typeMatches(retType, mRetType) && TypeChecker.validCast(arg, retType, mRetType, false)) {
+        if (!TypeChecker.typeMatches(retType, mRetType) && TypeChecker.validCast(arg, hierarchy, retType, mRetType, false)) {
             stmt.returnExpr = new CastExpr(mRetType, stmt.returnExpr, stmt.returnExpr.posn);
-            stmt.returnExpr.resultType = mRetType;
+            resultTypes.put(stmt.returnExpr, mRetType);
             retType = mRetType;
             setCastTypeDecl(stmt.returnExpr, arg);
         }
@@ -450,15 +608,18 @@ public class Matcher implements Visitor<IdTable, Object> {
     @Override
     public Object visitForStmt(ForStmt stmt, IdTable arg) {
         arg.openScope();
-        if (stmt.init != null) stmt.init.visit(this, arg);
-        if (stmt.cond != null) {
-            TypeDenoter condType = (TypeDenoter)stmt.cond.visit(this, arg);
-            checkTypeMatch("for statement condition", stmt.posn, condType, BOOLEAN_TYPE);
+        try {
+            if (stmt.init != null) stmt.init.visit(this, arg);
+            if (stmt.cond != null) {
+                TypeDenoter condType = (TypeDenoter)stmt.cond.visit(this, arg);
+                checkTypeMatch("for statement condition", stmt.posn, condType, BOOLEAN_TYPE);
+            }
+            if (stmt.incr != null) stmt.incr.visit(this, arg);
+            checkIsolatedVarDeclStmt(stmt.body);
+            stmt.body.visit(this, arg);
+        } finally {
+            arg.closeScope();
         }
-        if (stmt.incr != null) stmt.incr.visit(this, arg);
-        checkIsolatedVarDeclStmt(stmt.body);
-        stmt.body.visit(this, arg);
-        arg.closeScope();
         return null;
     }
 
@@ -469,13 +630,13 @@ public class Matcher implements Visitor<IdTable, Object> {
         switch (expr.operator.kind) {
             case Minus:
                 checkTypeMatch(ctmContext, expr.posn, operandType, CHAR_TYPE, INT_TYPE, LONG_TYPE, FLOAT_TYPE, DOUBLE_TYPE, BOOLEAN_TYPE);
-                return expr.resultType = operandType;
+                return resultTypes.put(expr, operandType);
             case LogNot:
                 checkTypeMatch(ctmContext, expr.posn, operandType, BOOLEAN_TYPE);
-                return expr.resultType = BOOLEAN_TYPE;
+                return resultTypes.put(expr, BOOLEAN_TYPE);
             default:
                 checkTypeMatch(ctmContext, expr.posn, operandType, UNSUPPORTED_TYPE);
-                return expr.resultType = UNSUPPORTED_TYPE;
+                return resultTypes.put(expr, UNSUPPORTED_TYPE);
         }
     }
 
@@ -484,14 +645,14 @@ public class Matcher implements Visitor<IdTable, Object> {
         TypeDenoter leftType = (TypeDenoter)expr.left.visit(this, arg);
         TypeDenoter rightType = (TypeDenoter)expr.right.visit(this, arg);
         if (!TypeChecker.typeMatches(leftType, rightType)) {
-            if (TypeChecker.validCast(arg, leftType, rightType, false)) {
+            if (TypeChecker.validCast(arg, hierarchy, leftType, rightType, false)) {
                 expr.left = new CastExpr(rightType, expr.left, expr.posn);
-                expr.left.resultType = rightType;
+                resultTypes.put(expr.left, rightType);
                 leftType = rightType;
                 setCastTypeDecl(expr.left, arg);
-            } else if (TypeChecker.validCast(arg, rightType, leftType, false)) {
+            } else if (TypeChecker.validCast(arg, hierarchy, rightType, leftType, false)) {
                 expr.right = new CastExpr(leftType, expr.right, expr.posn);
-                expr.right.resultType = leftType;
+                resultTypes.put(expr.right, leftType);
                 rightType = leftType;
                 setCastTypeDecl(expr.right, arg);
             }
@@ -503,22 +664,22 @@ public class Matcher implements Visitor<IdTable, Object> {
             case LogAnd: case LogOr:
                 checkTypeMatch(ctmLeftContext, expr.posn, leftType, BOOLEAN_TYPE);
                 checkTypeMatch(ctmRightContext, expr.posn, rightType, BOOLEAN_TYPE);
-                return expr.resultType = BOOLEAN_TYPE;
+                return resultTypes.put(expr, BOOLEAN_TYPE);
             case RelLT: case RelGT: case RelLEq: case RelGEq:
                 checkTypeMatch(ctmLeftContext, expr.posn, leftType, INT_TYPE, FLOAT_TYPE, LONG_TYPE, DOUBLE_TYPE, CHAR_TYPE);
                 checkTypeMatch(ctmRightContext, expr.posn, rightType, leftType);
-                return expr.resultType = BOOLEAN_TYPE;
+                return resultTypes.put(expr, BOOLEAN_TYPE);
             case Add: case Minus: case Multiply: case Divide:
                 checkTypeMatch(ctmLeftContext, expr.posn, leftType, INT_TYPE, FLOAT_TYPE, LONG_TYPE, DOUBLE_TYPE, CHAR_TYPE);
                 checkTypeMatch(ctmRightContext, expr.posn, rightType, leftType);
-                return expr.resultType = leftType;
+                return resultTypes.put(expr, leftType);
             case RelEq: case RelNEq:
                 checkTypeMatch(ctmRightContext, expr.posn, rightType, leftType);
-                return expr.resultType = BOOLEAN_TYPE;
+                return resultTypes.put(expr, BOOLEAN_TYPE);
             default:
                 checkTypeMatch(ctmLeftContext, expr.posn, leftType, UNSUPPORTED_TYPE);
                 checkTypeMatch(ctmRightContext, expr.posn, rightType, UNSUPPORTED_TYPE);
-                return expr.resultType = UNSUPPORTED_TYPE;
+                return resultTypes.put(expr, UNSUPPORTED_TYPE);
         }
     }
 
@@ -526,7 +687,7 @@ public class Matcher implements Visitor<IdTable, Object> {
     public Object visitRefExpr(RefExpr expr, IdTable arg) {
         Declaration decl = (Declaration)expr.ref.visit(this, arg);
         checkIsTyped(expr.ref.posn, decl);
-        return expr.resultType = decl.type;
+        return resultTypes.put(expr, decl.type);
     }
 
     @Override
@@ -538,19 +699,66 @@ public class Matcher implements Visitor<IdTable, Object> {
         if (refDecl.type == null || refDecl.type.typeKind != TypeKind.ARRAY) {
             throw new MatcherError(expr.posn, String.format("%s is not an array", TypeChecker.typeStr(refDecl.type)));
         }
-        return expr.resultType = ((ArrayType) refDecl.type).eltType;
+        return resultTypes.put(expr, ((ArrayType) refDecl.type).eltType);
     }
 
-    private TypeDenoter visitCallArgs(Reference methodRef, ExprList argList, SigGroup sigGroup, IdTable arg, SourcePosition posn) {
-        // determine call signature based on arg types and sig group name
-        Signature callSig = new Signature(null);
-        callSig.name = sigGroup.name;
+    private TypeDenoter visitCallArgs(Reference methodRef, ExprList argList, SigGroup sigGroup, IdTable arg, long posn) {
+        // determine call argument types
+        List<TypeDenoter> argTypes = new ArrayList<>(argList.size());
+        int[] argTypeIds = new int[argList.size()];
         for (int i = 0; i < argList.size(); i++) {
             Expression callArg = argList.get(i);
             TypeDenoter argType = (TypeDenoter)callArg.visit(this, arg);
-            callSig.argTypes.add(argType);
+            argTypes.add(argType);
+            argTypeIds[i] = TypeTable.id(argType);
         }
 
+        // resolve the call, or reuse the resolution of an earlier call to the sig group with the same argument types
+        Map<Resolution.ArgTypes, Resolution> groupResolutions = resolutions.get(sigGroup);
+        if (groupResolutions == null) groupResolutions = resolutions.put(sigGroup, new HashMap<>());
+        Resolution.ArgTypes key = new Resolution.ArgTypes(argTypeIds);
+        Resolution resolution = groupResolutions.get(key);
+        if (resolution == null) {
+            resolution = resolveCall(sigGroup, argTypes, arg, posn);
+            groupResolutions.put(key, resolution);
+        }
+        Signature methodSig = resolution.sig;
+
+        // do static check
+        if (staticSigGroupRefs.get(prog.nodeId(sigGroup)) && !methodSig.decl.isStatic) {
+            throw new MatcherError(posn, String.format("Cannot access private method %s.%s from static context", methodSig.decl.parent.name, methodSig));
+        }
+        // do private check
+        boolean allowPrivate = activeClass == sigGroup.parent;
+        if (!allowPrivate && methodSig.decl.isPrivate) {
+            throw new MatcherError(posn, String.format("Cannot access private method %s.%s from external context", methodSig.decl.parent.name, methodSig));
+        }
+
+        // add implicit type casts
+        for (int i = 0; resolution.casts != null && i < argList.size(); i++) {
+            if (!resolution.casts[i]) continue;
+            ParameterDecl pd = methodSig.decl.parameterDeclList.get(i);
+            Expression argExpr = argList.get(i);
+            argList.set(i, new CastExpr(pd.type, argExpr, argExpr.posn));
+            argExpr = argList.get(i);
+            resultTypes.put(argExpr, pd.type);
+            setCastTypeDecl(argExpr, arg);
+        }
+
+        // reassign decl of reference to match method decl
+        refDecls.put(methodRef, methodSig.decl);
+
+        // return ret type of method
+        return methodSig.decl.type;
+    }
+
+    // picks the signature of sigGroup a call with the given argument types calls
+    private Resolution resolveCall(SigGroup sigGroup, List<TypeDenoter> argTypes, IdTable arg, long posn) {
+        // determine call signature based on arg types and sig group name
+        Signature callSig = new Signature(null);
+        callSig.name = sigGroup.name;
+        callSig.argTypes.addAll(argTypes);
+
         // derive matching sig from sig group based on call signature
         Signature methodSig = null;
 
@@ -563,7 +771,7 @@ public class Matcher implements Visitor<IdTable, Object> {
             if (callSig.equals(sig)) {
                 methodSig = sig;
                 break;
-            } else if (TypeChecker.validCast(arg, callSig, sig))
+            } else if (TypeChecker.validCast(arg, hierarchy, callSig, sig))
                 castSigs.add(sig);
         }
         if (methodSig == null) {
@@ -589,34 +797,14 @@ public class Matcher implements Visitor<IdTable, Object> {
             methodSig = castSigs.get(0);
         }
 
-        // do static check
-        if (sigGroup.lastRefStatic && !methodSig.decl.isStatic) {
-            throw new MatcherError(posn, String.format("Cannot access private method %s.%s from static context", methodSig.decl.parent.name, methodSig));
-        }
-        // do private check
-        boolean allowPrivate = activeClass == sigGroup.parent;
-        if (!allowPrivate && methodSig.decl.isPrivate) {
-            throw new MatcherError(posn, String.format("Cannot access private method %s.%s from external context", methodSig.decl.parent.name, methodSig));
-        }
-
-        // add implicit type casts
-        for (int i = 0; i < argList.size(); i++) {
-            ParameterDecl pd = methodSig.decl.parameterDeclList.get(i);
-            TypeDenoter argType = callSig.argTypes.get(i);
-            Expression argExpr = argList.get(i);
-            if (!TypeChecker.typeMatches(argType, pd.type)) {
-                argList.set(i, new CastExpr(pd.type, argExpr, argExpr.posn));
-                argExpr = argList.get(i);
-                argExpr.resultType = pd.type;
-                setCastTypeDecl(argExpr, arg);
-            }
+        // arguments to cast implicitly
+        boolean[] casts = null;
+        for (int i = 0; i < argTypes.size(); i++) {
+            if (TypeChecker.typeMatches(argTypes.get(i), methodSig.argTypes.get(i))) continue;
+            if (casts == null) casts = new boolean[argTypes.size()];
+            casts[i] = true;
         }
-
-        // reassign decl of reference to match method decl
-        methodRef.decl = methodSig.decl;
-
-        // return ret type of method
-        return methodSig.decl.type;
+        return new Resolution(methodSig, casts);
     }
 
     @Override
@@ -624,50 +812,49 @@ public class Matcher implements Visitor<IdTable, Object> {
         Declaration decl = (Declaration) expr.functionRef.visit(this, arg);
         checkIsCallable(expr.functionRef.posn, decl);
         SigGroup sigGroup = (SigGroup)decl;
-        return expr.resultType = visitCallArgs(expr.functionRef, expr.argList, sigGroup, arg, expr.posn);
+        return resultTypes.put(expr, visitCallArgs(expr.functionRef, expr.argList, sigGroup, arg, expr.posn));
     }
 
     @Override
     public Object visitLiteralExpr(LiteralExpr expr, IdTable arg) {
-        return expr.resultType = (TypeDenoter)expr.lit.visit(this, arg);
+        return resultTypes.put(expr, (TypeDenoter)expr.lit.visit(this, arg));
     }
 
     @Override
     public Object visitNewObjectExpr(NewObjectExpr expr, IdTable arg) {
-        ClassDecl decl = arg.getClassDecl(expr.posn, expr.classtype.className.spelling);
-        expr.decl = decl;
-        return expr.resultType = decl.unsupported ? UNSUPPORTED_TYPE : expr.classtype;
+        ClassDecl decl = typeDecls.put(expr, arg.getClassDecl(expr.posn, expr.classtype.className.id));
+        return resultTypes.put(expr, decl.unsupported ? UNSUPPORTED_TYPE : expr.classtype);
     }
 
     @Override
     public Object visitNewArrayExpr(NewArrayExpr expr, IdTable arg) {
         TypeDenoter sizeType = (TypeDenoter)expr.sizeExpr.visit(this, arg);
         checkTypeMatch("new array size expression", expr.posn, sizeType, INT_TYPE);
-        return expr.resultType = new ArrayType(expr.eltType, expr.posn);
+        return resultTypes.put(expr, new ArrayType(expr.eltType, expr.posn));
     }
 
     private void setCastTypeDecl(Expression expr, IdTable arg) {
         CastExpr cast = (CastExpr)expr;
         if (cast.type instanceof BaseType) {
-            cast.typeDecl = null;
+            typeDecls.put(cast, null);
             return;
         }
-        cast.typeDecl = arg.getClassDecl(cast.posn, ((ClassType)cast.type).className.spelling);
+        typeDecls.put(cast, arg.getClassDecl(cast.posn, ((ClassType)cast.type).className.id));
     }
 
     @Override
     public Object visitCastExpr(CastExpr expr, IdTable arg) {
         TypeDenoter srcType = (TypeDenoter)expr.expr.visit(this, arg);
-        if (!TypeChecker.validCast(arg, expr.type, srcType, true))
+        if (!TypeChecker.validCast(arg, hierarchy, expr.type, srcType, true))
             errors.reportError(expr.posn, String.format("Cannot cast type %s to %s", TypeChecker.typeStr(srcType), TypeChecker.typeStr(expr.type)));
         setCastTypeDecl(expr, arg);
-        return expr.resultType = expr.type;
+        return resultTypes.put(expr, expr.type);
     }
 
     @Override
     public Object visitInstanceOfExpr(InstanceOfExpr expr, IdTable arg) {
         TypeDenoter valType = (TypeDenoter)expr.expr.visit(this, arg);
-        expr.resultType = BOOLEAN_TYPE;
+        resultTypes.put(expr, BOOLEAN_TYPE);
 
         // ensure either expr type is descendant of type or vise versa
         if (!(valType instanceof ClassType)) {
@@ -675,12 +862,12 @@ public class Matcher implements Visitor<IdTable, Object> {
             return BOOLEAN_TYPE;
         }
         ClassType valClassType = (ClassType)valType;
-        ClassDecl valClassDecl = arg.getClassDecl(valClassType.posn, valClassType.className.spelling);
-        ClassDecl typeClassDecl = arg.getClassDecl(valClassType.posn, expr.type.className.spelling);
-        if (!TypeChecker.ancestorOf(valClassDecl, typeClassDecl) && !TypeChecker.ancestorOf(typeClassDecl, valClassDecl)) {
+        ClassDecl valClassDecl = arg.getClassDecl(valClassType.posn, valClassType.className.id);
+        ClassDecl typeClassDecl = arg.getClassDecl(valClassType.posn, expr.type.className.id);
+        if (!hierarchy.ancestorOf(valClassDecl, typeClassDecl) && !hierarchy.ancestorOf(typeClassDecl, valClassDecl)) {
             errors.reportError(expr.posn, String.format("Cannot use instanceof on unrelated classes %s and %s", valClassDecl.name, typeClassDecl.name));
         }
-        expr.typeDecl = typeClassDecl;
+        typeDecls.put(expr, typeClassDecl);
 
         return BOOLEAN_TYPE;
     }
@@ -689,29 +876,29 @@ public class Matcher implements Visitor<IdTable, Object> {
     public Object visitThisRef(ThisRef ref, IdTable arg) {
         if (staticActive)
             throw new MatcherError(ref.posn, "Cannot reference this in a static context");
-        return ref.decl = new VarDecl(new ClassType(new Identifier(new Token(TokenType.Identifier, activeClass.name, PREDEF_POSN.line, PREDEF_POSN.offset)), PREDEF_POSN), "this", PREDEF_POSN);
+        return refDecls.put(ref, new VarDecl(new ClassType(new Identifier(new Token(TokenType.Identifier, activeClass.name, SourcePosition.line(PREDEF_POSN), SourcePosition.offset(PREDEF_POSN))), PREDEF_POSN), "this", PREDEF_POSN));
     }
 
     @Override
     public Object visitSuperRef(SuperRef ref, IdTable arg) {
         if (staticActive)
             throw new MatcherError(ref.posn, "Cannot reference super in a static context");
-        return ref.decl = new VarDecl(new ClassType(new Identifier(new Token(TokenType.Identifier, activeClass.parentDecl.name, PREDEF_POSN.line, PREDEF_POSN.offset)), PREDEF_POSN), "super", PREDEF_POSN);
+        return refDecls.put(ref, new VarDecl(new ClassType(new Identifier(new Token(TokenType.Identifier, hierarchy.parent(activeClass).name, SourcePosition.line(PREDEF_POSN), SourcePosition.offset(PREDEF_POSN))), PREDEF_POSN), "super", PREDEF_POSN));
     }
 
     @Override
     public Object visitIdRef(IdRef ref, IdTable arg) {
-        Declaration decl = arg.getScopedDecl(ref.posn, ref.id.spelling);
+        Declaration decl = arg.getScopedDecl(ref.posn, ref.id.id);
         if (decl instanceof SigGroup) {
             // handle sig group static when method resolved
             SigGroup sigGroup = (SigGroup)decl;
-            sigGroup.lastRefStatic = staticActive;
+            staticSigGroupRefs.set(prog.nodeId(sigGroup), staticActive);
         } else if (staticActive) {
             // handle static check
             if (decl instanceof MemberDecl && !((MemberDecl)decl).isStatic)
                 throw new MatcherError(ref.posn, String.format("member %s.%s is not accessible from static context", activeClass.name, ref.id.spelling));
         }
-        return ref.decl = (Declaration)ref.id.visit(this, arg);
+        return refDecls.put(ref, (Declaration)ref.id.visit(this, arg));
     }
 
     @Override
@@ -720,28 +907,27 @@ public class Matcher implements Visitor<IdTable, Object> {
         Declaration refDecl = (Declaration)ref.ref.visit(this, arg);
         if (refDecl instanceof MethodDecl)
             throw new MatcherError(ref.ref.posn, String.format("Cannot access members of method %s", ref.id.spelling));
-        String className = getClassName(refDecl);
-        if (className == null)
+        int classId = getClassNameId(refDecl);
+        if (classId == NO_CLASS_ID)
             throw new MatcherError(ref.ref.posn, String.format("Cannot access members of base type %s", TypeChecker.typeStr(refDecl.type)));
-        else if (className.equals("<ARRAY>")) {
+        else if (classId == ARRAY_CLASS_ID) {
             // handle array.length
-            if (!ref.id.spelling.equals("length"))
+            if (ref.id.id != LENGTH_ID)
                 throw new MatcherError(ref.id.posn, String.format("Array object has no member %s", ref.id.spelling));
-            ref.id.decl = ARR_LENGTH_DECL;
-            ref.decl = ARR_LENGTH_DECL;
+            refDecls.put(ref, ARR_LENGTH_DECL);
             return ARR_LENGTH_DECL;
         }
         boolean isClass = refDecl instanceof ClassDecl;
-        ClassDecl classDecl = arg.getClassDecl(ref.posn, className);
-        boolean isActiveClass = className.equals(activeClass.name);
+        ClassDecl classDecl = arg.getClassDecl(ref.posn, classId);
+        String className = classDecl.name;
+        boolean isActiveClass = classId == activeClass.nameId();
 
         // find id in ref (don't call visit on id to avoid scope check)
-        MemberDecl decl = arg.getClassMember(ref.id.posn, classDecl.name, ref.id.spelling);
-        ref.id.decl = decl;
+        MemberDecl decl = arg.getClassMember(ref.id.posn, classId, ref.id.id);
         if (decl instanceof SigGroup) {
             // if sig group handle private and static checks after method decl resolved
             SigGroup sigGroup = (SigGroup)decl;
-            sigGroup.lastRefStatic = isClass;
+            staticSigGroupRefs.set(prog.nodeId(sigGroup), isClass);
         } else {
             // handle private and static checks
             if (isClass && !decl.isStatic)
@@ -749,12 +935,12 @@ public class Matcher implements Visitor<IdTable, Object> {
             if (decl.isPrivate && !isActiveClass)
                 throw new MatcherError(ref.id.posn, String.format("Cannot access private member %s.%s from external class", className, decl.name));
         }
-        return ref.decl = decl;
+        return refDecls.put(ref, decl);
     }
 
     @Override
     public Object visitIdentifier(Identifier id, IdTable arg) {
-        return id.decl = arg.getScopedDecl(id.posn, id.spelling);
+        return arg.getScopedDecl(id.posn, id.id);
     }
 
     @Override
@@ -1,11 +1,10 @@
 package miniJava.ContextualAnalysis;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class MatcherError extends RuntimeException {
-    SourcePosition posn;
-    public MatcherError(SourcePosition posn, String message) {
-        super(message);
+    long posn;
+    public MatcherError(long posn, String message) {
+        // thrown for control flow, so no stack trace
+        super(message, null, false, false);
         this.posn = posn;
     }
 }
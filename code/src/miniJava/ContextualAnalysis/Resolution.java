@@ -0,0 +1,38 @@
+package miniJava.ContextualAnalysis;
+
+import java.util.Arrays;
+
+// the outcome of overload resolution for calls into one sig group with the same argument types (see TypeTable):
+// the signature called and which arguments are implicitly cast to its parameter types. it depends on nothing
+// else, so the matcher resolves each argument type tuple once per sig group and reuses it at every such call.
+// the static and private checks depend on the call site and are not part of it
+final class Resolution {
+    final Signature sig;
+    final boolean[] casts; // by argument, null if no argument is cast
+
+    Resolution(Signature sig, boolean[] casts) {
+        this.sig = sig;
+        this.casts = casts;
+    }
+
+    // argument type ids of a call, what resolutions are cached by
+    static final class ArgTypes {
+        private final int[] ids;
+        private final int hash;
+
+        ArgTypes(int[] ids) {
+            this.ids = ids;
+            this.hash = Arrays.hashCode(ids);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof ArgTypes && Arrays.equals(((ArgTypes) obj).ids, ids);
+        }
+    }
+}
@@ -6,9 +6,9 @@ import miniJava.AbstractSyntaxTrees.TypeDenoter;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 // unique identifier of a method
+// signatures are equal when their names and argument type ids are (see TypeTable), without building strings
 public class Signature {
     public String name = "";
     public SigGroup group = null;
@@ -22,7 +22,9 @@ public class Signature {
     }
 
     public int hashCode() {
-        return Objects.hash(name.hashCode(), argTypes.hashCode());
+        int hash = name.hashCode();
+        for (TypeDenoter type : argTypes) hash = 31 * hash + TypeTable.id(type);
+        return hash;
     }
 
     public String toString() {
@@ -40,6 +42,12 @@ public class Signature {
 
     @Override
     public boolean equals(Object obj) {
-        return obj instanceof Signature && obj.toString().equals(toString());
+        if (!(obj instanceof Signature)) return false;
+        Signature other = (Signature) obj;
+        if (other.size() != size() || !other.name.equals(name)) return false;
+        for (int i = 0; i < size(); ++i) {
+            if (TypeTable.id(other.argTypes.get(i)) != TypeTable.id(argTypes.get(i))) return false;
+        }
+        return true;
     }
 }
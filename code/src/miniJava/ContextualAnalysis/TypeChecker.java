@@ -7,69 +7,31 @@ import java.util.*;
 public class TypeChecker {
     private TypeChecker() {}
     public static String typeStr(TypeDenoter type) {
-        if (type == null) return "<base-class-type>";
-        switch (type.typeKind) {
-            case INT:
-                return "int";
-            case LONG:
-                return "long";
-            case FLOAT:
-                return "float";
-            case DOUBLE:
-                return "double";
-            case CHAR:
-                return "char";
-            case BOOLEAN:
-                return "boolean";
-            case CLASS:
-                return ((ClassType)type).className.spelling;
-            case ARRAY:
-                return typeStr(((ArrayType)type).eltType) + "[]";
-            case VOID:
-                return "void";
-            case UNSUPPORTED:
-                return "<unsupported-type>";
-            default:
-                return "<error-type>";
-        }
+        return TypeTable.name(TypeTable.id(type));
     }
+
+    // types are equal exactly when their ids are, and the null type matches any class type
     public static boolean typeMatches(TypeDenoter actual, TypeDenoter... expected) {
-        boolean isClass = actual.typeKind == TypeKind.CLASS;
         if (actual.typeKind == TypeKind.UNSUPPORTED) return false;
-        String tsAct = typeStr(actual);
+        int actualId = TypeTable.id(actual);
+        boolean isClass = actual.typeKind == TypeKind.CLASS;
         for (TypeDenoter td : expected) {
-            if (
-                    isClass && td.typeKind == TypeKind.CLASS
-                            && (
-                            ((ClassType) actual).className.spelling.equals("null")
-                                    || ((ClassType) td).className.spelling.equals("null")
-                    )
-            ) return true;
-            String tsExp = typeStr(td);
-            if (tsAct.equals(tsExp)) return true;
+            int expectedId = TypeTable.id(td);
+            if (expectedId == actualId) return true;
+            if (isClass && td.typeKind == TypeKind.CLASS && (actualId == TypeTable.NULL || expectedId == TypeTable.NULL)) return true;
         }
         return false;
     }
 
-    // checks if b is a subclass of a
-    // note: a is counted as a subclass of itself
-    public static boolean ancestorOf(ClassDecl a, ClassDecl b) {
-        if (a.name.equals(b.name)) return true;
-        if (a.hierarchyDepth > b.hierarchyDepth) return false;
-        while (b.hierarchyDepth > a.hierarchyDepth)
-            b = b.parentDecl;
-        return a.name.equals(b.name);
-    }
-
-    public static boolean validCast(IdTable idTable, TypeDenoter srcType, TypeDenoter castType, boolean explicit) {
+    public static boolean validCast(IdTable idTable, ClassHierarchy hierarchy, TypeDenoter srcType, TypeDenoter castType, boolean explicit) {
         if (srcType == null || castType == null)
             return false;
 
         // cast class types
         if (srcType instanceof ClassType && castType instanceof ClassType) {
-            ClassDecl src = idTable.getClassDecl(srcType.posn, ((ClassType)srcType).className.spelling);
-            ClassDecl dst = idTable.getClassDecl(castType.posn, ((ClassType)castType).className.spelling);
-            return ancestorOf(dst, src) || (explicit && ancestorOf(src, dst));
+            ClassDecl src = idTable.getClassDecl(srcType.posn, ((ClassType)srcType).className.id);
+            ClassDecl dst = idTable.getClassDecl(castType.posn, ((ClassType)castType).className.id);
+            return hierarchy.ancestorOf(dst, src) || (explicit && hierarchy.ancestorOf(src, dst));
         }
 
         // cast base types
@@ -92,10 +54,10 @@ public class TypeChecker {
     }
 
     // check if src implicitly casts to dst
-    public static boolean validCast(IdTable idTable, Signature src, Signature dst) {
+    public static boolean validCast(IdTable idTable, ClassHierarchy hierarchy, Signature src, Signature dst) {
         if (src.size() != dst.size()) return false;
         for (int i = 0; i < src.size(); ++i) {
-            if (!validCast(idTable, src.argTypes.get(i), dst.argTypes.get(i), false))
+            if (!validCast(idTable, hierarchy, src.argTypes.get(i), dst.argTypes.get(i), false))
                 return false;
         }
         return true;
@@ -0,0 +1,100 @@
+package miniJava.ContextualAnalysis;
+
+import miniJava.AbstractSyntaxTrees.ArrayType;
+import miniJava.AbstractSyntaxTrees.ClassType;
+import miniJava.AbstractSyntaxTrees.TypeDenoter;
+import miniJava.AbstractSyntaxTrees.TypeKind;
+import miniJava.SyntacticAnalyzer.NamePool;
+
+import java.util.Arrays;
+
+// hash-conses types into dense ids, one per distinct type, so type and signature equality compare ints
+// base types have one id per kind, class types one per class name (by name pool id) and array types one per
+// element type. two types get the same id exactly when TypeChecker.typeStr spells them the same, so a class type
+// named like a base type (the matcher's void type) shares the base type's id. a type caches its id once interned
+// (TypeDenoter.typeId), and each id keeps its spelling for messages. like the name pool the table only grows
+public final class TypeTable {
+    private static final TypeKind[] kinds = TypeKind.values();
+    public static final int NO_TYPE = kinds.length; // a missing type (null), such as a class name used as a value
+    public static final int NULL;
+
+    private static String[] names = new String[64]; // spelling by id
+    private static int[] arrayTypes = new int[64]; // array type id + 1 by element type id, 0 if none yet
+    private static int[] classTypes = new int[1024]; // class type id + 1 by name pool id, 0 if none yet
+    private static int size;
+
+    static {
+        for (TypeKind kind : kinds) names[kind.ordinal()] = baseName(kind);
+        names[NO_TYPE] = "<base-class-type>";
+        size = NO_TYPE + 1;
+        for (TypeKind kind : kinds) {
+            if (kind == TypeKind.CLASS || kind == TypeKind.ARRAY || kind == TypeKind.UNSUPPORTED) continue;
+            classTypes[NamePool.intern(baseName(kind))] = kind.ordinal() + 1;
+        }
+        NULL = classType(NamePool.intern("null"));
+    }
+
+    private TypeTable() {}
+
+    public static int id(TypeDenoter type) {
+        if (type == null) return NO_TYPE;
+        if (type.typeId >= 0) return type.typeId;
+        int id;
+        switch (type.typeKind) {
+            case CLASS:
+                id = classType(((ClassType) type).className.id);
+                break;
+            case ARRAY:
+                id = arrayType(id(((ArrayType) type).eltType));
+                break;
+            default:
+                id = type.typeKind.ordinal();
+        }
+        return type.typeId = id;
+    }
+
+    public static String name(int id) {
+        return names[id];
+    }
+
+    private static synchronized int classType(int nameId) {
+        if (nameId >= classTypes.length) classTypes = Arrays.copyOf(classTypes, Math.max(classTypes.length * 2, nameId + 1));
+        if (classTypes[nameId] == 0) classTypes[nameId] = add(NamePool.name(nameId)) + 1;
+        return classTypes[nameId] - 1;
+    }
+
+    private static synchronized int arrayType(int eltId) {
+        if (eltId >= arrayTypes.length) arrayTypes = Arrays.copyOf(arrayTypes, Math.max(arrayTypes.length * 2, eltId + 1));
+        if (arrayTypes[eltId] == 0) arrayTypes[eltId] = add(names[eltId] + "[]") + 1;
+        return arrayTypes[eltId] - 1;
+    }
+
+    private static int add(String name) {
+        if (size == names.length) names = Arrays.copyOf(names, size * 2);
+        names[size] = name;
+        return size++;
+    }
+
+    private static String baseName(TypeKind kind) {
+        switch (kind) {
+            case INT:
+                return "int";
+            case LONG:
+                return "long";
+            case FLOAT:
+                return "float";
+            case DOUBLE:
+                return "double";
+            case CHAR:
+                return "char";
+            case BOOLEAN:
+                return "boolean";
+            case VOID:
+                return "void";
+            case UNSUPPORTED:
+                return "<unsupported-type>";
+            default:
+                return "<error-type>";
+        }
+    }
+}
@@ -6,50 +6,76 @@ import java.util.*;
 
 public class ErrorReporter {
 	private static class ErrorEntry implements Comparable<ErrorEntry> {
-		final SourcePosition posn;
+		final long posn; // entries without a position sort last
 		final String message;
-		ErrorEntry(SourcePosition posn, String message) {
-			this.posn = posn == null ? new SourcePosition(Integer.MAX_VALUE, Integer.MAX_VALUE) : posn;
-			this.message = posn == null ? message : String.format("%d:%d %s", posn.line, posn.offset, message);
+		ErrorEntry(long posn, String message) {
+			this.posn = posn;
+			this.message = message;
 		}
 
 		@Override
 		public int compareTo(ErrorEntry other) {
-			return posn.compareTo(other.posn);
+			return Long.compare(posn, other.posn);
+		}
+
+		// line and offset are only unpacked here, when the error is output
+		String format(List<String> fileNames) {
+			if (posn == SourcePosition.NONE) return message;
+			// predefined declarations are in no file, so only multi-file positions in a source name it
+			int file = SourcePosition.file(posn);
+			if (!SourcePosition.inSource(posn) || file >= fileNames.size())
+				return String.format("%s %s", SourcePosition.toString(posn), message);
+			return String.format("%s:%s %s", fileNames.get(file), SourcePosition.toString(posn), message);
 		}
 	}
 	private SortedSet<ErrorEntry> errorSet;
+	private List<String> fileNames = Collections.emptyList(); // indexed by file, empty for a single file compile
 	
 	public ErrorReporter() {
 		this.errorSet = new TreeSet<ErrorEntry>();
 	}
 	
+	// names printed before positions, the file index of a position selects the name
+	public void setFileNames(List<String> fileNames) {
+		this.fileNames = new ArrayList<>(fileNames);
+	}
+
 	public boolean hasErrors() {
 		return !errorSet.isEmpty();
 	}
+
+	public int errorCount() {
+		return errorSet.size();
+	}
 	
 	public void outputErrors() {
 		for (ErrorEntry error : errorSet) {
-			System.out.println(error.message);
+			System.out.println(error.format(fileNames));
 		}
 	}
 
 	public void reportError(String message) {
-		reportError(null, message);
+		reportError(SourcePosition.NONE, message);
 	}
 	
 	public void reportError(int line, int offset, String message) {
-		reportError(new SourcePosition(line, offset), message);
+		reportError(SourcePosition.pack(line, offset), message);
 	}
 
-	public void reportError(SourcePosition posn, String message) {
+	public void reportError(long posn, String message) {
 		errorSet.add(new ErrorEntry(posn, message));
 	}
 
+	// reports every error of other, as if they had been reported here in position order
+	public void addAll(ErrorReporter other) {
+		for (ErrorEntry error : other.errorSet)
+			errorSet.add(error);
+	}
+
 	public List<String> getErrors() {
 		List<String> errors = new ArrayList<>();
 		for (ErrorEntry error : errorSet)
-			errors.add(error.message);
+			errors.add(error.format(fileNames));
 		return errors;
 	}
 
@@ -0,0 +1,129 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.FlatAST;
+import miniJava.AbstractSyntaxTrees.Package;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// on-disk cache of parsed files, so an unchanged file is read back instead of lexed and parsed again
+// entries are the binary flat AST (FlatAST.toBytes) of a file that parsed without errors, named by a hash of the
+// compiler version and the file contents. a hit marks its entry as just used, and when the cache is opened and
+// after each store the least recently used entries are evicted until the cache fits its size limit. entries are
+// written to a temporary file and renamed into place, so concurrent compiles never read a partial entry. an entry
+// that cannot be read is dropped and counted as a miss
+public class ASTCache {
+	// part of every key, change it whenever the parser or the flat AST format changes what a file turns into
+	public static final String VERSION = "miniJava 1";
+	public static final long DEFAULT_MAX_BYTES = 64L << 20;
+	private static final String SUFFIX = ".ast";
+
+	private final File directory;
+	private final long maxBytes;
+	private final AtomicInteger hits = new AtomicInteger();
+	private final AtomicInteger misses = new AtomicInteger();
+	private final AtomicInteger stores = new AtomicInteger();
+	private final AtomicInteger evictions = new AtomicInteger();
+
+	public ASTCache(File directory, long maxBytes) throws IOException {
+		Files.createDirectories(directory.toPath());
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+		evict();
+	}
+
+	// the cached AST of source with positions in the given file, null on a miss
+	public Package load(SourceBuffer source, int file) {
+		File entry = entry(source);
+		if (entry.isFile()) {
+			try {
+				Package ast = FlatAST.fromBytes(Files.readAllBytes(entry.toPath()), file).view();
+				entry.setLastModified(System.currentTimeMillis());
+				hits.incrementAndGet();
+				return ast;
+			} catch (IOException | RuntimeException e) {
+				// unreadable or not a tree view can build
+				entry.delete();
+			}
+		}
+		misses.incrementAndGet();
+		return null;
+	}
+
+	// caches the AST parsed from source (only store ASTs of sources that parsed without any errors)
+	public void store(SourceBuffer source, Package ast) {
+		File entry = entry(source);
+		try {
+			File temp = File.createTempFile("store", ".tmp", directory);
+			try {
+				Files.write(temp.toPath(), FlatAST.flatten(ast).toBytes());
+				Files.move(temp.toPath(), entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} finally {
+				temp.delete();
+			}
+			stores.incrementAndGet();
+		} catch (IOException e) {
+			// a compile never fails because its cache could not be written
+			return;
+		}
+		evict();
+	}
+
+	// deletes least recently used entries until the cache fits in maxBytes
+	private synchronized void evict() {
+		File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+		if (entries == null) return;
+		long total = 0;
+		long[] lastUsed = new long[entries.length];
+		for (int i = 0; i < entries.length; ++i) {
+			total += entries[i].length();
+			lastUsed[i] = entries[i].lastModified();
+		}
+		if (total <= maxBytes) return;
+		Integer[] order = new Integer[entries.length];
+		for (int i = 0; i < order.length; ++i) order[i] = i;
+		Arrays.sort(order, Comparator.comparingLong(i -> lastUsed[i]));
+		for (int i = 0; i < order.length && total > maxBytes; ++i) {
+			long size = entries[order[i]].length();
+			if (entries[order[i]].delete()) {
+				total -= size;
+				evictions.incrementAndGet();
+			}
+		}
+	}
+
+	public int hits() {
+		return hits.get();
+	}
+
+	public int misses() {
+		return misses.get();
+	}
+
+	public String report() {
+		return String.format("AST cache: %d hits, %d misses, %d stored, %d evicted", hits.get(), misses.get(), stores.get(), evictions.get());
+	}
+
+	private File entry(SourceBuffer source) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+		digest.update(VERSION.getBytes(StandardCharsets.ISO_8859_1));
+		digest.update((byte) 0);
+		digest.update(source.data, 0, source.length);
+		StringBuilder name = new StringBuilder();
+		for (byte b : digest.digest()) name.append(String.format("%02x", b));
+		return new File(directory, name.append(SUFFIX).toString());
+	}
+}
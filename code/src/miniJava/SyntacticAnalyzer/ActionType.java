@@ -0,0 +1,76 @@
+package miniJava.SyntacticAnalyzer;
+
+// semantic actions placed in the push-down grammar productions
+// an action runs when it reaches the top of the parse stack, with the current token being the next unmatched token,
+// and builds AST nodes on the parser's value stack
+public enum ActionType {
+    // DECLARATIONS
+    Package,
+    Class,
+    ClassName,
+    Parent,
+    AddClass,
+    Member,
+    Visibility,
+    Static,
+    Void,
+    MemberType,
+    MemberName,
+    AddField,
+    Method,
+    Parameter,
+    ParameterName,
+    MethodBody,
+    AddMethod,
+
+    // TYPES
+    BaseType,
+    ClassType,
+    ArrayType,
+
+    // STATEMENTS
+    Position,
+    Token,
+    TokenClassType,
+    TokenArrayType,
+    TokenIdRef,
+    StatementList,
+    AddStatement,
+    Block,
+    VarDecl,
+    Assign,
+    IndexedAssign,
+    Call,
+    Return,
+    If,
+    IfElse,
+    While,
+    For,
+    None,
+
+    // REFERENCES
+    IdRef,
+    This,
+    Super,
+    Qualify,
+    Arguments,
+    AddArgument,
+
+    // EXPRESSIONS
+    Chain,
+    InstanceOf,
+    Operator,
+    CastTarget,
+    Cast,
+    EndChain,
+    RefExpr,
+    IndexExpr,
+    CallExpr,
+    UnaryOperator,
+    Unary,
+    Parenthesized,
+    TypeCast,
+    Literal,
+    NewObject,
+    NewArray,
+}
@@ -0,0 +1,81 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+// bulk searches over source bytes used by the scanner to skip whitespace and comment text
+// eight bytes are tested at once by loading them as a long and checking every byte lane in parallel
+// with plain arithmetic (SWAR), so no vector hardware or incubator modules are needed
+// the word loop is turned off with -DminiJava.swar=false, leaving the byte at a time loops
+final class ByteScan {
+	private static final long ONES = 0x0101010101010101L;
+	private static final long LOW_BITS = 0x7f7f7f7f7f7f7f7fL;
+	private static final long HIGH_BITS = 0x8080808080808080L;
+
+	private static final VarHandle LONGS = words();
+	static final boolean SWAR = LONGS != null;
+
+	private ByteScan() {}
+
+	private static VarHandle words() {
+		if (!Boolean.parseBoolean(System.getProperty("miniJava.swar", "true"))) return null;
+		try {
+			VarHandle handle = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+			long probe = (long) handle.get(new byte[8], 0);
+			return probe == 0 ? handle : null;
+		} catch (RuntimeException | LinkageError e) {
+			return null;
+		}
+	}
+
+	// index of the first byte in data[from, end) that is not a space or tab, or end
+	static int skipBlanks(byte[] data, int from, int end) {
+		int i = from;
+		if (SWAR) {
+			for (; i + 8 <= end; i += 8) {
+				long word = (long) LONGS.get(data, i);
+				long other = ~(zeroBytes(word ^ (' ' * ONES)) | zeroBytes(word ^ ('\t' * ONES))) & HIGH_BITS;
+				if (other != 0) return i + (Long.numberOfTrailingZeros(other) >>> 3);
+			}
+		}
+		while (i < end && (data[i] == ' ' || data[i] == '\t')) ++i;
+		return i;
+	}
+
+	// index of the first byte in data[from, end) equal to a, b or c, or end
+	static int find(byte[] data, int from, int end, byte a, byte b, byte c) {
+		int i = from;
+		if (SWAR) {
+			long as = (a & 0xff) * ONES, bs = (b & 0xff) * ONES, cs = (c & 0xff) * ONES;
+			for (; i + 8 <= end; i += 8) {
+				long word = (long) LONGS.get(data, i);
+				long hits = zeroBytes(word ^ as) | zeroBytes(word ^ bs) | zeroBytes(word ^ cs);
+				if (hits != 0) return i + (Long.numberOfTrailingZeros(hits) >>> 3);
+			}
+		}
+		while (i < end && data[i] != a && data[i] != b && data[i] != c) ++i;
+		return i;
+	}
+
+	// index of the first byte in data[from, end) equal to a, b, c or d, or end
+	static int find(byte[] data, int from, int end, byte a, byte b, byte c, byte d) {
+		int i = from;
+		if (SWAR) {
+			long as = (a & 0xff) * ONES, bs = (b & 0xff) * ONES, cs = (c & 0xff) * ONES, ds = (d & 0xff) * ONES;
+			for (; i + 8 <= end; i += 8) {
+				long word = (long) LONGS.get(data, i);
+				long hits = zeroBytes(word ^ as) | zeroBytes(word ^ bs) | zeroBytes(word ^ cs) | zeroBytes(word ^ ds);
+				if (hits != 0) return i + (Long.numberOfTrailingZeros(hits) >>> 3);
+			}
+		}
+		while (i < end && data[i] != a && data[i] != b && data[i] != c && data[i] != d) ++i;
+		return i;
+	}
+
+	// high bit of each byte lane set exactly when that byte of word is zero
+	// the low seven bits are added separately so no carry crosses into the next lane
+	private static long zeroBytes(long word) {
+		return ~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS);
+	}
+}
@@ -0,0 +1,112 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.nio.charset.StandardCharsets;
+
+// re-lexes an edited source using the token buffer of the source before the edit
+// scanning restarts at the last token starting before the edit, since a token start is always
+// scanned from the scanner's initial state and nothing before it has changed
+// scanning stops at the first token starting exactly where an old token after the edit started
+// (shifted by the edit): from there the scanner sees the same chars in the same state as before,
+// so the rest of the old tokens are reused with their positions shifted
+// an edit that opens or closes a comment or literal just keeps the scan going until that happens
+public class IncrementalLexer {
+	public static class Result {
+		public final SourceBuffer source; // source after the edit
+		public final TokenBuffer tokens; // tokens of the edited source
+		public final int changedStart; // old tokens [changedStart, oldChangedEnd) were replaced
+		public final int oldChangedEnd; // by new tokens [changedStart, newChangedEnd)
+		public final int newChangedEnd;
+
+		Result(SourceBuffer source, TokenBuffer tokens, int changedStart, int oldChangedEnd, int newChangedEnd) {
+			this.source = source;
+			this.tokens = tokens;
+			this.changedStart = changedStart;
+			this.oldChangedEnd = oldChangedEnd;
+			this.newChangedEnd = newChangedEnd;
+		}
+	}
+
+	// replaces deletedLength bytes at editOffset of the old tokens' source with insertedText
+	public static Result relex(TokenBuffer old, int editOffset, int deletedLength, String insertedText) {
+		SourceBuffer oldSource = old.getSource();
+		if (editOffset < 0 || deletedLength < 0 || editOffset + deletedLength > oldSource.length)
+			throw new IllegalArgumentException("edit outside of source");
+		old.scanAll();
+		int oldCount = old.size();
+
+		// splice the edit into a new source buffer
+		byte[] inserted = insertedText.getBytes(StandardCharsets.ISO_8859_1);
+		int shift = inserted.length - deletedLength;
+		byte[] data = new byte[oldSource.length + shift];
+		System.arraycopy(oldSource.data, 0, data, 0, editOffset);
+		System.arraycopy(inserted, 0, data, editOffset, inserted.length);
+		System.arraycopy(oldSource.data, editOffset + deletedLength, data, editOffset + inserted.length, oldSource.length - editOffset - deletedLength);
+		SourceBuffer source = new SourceBuffer(data, data.length);
+
+		// restart at the last token starting before the edit (its last char may run into the edit)
+		// an end token can sit on a line of its own (see Scanner.nextChar), so never restart at one
+		int restart = lastStartBefore(old, editOffset);
+		if (restart >= 0 && old.type(restart) == TokenType.End) restart -= 1;
+		Scanner scanner = restart < 0
+				? old.getScanner().restartAt(source, 0, 0, 0)
+				: old.getScanner().restartAt(source, old.start(restart), old.line(restart), old.offset(restart));
+		if (restart < 0) restart = 0;
+
+		TokenBuffer tokens = new TokenBuffer(scanner, oldCount + Math.max(0, shift / 4) + 1);
+		tokens.append(old, 0, restart, 0, -1, 0, 0);
+
+		// scan until a new token lines up with an old token past the edit
+		int oldSyncStart = editOffset + deletedLength;
+		int k = lastStartBefore(old, oldSyncStart) + 1;
+		int oldChangedEnd = oldCount;
+		int newChangedEnd = -1;
+		while (!tokens.isComplete()) {
+			scanner.scanInto(tokens);
+			int last = tokens.size() - 1;
+			int oldStart = tokens.start(last) - shift;
+			if (oldStart < oldSyncStart) continue;
+			while (k < oldCount && old.start(k) < oldStart) k++;
+			if (k == oldCount || old.start(k) != oldStart) continue;
+
+			// resynchronized, reuse old tokens from k on
+			int lineShift = tokens.line(last) - old.line(k);
+			int offsetShift = tokens.offset(last) - old.offset(k);
+			tokens.truncate(last);
+			tokens.append(old, k, oldCount, shift, old.line(k), lineShift, offsetShift);
+			oldChangedEnd = k;
+			newChangedEnd = last;
+			break;
+		}
+		if (newChangedEnd < 0) newChangedEnd = tokens.size();
+
+		// the restart token and any after it may have come out unchanged
+		int changedStart = restart;
+		while (changedStart < oldChangedEnd && changedStart < newChangedEnd && sameToken(old, tokens, changedStart))
+			changedStart += 1;
+		return new Result(source, tokens, changedStart, oldChangedEnd, newChangedEnd);
+	}
+
+	// index of the last token starting before offset, -1 if none
+	private static int lastStartBefore(TokenBuffer tokens, int offset) {
+		int lo = 0;
+		int hi = tokens.size() - 1;
+		int found = -1;
+		while (lo <= hi) {
+			int mid = (lo + hi) >>> 1;
+			if (tokens.start(mid) < offset) {
+				found = mid;
+				lo = mid + 1;
+			} else hi = mid - 1;
+		}
+		return found;
+	}
+
+	private static boolean sameToken(TokenBuffer a, TokenBuffer b, int index) {
+		return a.type(index) == b.type(index)
+				&& a.start(index) == b.start(index)
+				&& a.length(index) == b.length(index)
+				&& a.line(index) == b.line(index)
+				&& a.offset(index) == b.offset(index)
+				&& a.text(index).equals(b.text(index));
+	}
+}
@@ -0,0 +1,183 @@
+package miniJava.SyntacticAnalyzer;
+
+// character classes and transition table for the table driven scanner mode
+// each transition is (action << 8) | operand, where the operand is the next state
+// for consuming actions and the token type ordinal for emitting actions
+class LexTable {
+	// character classes
+	static final int OTHER = 0, LETTER = 1, DIGIT = 2, UNDERSCORE = 3, WHITESPACE = 4, NEWLINE = 5, END = 6,
+		SLASH = 7, STAR = 8, PLUS = 9, MINUS = 10, EQ = 11, LT = 12, GT = 13, BANG = 14, AMP = 15, PIPE = 16,
+		CARET = 17, TILDE = 18, COMMA = 19, SEMICOLON = 20, COLON = 21, DOT = 22, LPAREN = 23, RPAREN = 24,
+		LBRACKET = 25, RBRACKET = 26, LCURLY = 27, RCURLY = 28, DQUOTE = 29, SQUOTE = 30, BACKSLASH = 31,
+		SUFFIX_D = 32, SUFFIX_F = 33, SUFFIX_L = 34;
+	static final int CLASS_COUNT = 35;
+
+	// states
+	static final int START = 0, SLASH_SEEN = 1, LINE_COMMENT = 2, BLOCK_COMMENT = 3, BLOCK_STAR = 4,
+		EQ_SEEN = 5, LT_SEEN = 6, GT_SEEN = 7, BANG_SEEN = 8, AMP_SEEN = 9, PIPE_SEEN = 10,
+		IDENTIFIER = 11, INT = 12, DOUBLE = 13, STRING = 14, STRING_ESCAPE = 15, CHAR = 16, CHAR_ESCAPE = 17;
+	static final int STATE_COUNT = 18;
+
+	// actions
+	static final int TAKE = 0, SKIP = 1, CLEAR_SKIP = 2, EMIT = 3, TAKE_EMIT = 4, SKIP_EMIT = 5,
+		UNCLOSED_LITERAL = 6, UNCLOSED_COMMENT = 7;
+
+	static final byte[] charClass = new byte[256];
+	static final short[] transitions = new short[STATE_COUNT * CLASS_COUNT];
+	static final TokenType[] tokenTypes = TokenType.values();
+
+	static {
+		for (char c = 'a'; c <= 'z'; ++c) charClass[c] = LETTER;
+		for (char c = 'A'; c <= 'Z'; ++c) charClass[c] = LETTER;
+		for (char c = '0'; c <= '9'; ++c) charClass[c] = DIGIT;
+		charClass['d'] = charClass['D'] = SUFFIX_D;
+		charClass['f'] = charClass['F'] = SUFFIX_F;
+		charClass['l'] = charClass['L'] = SUFFIX_L;
+		charClass['_'] = UNDERSCORE;
+		charClass[' '] = charClass['\t'] = charClass['\r'] = WHITESPACE;
+		charClass['\n'] = NEWLINE;
+		charClass[Scanner.EOF] = END;
+		charClass['/'] = SLASH;
+		charClass['*'] = STAR;
+		charClass['+'] = PLUS;
+		charClass['-'] = MINUS;
+		charClass['='] = EQ;
+		charClass['<'] = LT;
+		charClass['>'] = GT;
+		charClass['!'] = BANG;
+		charClass['&'] = AMP;
+		charClass['|'] = PIPE;
+		charClass['^'] = CARET;
+		charClass['~'] = TILDE;
+		charClass[','] = COMMA;
+		charClass[';'] = SEMICOLON;
+		charClass[':'] = COLON;
+		charClass['.'] = DOT;
+		charClass['('] = LPAREN;
+		charClass[')'] = RPAREN;
+		charClass['['] = LBRACKET;
+		charClass[']'] = RBRACKET;
+		charClass['{'] = LCURLY;
+		charClass['}'] = RCURLY;
+		charClass['"'] = DQUOTE;
+		charClass['\''] = SQUOTE;
+		charClass['\\'] = BACKSLASH;
+
+		// start of a token: anything unrecognized becomes an empty identifier (reported as an invalid symbol)
+		fill(START, emit(TokenType.Identifier));
+		set(START, END, emit(TokenType.End));
+		set(START, WHITESPACE, step(SKIP, START));
+		set(START, NEWLINE, step(SKIP, START));
+		set(START, SLASH, step(TAKE, SLASH_SEEN));
+		set(START, PLUS, takeEmit(TokenType.Add));
+		set(START, MINUS, takeEmit(TokenType.Minus));
+		set(START, STAR, takeEmit(TokenType.Multiply));
+		set(START, CARET, takeEmit(TokenType.BitXor));
+		set(START, TILDE, takeEmit(TokenType.BitComp));
+		set(START, COMMA, takeEmit(TokenType.Comma));
+		set(START, SEMICOLON, takeEmit(TokenType.Semicolon));
+		set(START, COLON, takeEmit(TokenType.Colon));
+		set(START, DOT, takeEmit(TokenType.Dot));
+		set(START, LPAREN, takeEmit(TokenType.LParen));
+		set(START, RPAREN, takeEmit(TokenType.RParen));
+		set(START, LBRACKET, takeEmit(TokenType.LBracket));
+		set(START, RBRACKET, takeEmit(TokenType.RBracket));
+		set(START, LCURLY, takeEmit(TokenType.LCurly));
+		set(START, RCURLY, takeEmit(TokenType.RCurly));
+		set(START, EQ, step(TAKE, EQ_SEEN));
+		set(START, LT, step(TAKE, LT_SEEN));
+		set(START, GT, step(TAKE, GT_SEEN));
+		set(START, BANG, step(TAKE, BANG_SEEN));
+		set(START, AMP, step(TAKE, AMP_SEEN));
+		set(START, PIPE, step(TAKE, PIPE_SEEN));
+		set(START, DQUOTE, step(TAKE, STRING));
+		set(START, SQUOTE, step(TAKE, CHAR));
+		set(START, DIGIT, step(TAKE, INT));
+		for (int c : new int[]{LETTER, SUFFIX_D, SUFFIX_F, SUFFIX_L}) set(START, c, step(TAKE, IDENTIFIER));
+
+		// comments
+		fill(SLASH_SEEN, emit(TokenType.Divide));
+		set(SLASH_SEEN, SLASH, step(CLEAR_SKIP, LINE_COMMENT));
+		set(SLASH_SEEN, STAR, step(CLEAR_SKIP, BLOCK_COMMENT));
+		fill(LINE_COMMENT, step(SKIP, LINE_COMMENT));
+		set(LINE_COMMENT, NEWLINE, step(SKIP, START));
+		set(LINE_COMMENT, END, step(SKIP, START));
+		fill(BLOCK_COMMENT, step(SKIP, BLOCK_COMMENT));
+		set(BLOCK_COMMENT, STAR, step(SKIP, BLOCK_STAR));
+		set(BLOCK_COMMENT, END, step(UNCLOSED_COMMENT, 0));
+		fill(BLOCK_STAR, step(SKIP, BLOCK_COMMENT));
+		set(BLOCK_STAR, STAR, step(SKIP, BLOCK_STAR));
+		set(BLOCK_STAR, SLASH, step(SKIP, START));
+		set(BLOCK_STAR, END, step(UNCLOSED_COMMENT, 0));
+
+		// one or two character operators
+		fill(EQ_SEEN, emit(TokenType.AssignmentOp));
+		set(EQ_SEEN, EQ, takeEmit(TokenType.RelEq));
+		fill(LT_SEEN, emit(TokenType.RelLT));
+		set(LT_SEEN, EQ, takeEmit(TokenType.RelLEq));
+		fill(GT_SEEN, emit(TokenType.RelGT));
+		set(GT_SEEN, EQ, takeEmit(TokenType.RelGEq));
+		fill(BANG_SEEN, emit(TokenType.LogNot));
+		set(BANG_SEEN, EQ, takeEmit(TokenType.RelNEq));
+		fill(AMP_SEEN, emit(TokenType.BitAnd));
+		set(AMP_SEEN, AMP, takeEmit(TokenType.LogAnd));
+		fill(PIPE_SEEN, emit(TokenType.BitOr));
+		set(PIPE_SEEN, PIPE, takeEmit(TokenType.LogOr));
+
+		// identifiers and keywords
+		fill(IDENTIFIER, emit(TokenType.Identifier));
+		for (int c : new int[]{LETTER, DIGIT, UNDERSCORE, SUFFIX_D, SUFFIX_F, SUFFIX_L}) set(IDENTIFIER, c, step(TAKE, IDENTIFIER));
+
+		// numbers (suffixes are consumed but not part of the token text)
+		fill(INT, emit(TokenType.IntLiteral));
+		set(INT, DIGIT, step(TAKE, INT));
+		set(INT, DOT, step(TAKE, DOUBLE));
+		set(INT, SUFFIX_D, skipEmit(TokenType.DoubleLiteral));
+		set(INT, SUFFIX_F, skipEmit(TokenType.FloatLiteral));
+		set(INT, SUFFIX_L, skipEmit(TokenType.LongLiteral));
+		fill(DOUBLE, emit(TokenType.DoubleLiteral));
+		set(DOUBLE, DIGIT, step(TAKE, DOUBLE));
+		set(DOUBLE, SUFFIX_D, skipEmit(TokenType.DoubleLiteral));
+		set(DOUBLE, SUFFIX_F, skipEmit(TokenType.FloatLiteral));
+
+		// string and char literals (a char following a backslash never closes the literal)
+		quoted(STRING, STRING_ESCAPE, DQUOTE, TokenType.StringLiteral);
+		quoted(CHAR, CHAR_ESCAPE, SQUOTE, TokenType.CharLiteral);
+	}
+
+	private static void quoted(int state, int escapeState, int quote, TokenType type) {
+		fill(state, step(TAKE, state));
+		set(state, BACKSLASH, step(TAKE, escapeState));
+		set(state, quote, takeEmit(type));
+		set(state, NEWLINE, step(UNCLOSED_LITERAL, type.ordinal()));
+		set(state, END, step(UNCLOSED_LITERAL, type.ordinal()));
+		fill(escapeState, step(TAKE, state));
+		set(escapeState, BACKSLASH, step(TAKE, escapeState));
+		set(escapeState, NEWLINE, step(UNCLOSED_LITERAL, type.ordinal()));
+		set(escapeState, END, step(UNCLOSED_LITERAL, type.ordinal()));
+	}
+
+	private static short step(int action, int operand) {
+		return (short)((action << 8) | operand);
+	}
+
+	private static short emit(TokenType type) {
+		return step(EMIT, type.ordinal());
+	}
+
+	private static short takeEmit(TokenType type) {
+		return step(TAKE_EMIT, type.ordinal());
+	}
+
+	private static short skipEmit(TokenType type) {
+		return step(SKIP_EMIT, type.ordinal());
+	}
+
+	private static void fill(int state, short transition) {
+		for (int c = 0; c < CLASS_COUNT; ++c) transitions[state * CLASS_COUNT + c] = transition;
+	}
+
+	private static void set(int state, int charClass, short transition) {
+		transitions[state * CLASS_COUNT + charClass] = transition;
+	}
+}
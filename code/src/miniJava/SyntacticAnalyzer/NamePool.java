@@ -0,0 +1,97 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// interns identifier spellings into dense ids shared by every compiler phase
+// each distinct spelling gets one id and one canonical string, so later phases index and compare
+// names by id instead of hashing and comparing strings
+// identifiers are interned straight from the source bytes as they are scanned, which happens on
+// several threads at once when lexing in parallel. the pool only grows
+public final class NamePool {
+	private static final int INITIAL_CAPACITY = 1024; // hash slots, a power of 2, at most half full
+
+	private static int[] slots = new int[INITIAL_CAPACITY]; // id + 1 of the name hashed to each slot, 0 if empty
+	private static int[] hashes = new int[INITIAL_CAPACITY / 2]; // by id
+	private static volatile String[] names = new String[INITIAL_CAPACITY / 2]; // by id, read without locking
+	private static int size;
+
+	private NamePool() {}
+
+	// source chars are single bytes, hashed exactly like String.hashCode hashes the same chars
+	public static int intern(byte[] data, int start, int length) {
+		int hash = 0;
+		for (int i = start; i < start + length; ++i) hash = 31 * hash + (data[i] & 0xff);
+		return intern(hash, data, start, length);
+	}
+
+	// canonical strings hash from their cached hash code and match by reference
+	public static int intern(String name) {
+		return intern(name.hashCode(), name);
+	}
+
+	public static String name(int id) {
+		return names[id];
+	}
+
+	public static synchronized int size() {
+		return size;
+	}
+
+	private static synchronized int intern(int hash, byte[] data, int start, int length) {
+		int mask = slots.length - 1;
+		int slot = mix(hash) & mask;
+		for (int entry; (entry = slots[slot]) != 0; slot = (slot + 1) & mask) {
+			int id = entry - 1;
+			if (hashes[id] == hash && matches(names[id], data, start, length)) return id;
+		}
+		return add(slot, hash, new String(data, start, length, StandardCharsets.ISO_8859_1));
+	}
+
+	private static synchronized int intern(int hash, String name) {
+		int mask = slots.length - 1;
+		int slot = mix(hash) & mask;
+		for (int entry; (entry = slots[slot]) != 0; slot = (slot + 1) & mask) {
+			int id = entry - 1;
+			if (names[id] == name || (hashes[id] == hash && names[id].equals(name))) return id;
+		}
+		return add(slot, hash, name);
+	}
+
+	private static boolean matches(String name, byte[] data, int start, int length) {
+		if (name.length() != length) return false;
+		for (int i = 0; i < length; ++i)
+			if (name.charAt(i) != (data[start + i] & 0xff)) return false;
+		return true;
+	}
+
+	// called holding the lock with slot the empty slot the name probed to
+	private static int add(int slot, int hash, String name) {
+		int id = size++;
+		if (id == hashes.length) {
+			hashes = Arrays.copyOf(hashes, id * 2);
+			names = Arrays.copyOf(names, id * 2);
+		}
+		hashes[id] = hash;
+		names[id] = name;
+		slots[slot] = id + 1;
+		if (size * 2 > slots.length) rehash(slots.length * 2);
+		return id;
+	}
+
+	private static void rehash(int capacity) {
+		int[] rehashed = new int[capacity];
+		int mask = capacity - 1;
+		for (int id = 0; id < size; ++id) {
+			int slot = mix(hashes[id]) & mask;
+			while (rehashed[slot] != 0) slot = (slot + 1) & mask;
+			rehashed[slot] = id + 1;
+		}
+		slots = rehashed;
+	}
+
+	// spreads high bits down since the table is indexed by the low bits
+	private static int mix(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
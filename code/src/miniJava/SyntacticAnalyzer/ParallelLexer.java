@@ -0,0 +1,169 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// lexes large sources in parallel, producing exactly the tokens of a sequential scan
+// the source is split into chunks that end just after a newline. no token spans a newline and
+// string/char literals end at one, so a chunk starts either outside any token or inside a multiline
+// comment. each chunk is lexed for both cases at once, then the chunks are stitched in order,
+// taking the case the previous chunk ended in. chunks are lexed with line numbers starting at 0
+// and shifted by the newline count of the chunks before them when stitched
+public class ParallelLexer {
+	public static final int MIN_CHUNK_SIZE = 1 << 16;
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	// outcome of lexing one chunk from one of the two start cases
+	private static class ChunkLex {
+		TokenBuffer tokens; // null if the chunk is entirely comment
+		int tokenCount; // tokens to keep (a final token made by hitting the chunk end is dropped)
+		boolean stop; // the kept tokens end the input (end token or error)
+		boolean endsInComment; // chunk ends inside a multiline comment
+		boolean opensComment; // that comment was opened in this chunk, where the fields below locate it
+		int commentStart;
+		int commentLine;
+		int commentOffset;
+		int unclosedAt = -1; // an inherited comment ran into the end of input here
+	}
+
+	public static TokenBuffer lex(Scanner scanner) {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		int length = scanner.getSource().length();
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, length / (pool.getParallelism() * CHUNKS_PER_THREAD));
+		// speculative lexing does more total work, it only pays off with several workers and chunks
+		if (pool.getParallelism() < 2 || length < 2 * chunkSize) return TokenBuffer.eager(scanner);
+		return lex(scanner, chunkSize, pool);
+	}
+
+	// scanner must not have scanned anything yet
+	public static TokenBuffer lex(Scanner scanner, int chunkSize, ForkJoinPool pool) {
+		SourceBuffer source = scanner.getSource();
+		byte[] data = source.data;
+		int length = source.length;
+
+		// split after newlines, counting lines per chunk (the scanner also counts end of file chars as newlines)
+		List<Integer> bounds = new ArrayList<>();
+		List<Integer> lineCounts = new ArrayList<>();
+		bounds.add(0);
+		for (int start = 0; start < length; ) {
+			int end = Math.min(length, start + chunkSize);
+			while (end < length && data[end - 1] != '\n') end++;
+			int lines = 0;
+			for (int i = start; i < end; ++i)
+				if (data[i] == '\n' || data[i] == Scanner.EOF) lines++;
+			bounds.add(end);
+			lineCounts.add(lines);
+			start = end;
+		}
+		if (bounds.size() == 1) bounds.add(0); // empty source is one empty chunk
+		int chunks = bounds.size() - 1;
+
+		List<ForkJoinTask<ChunkLex>> outside = new ArrayList<>();
+		List<ForkJoinTask<ChunkLex>> inside = new ArrayList<>();
+		for (int c = 0; c < chunks; ++c) {
+			int start = bounds.get(c);
+			int end = bounds.get(c + 1);
+			outside.add(pool.submit(() -> lexOutside(scanner, start, end, 0, 0)));
+			inside.add(c == 0 ? null : pool.submit(() -> lexInside(scanner, start, end)));
+		}
+
+		TokenBuffer tokens = new TokenBuffer(scanner, Math.max(64, length / 4));
+		boolean inComment = false;
+		int commentStart = 0;
+		int commentLine = 0;
+		int commentOffset = 0;
+		int baseLine = 0;
+		for (int c = 0; c < chunks; ++c) {
+			ChunkLex lex = (inComment ? inside : outside).get(c).join();
+			if (lex.unclosedAt >= 0) {
+				// same token and error the scanner makes for a comment still open at the end of input
+				tokens.deferError(SourcePosition.pack(commentLine, commentOffset), "Unclosed multiline comment.");
+				tokens.add(TokenType.Error, commentStart, 0, SourcePosition.pack(commentLine, commentOffset), String.valueOf((char)(data[lex.unclosedAt - 1] & 0xff)), 0);
+				break;
+			}
+			if (lex.tokens != null) tokens.append(lex.tokens, 0, lex.tokenCount, 0, -1, baseLine, 0);
+			if (lex.stop) break;
+			if (lex.opensComment) {
+				commentStart = lex.commentStart;
+				commentLine = lex.commentLine + baseLine;
+				commentOffset = lex.commentOffset;
+			}
+			inComment = lex.endsInComment;
+			if (c < lineCounts.size()) baseLine += lineCounts.get(c);
+		}
+		if (!tokens.isComplete()) throw new IllegalStateException("parallel lex did not reach the end of input");
+		for (int c = 0; c < chunks; ++c) {
+			outside.get(c).cancel(false);
+			if (inside.get(c) != null) inside.get(c).cancel(false);
+		}
+		return tokens;
+	}
+
+	// chunk [start, end) lexed from outside any token, char at start sits at line:offset (relative to the chunk)
+	private static ChunkLex lexOutside(Scanner scanner, int start, int end, int line, int offset) {
+		Scanner chunkScanner = scanner.slice(start, end, line, offset);
+		TokenBuffer tokens = new TokenBuffer(chunkScanner, Math.max(16, (end - start) / 4));
+		tokens.scanAll();
+		ChunkLex lex = new ChunkLex();
+		lex.tokens = tokens;
+		lex.tokenCount = tokens.size();
+		lex.stop = true;
+
+		// a final token caused by reaching the chunk end only tells how the chunk ends
+		int last = tokens.size() - 1;
+		boolean atChunkEnd = end < scanner.getSource().length() && chunkScanner.position() == end;
+		if (!atChunkEnd) return lex;
+		if (tokens.type(last) == TokenType.End) {
+			lex.tokenCount = last;
+			lex.stop = false;
+		} else if (tokens.type(last) == TokenType.Error && isCommentStart(scanner.getSource(), tokens.start(last))) {
+			lex.tokenCount = last;
+			lex.stop = false;
+			lex.endsInComment = true;
+			lex.opensComment = true;
+			lex.commentStart = tokens.start(last);
+			lex.commentLine = tokens.line(last);
+			lex.commentOffset = tokens.offset(last);
+		}
+		return lex;
+	}
+
+	// chunk [start, end) lexed from inside a multiline comment opened in an earlier chunk
+	private static ChunkLex lexInside(Scanner scanner, int start, int end) {
+		SourceBuffer source = scanner.getSource();
+		byte[] data = source.data;
+		// the newline before start is the comment's previous char, so start itself cannot close it
+		for (int i = start; i < end; ++i) {
+			if (data[i] == Scanner.EOF) {
+				ChunkLex lex = new ChunkLex();
+				lex.unclosedAt = i;
+				return lex;
+			}
+			if (data[i] == '/' && i > start && data[i - 1] == '*') {
+				// resume outside the comment after the closing slash
+				int line = 0;
+				int lineStart = start;
+				for (int j = start; j <= i; ++j) {
+					if (data[j] == '\n') {
+						line++;
+						lineStart = j + 1;
+					}
+				}
+				int offset = -1;
+				for (int j = lineStart; j <= i; ++j)
+					if (data[j] != '\r') offset++;
+				return lexOutside(scanner, i + 1, end, line, offset + 1);
+			}
+		}
+		ChunkLex lex = new ChunkLex();
+		if (end == source.length) lex.unclosedAt = end;
+		else lex.endsInComment = true;
+		return lex;
+	}
+
+	private static boolean isCommentStart(SourceBuffer source, int index) {
+		return index + 1 < source.length && source.data[index] == '/' && source.data[index + 1] == '*';
+	}
+}
@@ -0,0 +1,249 @@
+package miniJava.SyntacticAnalyzer;
+
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.ClassDeclList;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// parses the top-level class declarations of a fully lexed source in parallel, producing exactly the AST and
+// errors of a sequential recursive descent parse
+// the tokens are pre-scanned for class ... { ... } spans by brace matching and consecutive spans are grouped
+// into tasks, each parsed by its own Parser from the group's first token until it reaches the next group.
+// a group parsed from where the previous group really ended is exactly what a sequential parse would do there,
+// so groups are taken in order while that holds. if malformed braces make a group end somewhere else, the rest
+// of the source is parsed sequentially from there. parsing stops at the first group with a syntax error, like
+// the sequential parser does, and held back scanner errors are reported up to the same token. with recovery
+// every group recovers from its own syntax errors (see Parser.enableRecovery) and all of them are reported
+public class ParallelParser {
+	public static final int MIN_GROUP_TOKENS = 1 << 14;
+	private static final int GROUPS_PER_THREAD = 4;
+
+	// outcome of parsing one group of spans
+	private static class GroupParse {
+		final ClassDeclList classDeclList = new ClassDeclList();
+		final ErrorReporter errors = new ErrorReporter();
+		int end; // token index parsing reached, or stopped at on a syntax error
+		boolean failed;
+		boolean recovered; // had syntax errors it recovered from
+	}
+
+	// outcome of lexing and parsing one source file
+	private static class FileParse {
+		final ErrorReporter errors = new ErrorReporter();
+		Package ast; // null on a syntax error
+	}
+
+	public static Package parse(TokenBuffer tokens, ErrorReporter errors) {
+		return parse(tokens, errors, false);
+	}
+
+	public static Package parse(TokenBuffer tokens, ErrorReporter errors, boolean recover) {
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		tokens.scanAll();
+		int groupTokens = Math.max(MIN_GROUP_TOKENS, tokens.size() / (pool.getParallelism() * GROUPS_PER_THREAD));
+		// a single worker gains nothing from splitting the source
+		if (pool.getParallelism() < 2 || tokens.size() < 2 * groupTokens) {
+			Parser parser = new Parser(tokens, errors);
+			if (recover) parser.enableRecovery();
+			return (Package) parser.parse();
+		}
+		return parse(tokens, errors, groupTokens, pool, recover);
+	}
+
+	// tokens must not have been read by a parser yet
+	public static Package parse(TokenBuffer tokens, ErrorReporter errors, int groupTokens, ForkJoinPool pool) {
+		return parse(tokens, errors, groupTokens, pool, false);
+	}
+
+	public static Package parse(TokenBuffer tokens, ErrorReporter errors, int groupTokens, ForkJoinPool pool, boolean recover) {
+		tokens.scanAll();
+		int last = tokens.size() - 1; // the end or error token
+
+		// group starts, each the start of a top-level class and at least groupTokens past the previous one
+		List<Integer> bounds = new ArrayList<>();
+		bounds.add(0);
+		int depth = 0;
+		for (int i = 0; i < last; ++i) {
+			TokenType type = tokens.type(i);
+			if (type == TokenType.LCurly) {
+				depth++;
+			} else if (type == TokenType.RCurly) {
+				// an unmatched closing brace cannot start a class, leave the rest to the last group
+				if (--depth < 0) break;
+			} else if (depth == 0 && type == TokenType.Class && i - bounds.get(bounds.size() - 1) >= groupTokens) {
+				bounds.add(i);
+			}
+		}
+		bounds.add(last);
+
+		List<ForkJoinTask<GroupParse>> groups = new ArrayList<>();
+		for (int g = 0; g + 1 < bounds.size(); ++g) {
+			int from = bounds.get(g);
+			int to = bounds.get(g + 1);
+			groups.add(pool.submit(() -> parseGroup(tokens, from, to, recover)));
+		}
+
+		Package astPackage = new Package(new ClassDeclList(), tokens.position(0));
+		int reached = 0;
+		boolean recovered = false;
+		for (int g = 0; g < groups.size(); ++g) {
+			boolean inStep = reached == bounds.get(g);
+			// if the previous group ended elsewhere, continue sequentially from where it did
+			GroupParse group = inStep ? groups.get(g).join() : parseGroup(tokens, reached, last, recover);
+			for (int c = 0; c < group.classDeclList.size(); ++c) astPackage.classDeclList.add(group.classDeclList.get(c));
+			reached = group.end;
+			// scanner errors first, as the sequential parser reports them before a syntax error at the same token
+			tokens.reportErrors(reached, errors);
+			errors.addAll(group.errors);
+			recovered |= group.recovered;
+			if (group.failed) {
+				cancel(groups);
+				return null;
+			}
+			if (!inStep) break;
+		}
+		cancel(groups);
+		return recovered ? null : astPackage;
+	}
+
+	// parses several source files into one package, each file lexed and parsed by its own task (large files are
+	// split further as above). positions are moved into the file's index in sources and the class lists are joined
+	// in file order. every file is parsed up to its own first syntax error, so one bad file does not hide the others
+	public static Package parse(List<SourceBuffer> sources, ErrorReporter errors) {
+		return parse(sources, errors, null, false, false);
+	}
+
+	// as above, reading files from cache (if not null) when it has them and storing the ones parsed without errors
+	// pipelined files are not split, each is parsed sequentially while a scanner thread lexes ahead of the parser
+	public static Package parse(List<SourceBuffer> sources, ErrorReporter errors, ASTCache cache, boolean recover, boolean pipelined) {
+		if (sources.size() > SourcePosition.MAX_FILES)
+			throw new IllegalArgumentException(String.format("at most %d source files can be compiled together", SourcePosition.MAX_FILES));
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		List<ForkJoinTask<FileParse>> files = new ArrayList<>();
+		for (int f = 0; f < sources.size(); ++f) {
+			int file = f;
+			files.add(pool.submit(() -> parseFile(sources.get(file), file, cache, recover, pipelined)));
+		}
+
+		Package astPackage = null;
+		boolean failed = false;
+		for (ForkJoinTask<FileParse> task : files) {
+			FileParse file = task.join();
+			errors.addAll(file.errors);
+			if (file.ast == null) {
+				failed = true;
+			} else if (astPackage == null) {
+				astPackage = file.ast;
+			} else {
+				for (ClassDecl cd : file.ast.classDeclList) astPackage.classDeclList.add(cd);
+			}
+		}
+		if (failed || astPackage == null) return null;
+		// node ids are given once the files are joined, see Package.nodeId
+		astPackage.numberNodes();
+		return astPackage;
+	}
+
+	// parses the files for a one pass compile: only class, field and method headers are parsed, method bodies are
+	// left to be parsed when first read (see Parser.enableLazyBodies) and report their syntax errors into errors.
+	// a file whose headers do not parse is parsed again whole, as bodies skipped before the error could hold
+	// earlier errors. the files are parsed one after the other, cached files are read as flat AST views (their bodies
+	// are also built when first read) and none are stored
+	public static Package parseHeaders(List<SourceBuffer> sources, ErrorReporter errors, ASTCache cache, boolean recover, boolean pipelined) {
+		if (sources.size() > SourcePosition.MAX_FILES)
+			throw new IllegalArgumentException(String.format("at most %d source files can be compiled together", SourcePosition.MAX_FILES));
+		Package astPackage = null;
+		boolean failed = false;
+		for (int file = 0; file < sources.size(); ++file) {
+			Package ast = cache == null ? null : cache.load(sources.get(file), file);
+			if (ast == null) ast = parseFileHeaders(sources.get(file), file, errors, recover, pipelined);
+			if (ast == null) {
+				failed = true;
+			} else if (astPackage == null) {
+				astPackage = ast;
+			} else {
+				for (ClassDecl cd : ast.classDeclList) astPackage.classDeclList.add(cd);
+			}
+		}
+		if (failed || astPackage == null) return null;
+		// method bodies are numbered as they are read (see Matcher.matchMethods)
+		astPackage.numberNodes();
+		return astPackage;
+	}
+
+	private static Package parseFileHeaders(SourceBuffer source, int file, ErrorReporter errors, boolean recover, boolean pipelined) {
+		ErrorReporter headerErrors = new ErrorReporter();
+		TokenBuffer tokens;
+		if (pipelined) {
+			tokens = TokenBuffer.pipelined(new Scanner(source, headerErrors), file);
+		} else {
+			tokens = ParallelLexer.lex(new Scanner(source, headerErrors));
+			tokens.moveToFile(file);
+		}
+		Package ast;
+		try {
+			Parser parser = new Parser(tokens, headerErrors);
+			parser.enableLazyBodies();
+			if (recover) parser.enableRecovery();
+			ast = (Package) parser.parse();
+			parser.reportTo(errors);
+		} finally {
+			// only stops a scanner thread, the bodies are parsed from these tokens later
+			tokens.close();
+		}
+		if (ast == null) {
+			FileParse parse = parseFile(source, file, null, recover, pipelined);
+			errors.addAll(parse.errors);
+		} else {
+			errors.addAll(headerErrors);
+		}
+		return ast;
+	}
+
+	private static FileParse parseFile(SourceBuffer source, int file, ASTCache cache, boolean recover, boolean pipelined) {
+		FileParse parse = new FileParse();
+		if (cache != null) {
+			parse.ast = cache.load(source, file);
+			if (parse.ast != null) return parse;
+		}
+		if (pipelined) {
+			TokenBuffer tokens = TokenBuffer.pipelined(new Scanner(source, parse.errors), file);
+			try {
+				Parser parser = new Parser(tokens, parse.errors);
+				if (recover) parser.enableRecovery();
+				parse.ast = (Package) parser.parse();
+			} finally {
+				tokens.close();
+			}
+		} else {
+			TokenBuffer tokens = ParallelLexer.lex(new Scanner(source, parse.errors));
+			tokens.moveToFile(file);
+			parse.ast = parse(tokens, parse.errors, recover);
+		}
+		if (cache != null && parse.ast != null && !parse.errors.hasErrors()) cache.store(source, parse.ast);
+		return parse;
+	}
+
+	private static GroupParse parseGroup(TokenBuffer tokens, int from, int to, boolean recover) {
+		GroupParse group = new GroupParse();
+		Parser parser = new Parser(tokens, group.errors);
+		if (recover) parser.enableRecovery();
+		try {
+			group.end = parser.parseClasses(from, to, group.classDeclList);
+			group.recovered = parser.hasRecovered();
+		} catch (Parser.SyntaxError e) {
+			group.end = parser.currentIndex();
+			group.failed = true;
+		}
+		return group;
+	}
+
+	private static void cancel(List<ForkJoinTask<GroupParse>> groups) {
+		for (ForkJoinTask<GroupParse> group : groups) group.cancel(false);
+	}
+}
@@ -0,0 +1,128 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// predictive parse table for the push-down parser, computed from the grammar in Symbol on first use
+// predict(A, t) is the production to expand non-terminal A by when the current token is t, null if t cannot follow
+// action symbols derive nothing, so they are skipped when computing FIRST and FOLLOW sets
+// where a token both starts a production and follows an empty one (a dangling else, ref ( as a call rather than
+// the start of a cast term) the production starting with it wins, like the greedy choices of recursive descent
+// where two productions start with the same token the one listed first wins (- after a term is a binary operator)
+class ParseTable {
+	private static final int SYMBOL_COUNT = SymbolType.values().length;
+	private static final int TOKEN_COUNT = TokenType.values().length;
+	private static final TokenType[] tokenTypes = TokenType.values();
+
+	private static final boolean[] nullable = new boolean[SYMBOL_COUNT];
+	private static final boolean[][] first = new boolean[SYMBOL_COUNT][TOKEN_COUNT];
+	private static final boolean[][] follow = new boolean[SYMBOL_COUNT][TOKEN_COUNT];
+	private static final Symbol[][] table = new Symbol[SYMBOL_COUNT * TOKEN_COUNT][];
+
+	static Symbol[] predict(SymbolType symbol, TokenType token) {
+		return table[symbol.ordinal() * TOKEN_COUNT + token.ordinal()];
+	}
+
+	// tokens the non-terminal can be expanded on, in token type order
+	static List<TokenType> expected(SymbolType symbol) {
+		List<TokenType> expected = new ArrayList<>();
+		for (TokenType token : tokenTypes) {
+			if (predict(symbol, token) != null) expected.add(token);
+		}
+		return expected;
+	}
+
+	static {
+		// nullable, FIRST and FOLLOW sets grow until nothing changes
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (SymbolType symbol : SymbolType.values()) {
+				for (Symbol[] production : Symbol.getProductions(symbol)) {
+					int a = symbol.ordinal();
+					if (!nullable[a] && sequenceNullable(production, 0)) {
+						nullable[a] = true;
+						changed = true;
+					}
+					changed |= sequenceFirst(production, 0, first[a]);
+				}
+			}
+		}
+		changed = true;
+		while (changed) {
+			changed = false;
+			for (SymbolType symbol : SymbolType.values()) {
+				for (Symbol[] production : Symbol.getProductions(symbol)) {
+					for (int i = 0; i < production.length; ++i) {
+						if (production[i].isTerminal() || production[i].isAction()) continue;
+						boolean[] target = follow[production[i].getSymbolType().ordinal()];
+						changed |= sequenceFirst(production, i + 1, target);
+						if (sequenceNullable(production, i + 1)) changed |= union(target, follow[symbol.ordinal()]);
+					}
+				}
+			}
+		}
+
+		// fill the table, remembering which entries only hold because the production is empty
+		boolean[] emptyEntry = new boolean[table.length];
+		for (SymbolType symbol : SymbolType.values()) {
+			for (Symbol[] production : Symbol.getProductions(symbol)) {
+				boolean[] starts = new boolean[TOKEN_COUNT];
+				sequenceFirst(production, 0, starts);
+				boolean empty = sequenceNullable(production, 0);
+				for (int t = 0; t < TOKEN_COUNT; ++t) {
+					int entry = symbol.ordinal() * TOKEN_COUNT + t;
+					if (starts[t]) {
+						// an earlier production starting with t keeps the entry
+						if (table[entry] != null && !emptyEntry[entry]) continue;
+						table[entry] = production;
+						emptyEntry[entry] = false;
+					} else if (empty && follow[symbol.ordinal()][t]) {
+						if (table[entry] == null) {
+							table[entry] = production;
+							emptyEntry[entry] = true;
+						} else if (emptyEntry[entry]) {
+							throw new IllegalStateException(String.format("ambiguous grammar: %s has two empty productions followed by %s", symbol, tokenTypes[t]));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean sequenceNullable(Symbol[] sequence, int start) {
+		for (int i = start; i < sequence.length; ++i) {
+			if (sequence[i].isAction()) continue;
+			if (sequence[i].isTerminal() || !nullable[sequence[i].getSymbolType().ordinal()]) return false;
+		}
+		return true;
+	}
+
+	// adds FIRST of sequence[start:] to target, returns whether target changed
+	private static boolean sequenceFirst(Symbol[] sequence, int start, boolean[] target) {
+		boolean changed = false;
+		for (int i = start; i < sequence.length; ++i) {
+			Symbol symbol = sequence[i];
+			if (symbol.isAction()) continue;
+			if (symbol.isTerminal()) {
+				changed |= !target[symbol.getTerminalType().ordinal()];
+				target[symbol.getTerminalType().ordinal()] = true;
+				return changed;
+			}
+			changed |= union(target, first[symbol.getSymbolType().ordinal()]);
+			if (!nullable[symbol.getSymbolType().ordinal()]) return changed;
+		}
+		return changed;
+	}
+
+	private static boolean union(boolean[] target, boolean[] source) {
+		boolean changed = false;
+		for (int t = 0; t < TOKEN_COUNT; ++t) {
+			if (source[t] && !target[t]) {
+				target[t] = true;
+				changed = true;
+			}
+		}
+		return changed;
+	}
+}
@@ -6,6 +6,7 @@ import miniJava.ErrorReporter;
 
 import javax.xml.transform.Source;
 import java.util.*;
+import java.util.function.Consumer;
 
 /* NOTE: Includes two different approaches
    - push-down mode (default): uses a push-down automata to match tokens
@@ -15,19 +16,16 @@ import java.util.*;
 public class Parser {
 	public static enum Mode { PushDown, RecursiveDescent }
 	private static class UnitTestData {
-		public final List<Token> tokenList;
+		public final TokenBuffer tokens;
+		public int tokenCount; // tokens consumed by the parser (lookahead excluded)
 		public final List<String> outputLines;
 		private final ErrorReporter errors;
-		UnitTestData(ErrorReporter errors) {
-			tokenList = new ArrayList<>();
+		UnitTestData(TokenBuffer tokens, ErrorReporter errors) {
+			this.tokens = tokens;
 			outputLines = new ArrayList<>();
 			this.errors = errors;
 		}
 
-		public void insertToken(Token token) {
-			tokenList.add(token);
-		}
-
 		public void addOutputLine(String line) {
 			outputLines.add(line);
 		}
@@ -42,8 +40,8 @@ public class Parser {
 				separator = sb.toString();
 			}
 			output.add(separator + " Tokens " + separator);
-			for (Token token : tokenList) {
-				output.add(String.format("%d:%d %s{%s}", token.getLine(), token.getOffset(), token.getTokenType(), token.getTokenText()));
+			for (int i = 0; i < tokenCount; ++i) {
+				output.add(String.format("%d:%d %s{%s}", tokens.line(i), tokens.offset(i), tokens.type(i), tokens.text(i)));
 			}
 			output.add(separator + " Debug " + separator);
 			output.addAll(outputLines);
@@ -54,26 +52,56 @@ public class Parser {
 		}
 	}
 
-	private Scanner scanner;
+	private TokenBuffer tokens;
+	private int currIndex = -1; // index of the current token in tokens
 	private ErrorReporter errors;
-	private Token currToken;
 	private boolean unitTest;
 	private Mode mode;
 	private UnitTestData testData;
+	private List<Object> values; // value stack of the push-down parser
+	private boolean holdScannerErrors; // leave scanner errors in tokens for the caller to report
+	private boolean lazyBodies; // skip method bodies by brace matching, parsing them when first used
+	private boolean recovering; // resume after syntax errors instead of stopping at the first
+	private boolean recovered; // a syntax error was recovered from, so the AST is incomplete
+	private int negatedLiteral = -1; // index of the token after the last unary minus, where 2^31 and 2^63 are in range
 
-	public Parser(Scanner scanner, ErrorReporter errors, Mode mode) {
+	public Parser(TokenBuffer tokens, ErrorReporter errors, Mode mode) {
 		this.unitTest = false;
-		this.scanner = scanner;
+		this.tokens = tokens;
 		this.errors = errors;
 		this.mode = mode;
 	}
+	public Parser(TokenBuffer tokens, ErrorReporter errors) {
+		this(tokens, errors, Mode.RecursiveDescent);
+	}
+	public Parser(Scanner scanner, ErrorReporter errors, Mode mode) {
+		this(new TokenBuffer(scanner), errors, mode);
+	}
 	public Parser(Scanner scanner, ErrorReporter errors) {
 		this(scanner, errors, Mode.RecursiveDescent);
 	}
 
 	public void enableUnitTest() {
 		unitTest = true;
-		testData = new UnitTestData(errors);
+		testData = new UnitTestData(tokens, errors);
+	}
+
+	// method bodies are left unparsed until a later phase first reads their statements (recursive descent only)
+	// a body's syntax errors are then reported when it is parsed, and its statements end at the first one
+	public void enableLazyBodies() {
+		lazyBodies = true;
+	}
+
+	// panic mode recovery (recursive descent only): after a syntax error the parser skips to the next statement,
+	// member or class and carries on, so one parse reports every independent syntax error. parse still returns
+	// null if there were any. an error token from the scanner still ends the parse, nothing can be scanned past it
+	public void enableRecovery() {
+		recovering = true;
+	}
+
+	// where errors found from now on are reported, including those of method bodies parsed later
+	void reportTo(ErrorReporter errors) {
+		this.errors = errors;
 	}
 
 	public String getTestOutput() {
@@ -81,87 +109,446 @@ public class Parser {
 		return testData.toString();
 	}
 
-	static class SyntaxError extends Error {
+	// only unwinds the parse to where it stops or recovers (the error itself is reported before it is thrown),
+	// so a single preallocated instance without a stack trace serves every throw
+	static final class SyntaxError extends Error {
 		private static final long serialVersionUID = -6461942006097999362L;
+		static final SyntaxError INSTANCE = new SyntaxError();
+
+		private SyntaxError() {
+			super(null, null, false, false);
+		}
 	}
 
 	public void debugPrintTokens() {
 		try {
-			while (currToken.getTokenType() != TokenType.End) {
-				System.out.println(String.format("%d:%d %s %s", currToken.getLine(), currToken.getOffset(), currToken.getTokenType(), currToken.getTokenText()));
+			while (currType() != TokenType.End) {
+				System.out.println(String.format("%d:%d %s %s", tokens.line(currIndex), tokens.offset(currIndex), currType(), currText()));
 				nextToken();
 			}
-			System.out.println(currToken.getTokenType() + " " + currToken.getTokenText());
+			System.out.println(currType() + " " + currText());
 		} catch (SyntaxError e) { }
 	}
 
 	public AST parse() {
 		try {
 			switch (mode) {
-				case PushDown: parseGrammar(); return null;
+				case PushDown: return parseGrammar();
 				case RecursiveDescent: return parseProgram();
 			}
 		} catch( SyntaxError e ) { }
 		return null;
 	}
 
-	private void applyProductions(Queue<SymbolStack> stateQueue, List<TokenType> expectedTerminals, SymbolStack state) {
-		Symbol top = state.top();
-		if (top.isTerminal()) {
-			if (top.getTerminalType() == currToken.getTokenType()) {
-				stateQueue.add(state.handleTerminal());
+	// table driven LL(1) parse of the grammar in Symbol, building the same AST as recursive descent
+	// the parse stack holds the symbols still to be matched, actions on it build nodes on the value stack
+	private Package parseGrammar() throws SyntaxError {
+		nextToken();
+		values = new ArrayList<>();
+		SymbolStack stack = new SymbolStack(new Symbol[] { Symbol.getSymbol(SymbolType.Program) });
+		while (stack.size() != 0) {
+			Symbol top = stack.top();
+			if (top.isAction()) {
+				stack = stack.handleAction();
+				applyAction(top.getActionType());
+			} else if (top.isTerminal()) {
+				if (top.getTerminalType() != currType()) reportUnexpectedToken(List.of(top.getTerminalType()));
+				stack = stack.handleTerminal();
+				if (top.getTerminalType() != TokenType.End) nextToken();
 			} else {
-				expectedTerminals.add(top.getTerminalType());
+				Symbol[] production = ParseTable.predict(top.getSymbolType(), currType());
+				if (production == null) reportUnexpectedToken(ParseTable.expected(top.getSymbolType()));
+				stack = stack.handleProduction(production);
 			}
-			return;
 		}
-		for (Symbol[] prod : Symbol.getProductions(top.getSymbolType())) {
-			applyProductions(stateQueue, expectedTerminals, state.handleProduction(prod));
+		Package astPackage = (Package) pop();
+		values = null;
+		return astPackage;
+	}
+
+	private void reportUnexpectedToken(List<TokenType> expectedTerminals) throws SyntaxError {
+		String[] expectedTerminalsStrArr = new String[expectedTerminals.size()];
+		int i = 0;
+		for (TokenType token : expectedTerminals) {
+			expectedTerminalsStrArr[i++] = "{" + token.toString() + "}";
 		}
+		if (expectedTerminalsStrArr.length > 1) expectedTerminalsStrArr[expectedTerminalsStrArr.length-1] = "or " + expectedTerminalsStrArr[expectedTerminalsStrArr.length-1];
+		errors.reportError(currPosition(), String.format("Unexpected Token: Expected %s, but instead got {%s} matching the following text: \"%s\"", String.join(expectedTerminalsStrArr.length > 2 ? ", " : " ", expectedTerminalsStrArr), currType(), currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
-	private void parseGrammar() throws SyntaxError {
-		Queue<SymbolStack> stateQueue = new LinkedList<>();
-		stateQueue.add(new SymbolStack(new Symbol[] { Symbol.getSymbol(SymbolType.Program) }, 0, 0));
-		List<TokenType> expectedTerminals = new ArrayList<>();
-		while (!currTokenMatches(TokenType.End)) {
-			nextToken();
-			if (stateQueue.isEmpty()) {
-				Collections.sort(expectedTerminals);
-				String[] expectedTerminalsStrArr = new String[expectedTerminals.size()];
-				int i = 0;
-				for (TokenType token : expectedTerminals) {
-					expectedTerminalsStrArr[i++] = "{" + token.toString() + "}";
-				}
-				if (expectedTerminalsStrArr.length > 1) expectedTerminalsStrArr[expectedTerminalsStrArr.length-1] = "or " + expectedTerminalsStrArr[expectedTerminalsStrArr.length-1];
-				errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Unexpected Token: Expected %s, but instead got {%s} matching the following text: \"%s\"", String.join(expectedTerminalsStrArr.length > 2 ? ", " : " ", expectedTerminalsStrArr), currToken.getTokenType(), currToken.getTokenText()));
-				throw new SyntaxError();
-			}
-			expectedTerminals.clear();
-			for (int qi = stateQueue.size(); qi > 0; qi--) {
-				applyProductions(stateQueue, expectedTerminals, stateQueue.poll());
-			}
+	// expr (binop expr)* chain folded into a tree by operator precedence as it is read (shunting yard)
+	// all binary operators are left associative, so an operator first reduces every pending operator binding at
+	// least as tightly; pending operators then strictly loosen from the top down, so the stacks never grow past
+	// one entry per precedence level however long the chain is
+	private static class ExpressionChain {
+		private final Expression[] operands = new Expression[Operator.precedenceLevelCount + 1];
+		private final Operator[] operators = new Operator[Operator.precedenceLevelCount];
+		private int pending; // operators waiting for their right operand
+
+		// term followed by binOp
+		void add(Expression term, Operator binOp) {
+			operands[pending] = term;
+			reduce(Operator.precedence(binOp.kind));
+			operators[pending++] = binOp;
 		}
-		// check state queue for valid ending
-		boolean foundEnd = false;
-		for (SymbolStack symbolStack : stateQueue) {
-			if (symbolStack.stack.length == 1 && symbolStack.top().isTerminal() && symbolStack.top().getTerminalType() == TokenType.ParseEnd)
-				foundEnd = true;
+
+		// last term of the chain, returns the whole expression
+		Expression end(Expression term) {
+			operands[pending] = term;
+			reduce(Operator.precedenceLevelCount);
+			return operands[0];
 		}
-		if (!foundEnd) {
-			errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Unexpected End of File"));
-			throw new SyntaxError();
+
+		// fold pending operators with precedence level at most p into the operand below them
+		private void reduce(int p) {
+			while (pending > 0 && Operator.precedence(operators[pending - 1].kind) <= p) {
+				Operator op = operators[--pending];
+				Expression left = operands[pending];
+				operands[pending] = new BinaryExpr(op, left, operands[pending + 1], left.posn);
+			}
+		}
+	}
+
+	private void push(Object value) {
+		values.add(value);
+	}
+
+	private Object pop() {
+		return values.remove(values.size() - 1);
+	}
+
+	private Object peek() {
+		return values.get(values.size() - 1);
+	}
+
+	// the current token is the first token after the action in the production
+	private void applyAction(ActionType action) throws SyntaxError {
+		switch (action) {
+			// declarations
+			case Package: push(new Package(new ClassDeclList(), currPosition())); break;
+			case Class: push(new ClassDecl("", new FieldDeclList(), new MethodDeclList(), currPosition())); break;
+			case ClassName: ((ClassDecl) peek()).name = currText(); break;
+			case Parent: ((ClassDecl) peek()).parent = identifier(currIndex); break;
+			case AddClass: {
+				ClassDecl classDecl = (ClassDecl) pop();
+				((Package) peek()).classDeclList.add(classDecl);
+			} break;
+			case Member: push(new FieldDecl(false, false, null, null, currPosition())); break;
+			case Visibility: ((FieldDecl) peek()).isPrivate = currText().equals("private"); break;
+			case Static: ((FieldDecl) peek()).isStatic = true; break;
+			case Void: ((FieldDecl) peek()).type = new BaseType(TypeKind.VOID, currPosition()); break;
+			case MemberType: {
+				TypeDenoter type = (TypeDenoter) pop();
+				((FieldDecl) peek()).type = type;
+			} break;
+			case MemberName: ((FieldDecl) peek()).name = currText(); break;
+			case AddField: {
+				FieldDecl fieldDecl = (FieldDecl) pop();
+				((ClassDecl) peek()).fieldDeclList.add(fieldDecl);
+			} break;
+			case Method: {
+				FieldDecl fieldDecl = (FieldDecl) pop();
+				push(new MethodDecl(fieldDecl, new ParameterDeclList(), new StatementList(), fieldDecl.posn));
+			} break;
+			case Parameter: push(new ParameterDecl(null, null, currPosition())); break;
+			case ParameterName: {
+				TypeDenoter type = (TypeDenoter) pop();
+				ParameterDecl parameterDecl = (ParameterDecl) pop();
+				parameterDecl.type = type;
+				parameterDecl.name = currText();
+				((MethodDecl) peek()).parameterDeclList.add(parameterDecl);
+			} break;
+			case MethodBody: push(((MethodDecl) peek()).statementList); break;
+			case AddMethod: {
+				pop(); // method body
+				MethodDecl methodDecl = (MethodDecl) pop();
+				((ClassDecl) peek()).methodDeclList.add(methodDecl);
+			} break;
+
+			// types
+			case BaseType: push(new BaseType(baseTypeKind(currType()), currPosition())); break;
+			case ClassType: push(new ClassType(identifier(currIndex), currPosition())); break;
+			case ArrayType: {
+				TypeDenoter type = (TypeDenoter) pop();
+				push(new ArrayType(type, type.posn));
+			} break;
+
+			// statements
+			case Position: push(currPosition()); break;
+			case Token: push(currIndex); break;
+			case TokenClassType: {
+				int id = (Integer) pop();
+				push(new ClassType(identifier(id), tokens.position(id)));
+			} break;
+			case TokenArrayType: {
+				int id = (Integer) pop();
+				push(new ArrayType(new ClassType(identifier(id), tokens.position(id)), tokens.position(id)));
+			} break;
+			case TokenIdRef: {
+				int id = (Integer) pop();
+				push(new IdRef(identifier(id), tokens.position(id)));
+			} break;
+			case StatementList: push(new StatementList()); break;
+			case AddStatement: {
+				Statement statement = (Statement) pop();
+				((StatementList) peek()).add(statement);
+			} break;
+			case Block: {
+				StatementList stmtList = (StatementList) pop();
+				push(new BlockStmt(stmtList, (Long) pop()));
+			} break;
+			case VarDecl: {
+				Expression assignExpr = (Expression) pop();
+				int id = (Integer) pop();
+				TypeDenoter type = (TypeDenoter) pop();
+				push(new VarDeclStmt(new VarDecl(type, tokens.text(id), tokens.position(id)), assignExpr, (Long) pop()));
+			} break;
+			case Assign: {
+				Expression assignExpr = (Expression) pop();
+				Reference ref = (Reference) pop();
+				push(new AssignStmt(ref, assignExpr, (Long) pop()));
+			} break;
+			case IndexedAssign: {
+				Expression assignExpr = (Expression) pop();
+				Expression ixExpr = (Expression) pop();
+				Reference ref = (Reference) pop();
+				push(new IxAssignStmt(ref, ixExpr, assignExpr, (Long) pop()));
+			} break;
+			case Call: {
+				ExprList argList = (ExprList) pop();
+				Reference ref = (Reference) pop();
+				push(new CallStmt(ref, argList, (Long) pop()));
+			} break;
+			case Return: {
+				Expression expr = (Expression) pop();
+				push(new ReturnStmt(expr, (Long) pop()));
+			} break;
+			case If: {
+				Statement ifBodyStmt = (Statement) pop();
+				Expression condExpr = (Expression) pop();
+				push(new IfStmt(condExpr, ifBodyStmt, (Long) pop()));
+			} break;
+			case IfElse: {
+				Statement elseBodyStmt = (Statement) pop();
+				Statement ifBodyStmt = (Statement) pop();
+				Expression condExpr = (Expression) pop();
+				push(new IfStmt(condExpr, ifBodyStmt, elseBodyStmt, (Long) pop()));
+			} break;
+			case While: {
+				Statement whileBodyStmt = (Statement) pop();
+				Expression condExpr = (Expression) pop();
+				push(new WhileStmt(condExpr, whileBodyStmt, (Long) pop()));
+			} break;
+			case For: {
+				Statement body = (Statement) pop();
+				Statement incrStmt = (Statement) pop();
+				Expression condExpr = (Expression) pop();
+				Statement initStmt = (Statement) pop();
+				push(new ForStmt(initStmt, condExpr, incrStmt, body, (Long) pop()));
+			} break;
+			case None: push(null); break;
+
+			// references
+			case IdRef: push(new IdRef(identifier(currIndex), currPosition())); break;
+			case This: push(new ThisRef(currPosition())); break;
+			case Super: push(new SuperRef(currPosition())); break;
+			case Qualify: {
+				Reference ref = (Reference) pop();
+				push(new QualRef(ref, identifier(currIndex), ref.posn));
+			} break;
+			case Arguments: push(new ExprList()); break;
+			case AddArgument: {
+				Expression arg = (Expression) pop();
+				((ExprList) peek()).add(arg);
+			} break;
+
+			// expressions
+			case Chain: push(new ExpressionChain()); break;
+			case InstanceOf: {
+				Expression term = (Expression) pop();
+				push(new InstanceOfExpr(term, new ClassType(identifier(currIndex), term.posn), term.posn));
+			} break;
+			case Operator: {
+				Expression term = (Expression) pop();
+				((ExpressionChain) peek()).add(term, new Operator(currType(), currText(), currPosition()));
+			} break;
+			case CastTarget: {
+				// only a plain id can be retroactively read as the type of a cast
+				Expression term = (Expression) peek();
+				if (!(term instanceof RefExpr && ((RefExpr) term).ref instanceof IdRef)) {
+					errors.reportError(currPosition(), String.format("Expected binary operator or end of expression, but got %s", currText()));
+					throw SyntaxError.INSTANCE;
+				}
+			} break;
+			case Cast: {
+				Expression castExpr = (Expression) pop();
+				Expression term = (Expression) pop();
+				Identifier id = ((IdRef) ((RefExpr) term).ref).id;
+				push(new CastExpr(new ClassType(id, id.posn), castExpr, term.posn));
+			} break;
+			case EndChain: {
+				Expression term = (Expression) pop();
+				push(((ExpressionChain) pop()).end(term));
+			} break;
+			case RefExpr: {
+				Reference ref = (Reference) pop();
+				push(new RefExpr(ref, ref.posn));
+			} break;
+			case IndexExpr: {
+				Expression ixExpr = (Expression) pop();
+				Reference ref = (Reference) pop();
+				push(new IxExpr(ref, ixExpr, ref.posn));
+			} break;
+			case CallExpr: {
+				ExprList argList = (ExprList) pop();
+				Reference ref = (Reference) pop();
+				push(new CallExpr(ref, argList, ref.posn));
+			} break;
+			case UnaryOperator:
+				if (currType() == TokenType.Minus) negatedLiteral = currIndex + 1;
+				push(new Operator(currType(), currText(), currPosition()));
+				break;
+			case Unary: {
+				Expression nestedExpr = (Expression) pop();
+				Operator op = (Operator) pop();
+				push(new UnaryExpr(op, nestedExpr, op.posn));
+			} break;
+			case Parenthesized: {
+				Expression expr = (Expression) pop();
+				pop(); // position of (
+				push(expr);
+			} break;
+			case TypeCast: {
+				Expression expr = (Expression) pop();
+				TypeDenoter type = (TypeDenoter) pop();
+				push(new CastExpr(type, expr, (Long) pop()));
+			} break;
+			case Literal: push(new LiteralExpr(literal(currIndex), currPosition())); break;
+			case NewObject: {
+				ClassType type = (ClassType) pop();
+				push(new NewObjectExpr(type, (Long) pop()));
+			} break;
+			case NewArray: {
+				Expression sizeExpr = (Expression) pop();
+				TypeDenoter type = (TypeDenoter) pop();
+				push(new NewArrayExpr(type, sizeExpr, (Long) pop()));
+			} break;
 		}
 	}
 
 	// Program ::= (ClassDeclaration)* eot
 	private Package parseProgram() throws SyntaxError {
 		nextToken();
-		Package astPackage = new Package(new ClassDeclList(), currToken.getTokenPosition());
-		while (currToken.getTokenType() != TokenType.End) {
-			astPackage.classDeclList.add(parseClassDeclaration());
+		Package astPackage = new Package(new ClassDeclList(), currPosition());
+		while (currType() != TokenType.End) {
+			parseClassDeclaration(astPackage.classDeclList);
+		}
+		return recovered ? null : astPackage;
+	}
+
+	// class declarations from token index from, until parsing reaches index to or the end of input
+	// returns the index reached, on a syntax error currentIndex() is where parsing stopped
+	// used by ParallelParser, which reports the held back scanner errors itself
+	int parseClasses(int from, int to, ClassDeclList classDeclList) throws SyntaxError {
+		holdScannerErrors = true;
+		currIndex = from - 1;
+		nextToken();
+		while (currIndex < to && currType() != TokenType.End) {
+			parseClassDeclaration(classDeclList);
+		}
+		return currIndex;
+	}
+
+	int currentIndex() {
+		return currIndex;
+	}
+
+	// whether a syntax error was recovered from, so the classes parsed are incomplete
+	boolean hasRecovered() {
+		return recovered;
+	}
+
+	// adds the next class declaration to classDeclList, or when recovering from a syntax error in it, skips to
+	// the next class keyword outside any braces opened since the error
+	private void parseClassDeclaration(ClassDeclList classDeclList) throws SyntaxError {
+		int start = currIndex;
+		try {
+			classDeclList.add(parseClassDeclaration());
+		} catch (SyntaxError e) {
+			recover(e, start);
+			int depth = 0;
+			while (!currTokenMatches(TokenType.End) && !(depth <= 0 && currTokenMatches(TokenType.Class))) {
+				if (currTokenMatches(TokenType.LCurly)) depth++;
+				else if (currTokenMatches(TokenType.RCurly)) depth--;
+				nextToken();
+			}
+		}
+	}
+
+	// called with a syntax error caught where the parse can resume, rethrows it unless recovering
+	// nothing follows an end or error token to resume at. otherwise at least one token is skipped, so a token
+	// no rule accepts cannot stall the parse
+	private void recover(SyntaxError e, int start) throws SyntaxError {
+		if (!recovering || currTokenMatches(TokenType.End) || currTokenMatches(TokenType.Error)) throw e;
+		recovered = true;
+		if (currIndex == start) nextToken();
+	}
+
+	// skips the rest of a statement or member with a syntax error: to just past the next ; outside any
+	// parentheses and braces opened since the error or the next brace block, or to just before a } closing an
+	// enclosing block, method body or class
+	private void skipToBoundary() throws SyntaxError {
+		int braces = 0;
+		int parens = 0;
+		while (!currTokenMatches(TokenType.End)) {
+			switch (currType()) {
+				case Semicolon:
+					if (braces == 0 && parens <= 0) {
+						nextToken();
+						return;
+					}
+					break;
+				case LParen:
+					parens++;
+					break;
+				case RParen:
+					parens--;
+					break;
+				case LCurly:
+					braces++;
+					break;
+				case RCurly:
+					if (braces == 0) return;
+					if (--braces == 0) {
+						nextToken();
+						return;
+					}
+					break;
+			}
+			nextToken();
+		}
+	}
+
+	// Statement* up to the } closing the block or method body, which is left for the caller
+	// when recovering, a statement with a syntax error is skipped, as is a token that cannot start one
+	private void parseStatements(Consumer<Statement> statements) throws SyntaxError {
+		while (true) {
+			int start = currIndex;
+			try {
+				Statement statement = parseOptionalStatement();
+				if (statement == null) {
+					// the caller expects } next, report the stray token as it would but resume after it
+					if (recovering && !currTokenMatches(TokenType.RCurly) && !currTokenMatches(TokenType.End) && !currTokenMatches(TokenType.Error))
+						accept(TokenType.RCurly);
+					return;
+				}
+				statements.accept(statement);
+			} catch (SyntaxError e) {
+				recover(e, start);
+				skipToBoundary();
+			}
 		}
-		return astPackage;
 	}
 
 	// ClassDeclaration ::= class id (extends id)? { (FieldDeclaration|MethodDeclaration)* }
@@ -170,83 +557,111 @@ public class Parser {
 	// Visibility ::= (public|private)?
 	// Access ::= static?
 	private ClassDecl parseClassDeclaration() throws SyntaxError {
-		ClassDecl classDecl = new ClassDecl("", new FieldDeclList(), new MethodDeclList(), currToken.getTokenPosition());
+		ClassDecl classDecl = new ClassDecl("", new FieldDeclList(), new MethodDeclList(), currPosition());
 		accept(TokenType.Class);
-		classDecl.name = currToken.getTokenText();
+		classDecl.name = currText();
 		accept(TokenType.Identifier);
 		if (optionalAccept(TokenType.Extends)) {
-			classDecl.parent = new Identifier(currToken);
+			classDecl.parent = identifier(currIndex);
 			accept(TokenType.Identifier);
 		}
 		accept(TokenType.LCurly);
 		while (!currTokenMatches(TokenType.RCurly)) {
-			// either method or field
-			FieldDecl fieldDecl = new FieldDecl(false, false, null, null, currToken.getTokenPosition());
-			fieldDecl.isPrivate = currToken.getTokenText().equals("private") & optionalAccept(TokenType.Visibility);
-			fieldDecl.isStatic = optionalAccept(TokenType.Static);
-			boolean method = false;
-			TypeDenoter typeDenoter;
-			if (currTokenMatches(TokenType.VoidType)) {
-				fieldDecl.type = new BaseType(TypeKind.VOID, currToken.getTokenPosition());
-				nextToken();
-				method = true;
-			} else fieldDecl.type = parseType();
-			fieldDecl.name = currToken.getTokenText();
-			accept(TokenType.Identifier);
-			if (!method && optionalAccept(TokenType.Semicolon)) {
-				classDecl.fieldDeclList.add(fieldDecl);
-				continue;
-			}
-
-			// is a method
-			MethodDecl methodDecl = new MethodDecl(fieldDecl, new ParameterDeclList(), new StatementList(), fieldDecl.posn);
-			accept(TokenType.LParen);
-			if (!currTokenMatches(TokenType.RParen)) methodDecl.parameterDeclList = parseParameterList();
-			accept(TokenType.RParen, TokenType.LCurly);
-			Statement statement = parseOptionalStatement();
-			while (statement != null) {
-				methodDecl.statementList.add(statement);
-				statement = parseOptionalStatement();
+			int start = currIndex;
+			try {
+				parseMemberDeclaration(classDecl);
+			} catch (SyntaxError e) {
+				recover(e, start);
+				skipToBoundary();
 			}
-			accept(TokenType.RCurly);
-			classDecl.methodDeclList.add(methodDecl);
 		}
 		accept(TokenType.RCurly);
 		return classDecl;
 	}
 
+	// adds the field or method declaration starting at the current token to classDecl
+	private void parseMemberDeclaration(ClassDecl classDecl) throws SyntaxError {
+		// either method or field
+		FieldDecl fieldDecl = new FieldDecl(false, false, null, null, currPosition());
+		fieldDecl.isPrivate = currText().equals("private") & optionalAccept(TokenType.Visibility);
+		fieldDecl.isStatic = optionalAccept(TokenType.Static);
+		boolean method = false;
+		if (currTokenMatches(TokenType.VoidType)) {
+			fieldDecl.type = new BaseType(TypeKind.VOID, currPosition());
+			nextToken();
+			method = true;
+		} else fieldDecl.type = parseType();
+		fieldDecl.name = currText();
+		accept(TokenType.Identifier);
+		if (!method && optionalAccept(TokenType.Semicolon)) {
+			classDecl.fieldDeclList.add(fieldDecl);
+			return;
+		}
+
+		// is a method
+		MethodDecl methodDecl = new MethodDecl(fieldDecl, new ParameterDeclList(), new StatementList(), fieldDecl.posn);
+		accept(TokenType.LParen);
+		if (!currTokenMatches(TokenType.RParen)) methodDecl.parameterDeclList = parseParameterList();
+		accept(TokenType.RParen, TokenType.LCurly);
+		int bodyEnd = lazyBodies ? matchingRCurly(currIndex - 1) : -1;
+		if (bodyEnd >= 0) {
+			// skip to the closing brace, scanner errors inside the body are still reported here
+			int bodyStart = currIndex;
+			methodDecl.statementList = new StatementList(() -> parseLazyBody(bodyStart));
+			currIndex = bodyEnd - 1;
+			nextToken();
+		} else {
+			parseStatements(methodDecl.statementList::add);
+		}
+		accept(TokenType.RCurly);
+		classDecl.methodDeclList.add(methodDecl);
+	}
+
+	// index of the } matching the { at index, -1 if input ends first (the body is then parsed right away)
+	private int matchingRCurly(int index) {
+		int depth = 0;
+		for (int i = index; ; ++i) {
+			switch (tokens.type(i)) {
+				case LCurly:
+					depth++;
+					break;
+				case RCurly:
+					if (--depth == 0) return i;
+					break;
+				case End:
+				case Error:
+					return -1;
+			}
+		}
+	}
+
+	// Statement* of a method body skipped by the parser at token index start
+	private List<Statement> parseLazyBody(int start) {
+		Parser parser = new Parser(tokens, errors);
+		parser.holdScannerErrors = true;
+		parser.recovering = recovering;
+		parser.currIndex = start - 1;
+		List<Statement> statements = new ArrayList<>();
+		try {
+			parser.nextToken();
+			parser.parseStatements(statements::add);
+			parser.accept(TokenType.RCurly);
+		} catch (SyntaxError e) { }
+		return statements;
+	}
+
 	// Type ::= (int | boolean | ... | id)([])?
 	private TypeDenoter parseOptionalType() {
 		// get type
-		SourcePosition typePosition = currToken.getTokenPosition();
-		TypeKind type = null;
-		switch (currToken.getTokenType()) {
-			case BooleanType:
-				type = TypeKind.BOOLEAN;
-				break;
-			case IntType:
-				type = TypeKind.INT;
-				break;
-			case LongType:
-				type = TypeKind.LONG;
-				break;
-			case FloatType:
-				type = TypeKind.FLOAT;
-				break;
-			case DoubleType:
-				type = TypeKind.DOUBLE;
-				break;
-			case CharType:
-				type = TypeKind.CHAR;
-				break;
-		}
+		long typePosition = currPosition();
+		TypeKind type = baseTypeKind(currType());
 		TypeDenoter typeDenoter;
 		if (type != null) {
 			// base type
 			typeDenoter = new BaseType(type, typePosition);
 		} else if (currTokenMatches(TokenType.Identifier)) {
 			// class type
-			typeDenoter = new ClassType(new Identifier(currToken), typePosition);
+			typeDenoter = new ClassType(identifier(currIndex), typePosition);
 		} else return null; // unknown type
 		nextToken();
 
@@ -258,20 +673,33 @@ public class Parser {
 		return typeDenoter;
 	}
 
+	// kind of a primitive type keyword, null if the token is not one
+	private static TypeKind baseTypeKind(TokenType tokenType) {
+		switch (tokenType) {
+			case BooleanType: return TypeKind.BOOLEAN;
+			case IntType: return TypeKind.INT;
+			case LongType: return TypeKind.LONG;
+			case FloatType: return TypeKind.FLOAT;
+			case DoubleType: return TypeKind.DOUBLE;
+			case CharType: return TypeKind.CHAR;
+			default: return null;
+		}
+	}
+
 	private TypeDenoter parseType() throws SyntaxError {
 		TypeDenoter typeDenoter = parseOptionalType();
 		if (typeDenoter != null) return typeDenoter;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected type, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected type, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	// ParameterList ::= Type id (, Type id)*
 	private ParameterDeclList parseParameterList() throws SyntaxError {
 		ParameterDeclList parameterDeclList = new ParameterDeclList();
 		do {
-			ParameterDecl parameterDecl = new ParameterDecl(null, null, currToken.getTokenPosition());
+			ParameterDecl parameterDecl = new ParameterDecl(null, null, currPosition());
 			parameterDecl.type = parseType();
-			parameterDecl.name = currToken.getTokenText();
+			parameterDecl.name = currText();
 			accept(TokenType.Identifier);
 			parameterDeclList.add(parameterDecl);
 		} while (optionalAccept(TokenType.Comma));
@@ -292,23 +720,23 @@ public class Parser {
 	private ExprList parseArgumentList() throws SyntaxError {
 		ExprList argList = parseOptionalArgumentList();
 		if (argList != null) return argList;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected expression, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected expression, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	// Reference ::= id | this | super | Reference . id
 	private Reference parseOptionalReference() throws SyntaxError {
 		Reference ref;
 		if (currTokenMatches(TokenType.Identifier))
-			ref = new IdRef(new Identifier(currToken), currToken.getTokenPosition());
+			ref = new IdRef(identifier(currIndex), currPosition());
 		else if (currTokenMatches(TokenType.This))
-			ref = new ThisRef(currToken.getTokenPosition());
+			ref = new ThisRef(currPosition());
 		else if (currTokenMatches(TokenType.Super))
-			ref = new SuperRef(currToken.getTokenPosition());
+			ref = new SuperRef(currPosition());
 		else return null;
 		nextToken();
 		while (optionalAccept(TokenType.Dot)) {
-			ref = new QualRef(ref, new Identifier(currToken), ref.posn);
+			ref = new QualRef(ref, identifier(currIndex), ref.posn);
 			accept(TokenType.Identifier);
 		}
 		return ref;
@@ -316,8 +744,8 @@ public class Parser {
 	private Reference parseReference() throws SyntaxError {
 		Reference ref = parseOptionalReference();
 		if (ref != null) return ref;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected reference, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected reference, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	// Statement ::=
@@ -330,45 +758,31 @@ public class Parser {
 	//     | if \( Expression \) Statement (else Statement)?
 	//     | while \( Expression \) Statement
 	private Statement parseOptionalStatement(boolean isShort) {
-		SourcePosition stmtPos = currToken.getTokenPosition();
+		long stmtPos = currPosition();
 		if (!isShort && optionalAccept(TokenType.LCurly)) {
 			StatementList stmtList = new StatementList();
-			Statement nestedStmt = parseOptionalStatement();
-			while (nestedStmt != null) {
-				stmtList.add(nestedStmt);
-				nestedStmt = parseOptionalStatement();
-			}
+			parseStatements(stmtList::add);
 			accept(TokenType.RCurly);
 			return new BlockStmt(stmtList, stmtPos);
 		}
 		// starting with identifier can result in either type or reference
-		if (currTokenMatches(TokenType.Identifier)) {
-			Token id = currToken;
+		// id id and id [ ] start declarations, looking ahead lets them take the type path below
+		if (currTokenMatches(TokenType.Identifier) && !startsClassTypeDecl()) {
+			int id = currIndex;
 			nextToken();
 			if (optionalAccept(TokenType.LBracket)) {
-				// type if [ ], after reference if [ expr ]
-				Expression ixExpr = parseOptionalExpression();
-				accept(TokenType.RBracket);
-				if (ixExpr == null) {
-					// id [ ] id = expr ;
-					TypeDenoter type = new ArrayType(new ClassType(new Identifier(id), id.getTokenPosition()), id.getTokenPosition());
-					Token varName = currToken;
-					accept(TokenType.Identifier);
-					accept(TokenType.AssignmentOp);
-					Expression assignExpr = parseExpression();
-					accept(TokenType.Semicolon);
-					return new VarDeclStmt(new VarDecl(type, varName.getTokenText(), varName.getTokenPosition()), assignExpr, stmtPos);
-				}
 				// id [ expr ] = expr ;
+				Expression ixExpr = parseExpression();
+				accept(TokenType.RBracket);
 				accept(TokenType.AssignmentOp);
 				Expression assignExpr = parseExpression();
 				if (!isShort) accept(TokenType.Semicolon);
-				return new IxAssignStmt(new IdRef(new Identifier(id), id.getTokenPosition()), ixExpr, assignExpr, stmtPos);
+				return new IxAssignStmt(new IdRef(identifier(id), tokens.position(id)), ixExpr, assignExpr, stmtPos);
 			} else if (currTokenMatches(TokenType.Dot)) {
 				// ref = id (. ref)+
-				Reference ref = new IdRef(new Identifier(id), id.getTokenPosition());
+				Reference ref = new IdRef(identifier(id), tokens.position(id));
 				while (optionalAccept(TokenType.Dot)) {
-					ref = new QualRef(ref, new Identifier(currToken), ref.posn);
+					ref = new QualRef(ref, identifier(currIndex), ref.posn);
 					accept(TokenType.Identifier);
 				}
 				if (optionalAccept(TokenType.LBracket)) {
@@ -395,34 +809,27 @@ public class Parser {
 				return new AssignStmt(ref, assignExpr, stmtPos);
 			} else if (optionalAccept(TokenType.LParen)) {
 				// id ( argList ) ;
-				Reference ref = new IdRef(new Identifier(id), id.getTokenPosition());
+				Reference ref = new IdRef(identifier(id), tokens.position(id));
 				ExprList argList = parseOptionalArgumentList();
 				if (argList == null) argList = new ExprList();
 				accept(TokenType.RParen);
 				if (!isShort) accept(TokenType.Semicolon);
 				return new CallStmt(ref, argList, stmtPos);
 			}
-			// id id? = expr ;
-			Token id2 = null;
-			if (currTokenMatches(TokenType.Identifier)) {
-				id2 = currToken;
-				nextToken();
-			}
+			// id = expr ;
 			accept(TokenType.AssignmentOp);
 			Expression assignExpr = parseExpression();
 			if (!isShort) accept(TokenType.Semicolon);
-			if (id2 == null)
-				return new AssignStmt(new IdRef(new Identifier(id), id.getTokenPosition()), assignExpr, stmtPos);
-			return new VarDeclStmt(new VarDecl(new ClassType(new Identifier(id), id.getTokenPosition()), id2.getTokenText(), id.getTokenPosition()), assignExpr, stmtPos);
+			return new AssignStmt(new IdRef(identifier(id), tokens.position(id)), assignExpr, stmtPos);
 		}
 		TypeDenoter type = parseOptionalType();
 		if (type != null) {
 			// type id = expr ;
-			Token id = currToken;
+			int id = currIndex;
 			accept(TokenType.Identifier, TokenType.AssignmentOp);
 			Expression assignExpr = parseExpression();
 			if (!isShort) accept(TokenType.Semicolon);
-			return new VarDeclStmt(new VarDecl(type, id.getTokenText(), id.getTokenPosition()), assignExpr, stmtPos);
+			return new VarDeclStmt(new VarDecl(type, tokens.text(id), tokens.position(id)), assignExpr, stmtPos);
 		}
 		Reference ref = parseOptionalReference();
 		if (ref != null) {
@@ -447,8 +854,8 @@ public class Parser {
 				if (!isShort) accept(TokenType.Semicolon);
 				return new CallStmt(ref, argList, stmtPos);
 			}
-			errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("expected = or [ or ( after reference, but got %s", currToken.getTokenText()));
-			throw new SyntaxError();
+			errors.reportError(currPosition(), String.format("expected = or [ or ( after reference, but got %s", currText()));
+			throw SyntaxError.INSTANCE;
 		}
 		if (optionalAccept(TokenType.Return)) {
 			// return expr? ;
@@ -492,11 +899,17 @@ public class Parser {
 		}
 		return null;
 	}
+	// id id | id [ ]
+	private boolean startsClassTypeDecl() {
+		TokenType next = peekType(1);
+		return next == TokenType.Identifier || (next == TokenType.LBracket && peekType(2) == TokenType.RBracket);
+	}
+
 	private Statement parseStatement(boolean isShort) throws SyntaxError {
 		Statement stmt = parseOptionalStatement(isShort);
 		if (stmt != null) return stmt;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected start of statement, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected start of statement, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	private Statement parseOptionalStatement() throws SyntaxError {
@@ -519,8 +932,8 @@ public class Parser {
 	//     | new ( id\(\) | type [ Expression ] )
 	//     | Expression instanceof id
 	private Expression parseOptionalExpressionTerm() throws SyntaxError {
-		SourcePosition exprPos = currToken.getTokenPosition();
-		Token startToken = currToken;
+		long exprPos = currPosition();
+		int startToken = currIndex;
 		Reference ref = parseOptionalReference();
 		if (ref != null) {
 			// ref ...
@@ -540,12 +953,13 @@ public class Parser {
 			return new RefExpr(ref, exprPos);
 		} else if (parseOptionalUnOp() != null) {
 			// unop expr
+			if (tokens.type(startToken) == TokenType.Minus) negatedLiteral = currIndex;
 			Expression nestedExpr = parseOptionalExpressionTerm();
 			if (nestedExpr == null) {
-				errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected expression start after unary operator, but got %s", currToken.getTokenText()));
-				throw new SyntaxError();
+				errors.reportError(currPosition(), String.format("Expected expression start after unary operator, but got %s", currText()));
+				throw SyntaxError.INSTANCE;
 			}
-			return new UnaryExpr(new Operator(startToken), nestedExpr, exprPos);
+			return new UnaryExpr(new Operator(tokens.type(startToken), tokens.text(startToken), tokens.position(startToken)), nestedExpr, exprPos);
 		} else if (optionalAccept(TokenType.LParen)) {
 			Expression expr = parseOptionalExpression();
 			if (expr != null) {
@@ -560,39 +974,13 @@ public class Parser {
 				expr = parseExpressionTerm();
 				return new CastExpr(type, expr, exprPos);
 			}
-		} else if (parseOptionalNum()) {
-			// num
-			Terminal terminal;
-			switch (startToken.getTokenType()) {
-				case IntLiteral:
-					terminal = new IntLiteral(startToken);
-					break;
-				case LongLiteral:
-					terminal = new LongLiteral(startToken);
-					break;
-				case FloatLiteral:
-					terminal = new FloatLiteral(startToken);
-					break;
-				case DoubleLiteral:
-					terminal = new DoubleLiteral(startToken);
-					break;
-				case CharLiteral:
-					terminal = new CharLiteral(startToken);
-					break;
-				default:
-					throw new RuntimeException(String.format("unknown num type %s", startToken.getTokenType()));
-			}
-			return new LiteralExpr(terminal, exprPos);
-		} else if (optionalAccept(TokenType.BooleanLiteral)) {
-			// true | false
-			return new LiteralExpr(new BooleanLiteral(startToken), exprPos);
-		} else if (optionalAccept(TokenType.NullLiteral)) {
-			// null
-			return new LiteralExpr(new NullLiteral(startToken), exprPos);
+		} else if (parseOptionalNum() || optionalAccept(TokenType.BooleanLiteral) || optionalAccept(TokenType.NullLiteral)) {
+			// num | true | false | null
+			return new LiteralExpr(literal(startToken), exprPos);
 		} else if (optionalAccept(TokenType.New)) {
 			// new ...
 			if (currTokenMatches(TokenType.Identifier)) {
-				ClassType type = new ClassType(new Identifier(currToken), currToken.getTokenPosition());
+				ClassType type = new ClassType(identifier(currIndex), currPosition());
 				nextToken();
 				// new id ...
 				if (optionalAccept(TokenType.LParen)) {
@@ -605,13 +993,13 @@ public class Parser {
 					accept(TokenType.RBracket);
 					return new NewArrayExpr(type, sizeExpr, exprPos);
 				} else {
-					errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected ( or [ after new identifier, but got %s", currToken.getTokenText()));
-					throw new SyntaxError();
+					errors.reportError(currPosition(), String.format("Expected ( or [ after new identifier, but got %s", currText()));
+					throw SyntaxError.INSTANCE;
 				}
 			} else {
 				// num [ expr ]
 				TypeKind typeKind = null;
-				switch (currToken.getTokenType()) {
+				switch (currType()) {
 					case CharType:
 						typeKind = TypeKind.CHAR;
 						break;
@@ -628,10 +1016,10 @@ public class Parser {
 						typeKind = TypeKind.DOUBLE;
 						break;
 					default:
-						errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected type after new, but got %s", currToken.getTokenText()));
-						throw new SyntaxError();
+						errors.reportError(currPosition(), String.format("Expected type after new, but got %s", currText()));
+						throw SyntaxError.INSTANCE;
 				}
-				BaseType type = new BaseType(typeKind, currToken.getTokenPosition());
+				BaseType type = new BaseType(typeKind, currPosition());
 				nextToken();
 				accept(TokenType.LBracket);
 				Expression sizeExpr = parseExpression();
@@ -642,171 +1030,186 @@ public class Parser {
 		return null;
 	}
 
+	// literal node for the literal token at index, carrying the value decoded by the scanner
+	private Terminal literal(int index) {
+		Terminal terminal;
+		TokenType kind = tokens.type(index);
+		String spelling = tokens.text(index);
+		long posn = tokens.position(index);
+		// the scanner decodes 2^31 and 2^63 to the min value, which only a unary minus can take (as in Java)
+		long value = tokens.payload(index);
+		if (index != negatedLiteral && (kind == TokenType.IntLiteral && value == Integer.MIN_VALUE || kind == TokenType.LongLiteral && value == Long.MIN_VALUE))
+			errors.reportError(posn, String.format("%s literal %s out of range", kind == TokenType.IntLiteral ? "Int" : "Long", spelling));
+		switch (kind) {
+			case IntLiteral:
+				terminal = new IntLiteral(kind, spelling, posn);
+				break;
+			case LongLiteral:
+				terminal = new LongLiteral(kind, spelling, posn);
+				break;
+			case FloatLiteral:
+				terminal = new FloatLiteral(kind, spelling, posn);
+				break;
+			case DoubleLiteral:
+				terminal = new DoubleLiteral(kind, spelling, posn);
+				break;
+			case CharLiteral:
+				terminal = new CharLiteral(kind, spelling, posn);
+				break;
+			case BooleanLiteral:
+				terminal = new BooleanLiteral(kind, spelling, posn);
+				break;
+			case NullLiteral:
+				return new NullLiteral(kind, spelling, posn);
+			default:
+				throw new RuntimeException(String.format("unknown num type %s", kind));
+		}
+		terminal.value = value;
+		return terminal;
+	}
+
 	private Expression parseExpressionTerm() throws SyntaxError {
 		Expression expr = parseOptionalExpressionTerm();
 		if (expr != null) return expr;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected start of expression term, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected start of expression term, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	private Expression parseOptionalExpression() throws SyntaxError {
-		// doubly linked list of single term expressions
-		class Term {
-			public Expression expr;
-			public int prev; // points to last non-null index in chain (-1 if none)
-			public int next; // points to next non-null index in chain (binOps.size() if none)
-			public Term(Expression expr, int prev, int next) {
-				this.expr = expr;
-				this.prev = prev;
-				this.next = next;
-			}
-		}
-
-		List<Term> termChain = new ArrayList<>();
-		List<Operator> binOps = new ArrayList<>();
-		boolean chainHasNext = true;
-		while (chainHasNext) {
-			Expression term = parseOptionalExpressionTerm();
+		Expression term = parseOptionalChainTerm();
+		if (term == null) return null;
+		// a lone term needs no chain
+		ExpressionChain chain = null;
+		Operator operator;
+		while ((operator = parseOptionalBinOp()) != null) {
+			if (chain == null) chain = new ExpressionChain();
+			chain.add(term, operator);
+			term = parseOptionalChainTerm();
 			if (term == null) {
-				if (termChain.isEmpty()) return null;
-				errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected start of an expression following a binary operator, but got %s", currToken.getTokenText()));
-				throw new SyntaxError();
-			} else if (optionalAccept(TokenType.InstanceOf)) {
-				// Expression instanceof id
-				Token idToken = currToken;
-				accept(TokenType.Identifier);
-				term = new InstanceOfExpr(term, new ClassType(new Identifier(idToken), term.posn), term.posn);
-			}
-			Operator operator = parseOptionalBinOp();
-			if (operator == null) {
-				Expression castExpr;
-				if (
-						term instanceof RefExpr
-						&& ((RefExpr)term).ref instanceof IdRef
-						&& (castExpr = parseOptionalExpressionTerm()) != null
-				) {
-					// retroactively try to change ( expr ) to ( type ) exprTerm
-					Identifier id = ((IdRef)((RefExpr)term).ref).id;
-					term = new CastExpr(new ClassType(id, id.posn), castExpr, term.posn);
-					operator = parseOptionalBinOp();
-					chainHasNext = operator != null;
-				} else {
-					chainHasNext = false;
-				}
-			}
-			else binOps.add(operator);
-			termChain.add(new Term(term, termChain.size() - 1, termChain.size() + 1));
-		}
-
-		// apply operator precedence of expr (binop expr)* chain
-		// done in O(N) where N = number of operators
-
-		// bucket sort binOps by precedence levels
-		List<Integer>[] precedenceLevels = new ArrayList[Operator.precedenceLevelCount];
-		for (int p = 0; p < Operator.precedenceLevelCount; ++p)
-				precedenceLevels[p] = new ArrayList<>();
-		for (int i = 0; i < binOps.size(); ++i) {
-			precedenceLevels[Operator.binOpPrecedence.get(binOps.get(i).kind)].add(i);
-		}
-
-		// handle binOps
-		for (int p = 0; p < Operator.precedenceLevelCount; ++p) {
-			for (int opIndex : precedenceLevels[p]) {
-				// get indexes
-				// merges to the left, so right index for current operator remains constant
-				// left index maintained by right element
-				int rightIndex = opIndex + 1;
-				int leftIndex = termChain.get(rightIndex).prev;
-
-				// merge terms and update doubly linked list
-				Term leftTerm = termChain.get(leftIndex);
-				Term rightTerm = termChain.get(rightIndex);
-				Operator op = binOps.get(opIndex);
-				leftTerm.expr = new BinaryExpr(op, leftTerm.expr, rightTerm.expr, leftTerm.expr.posn);
-
-				// remove right term from the linked list
-				// since each op maps to a unique right term, will never be used again
-				leftTerm.next = rightTerm.next;
-				if (rightTerm.next != termChain.size()) {
-					Term rightRightTerm = termChain.get(rightTerm.next);
-					rightRightTerm.prev = leftIndex;
-				}
+				errors.reportError(currPosition(), String.format("Expected start of an expression following a binary operator, but got %s", currText()));
+				throw SyntaxError.INSTANCE;
 			}
 		}
+		return chain == null ? term : chain.end(term);
+	}
 
-		// since merging left, first term is the result
-		return termChain.get(0).expr;
+	// term of an expression chain: exprTerm (instanceof id)? | id exprTerm
+	private Expression parseOptionalChainTerm() throws SyntaxError {
+		Expression term = parseOptionalExpressionTerm();
+		if (term == null) return null;
+		if (optionalAccept(TokenType.InstanceOf)) {
+			// Expression instanceof id
+			int idToken = currIndex;
+			accept(TokenType.Identifier);
+			return new InstanceOfExpr(term, new ClassType(identifier(idToken), term.posn), term.posn);
+		}
+		Expression castExpr;
+		if (
+				Operator.precedence(currType()) < 0
+				&& term instanceof RefExpr
+				&& ((RefExpr)term).ref instanceof IdRef
+				&& (castExpr = parseOptionalExpressionTerm()) != null
+		) {
+			// retroactively try to change ( expr ) to ( type ) exprTerm
+			Identifier id = ((IdRef)((RefExpr)term).ref).id;
+			return new CastExpr(new ClassType(id, id.posn), castExpr, term.posn);
+		}
+		return term;
 	}
+
 	private Expression parseExpression() throws SyntaxError {
 		Expression expr = parseOptionalExpression();
 		if (expr != null) return expr;
-		errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected start of expression, but got %s", currToken.getTokenText()));
-		throw new SyntaxError();
+		errors.reportError(currPosition(), String.format("Expected start of expression, but got %s", currText()));
+		throw SyntaxError.INSTANCE;
 	}
 
 	private Operator parseOptionalBinOp() {
-		TokenType[] binOpTokens = {
-				TokenType.Add, TokenType.Minus, TokenType.Multiply, TokenType.Divide,
-				TokenType.RelLT, TokenType.RelGT, TokenType.RelLEq, TokenType.RelGEq, TokenType.RelEq, TokenType.RelNEq,
-				TokenType.BitAnd, TokenType.BitXor, TokenType.BitOr, TokenType.LogAnd, TokenType.LogOr
-		};
-		for (TokenType token : binOpTokens) {
-			if (currTokenMatches(token)) {
-				Operator op = new Operator(currToken);
-				nextToken();
-				return op;
-			}
-		}
-		return null;
+		if (Operator.precedence(currType()) < 0) return null;
+		Operator op = new Operator(currType(), currText(), currPosition());
+		nextToken();
+		return op;
 	}
 
 	private Operator parseOptionalUnOp() {
-		TokenType[] unOpTokens = { TokenType.Minus, TokenType.BitComp, TokenType.LogNot };
-		for (TokenType token : unOpTokens) {
-			if (currTokenMatches(token)) {
-				Operator op = new Operator(currToken);
+		switch (currType()) {
+			case Minus:
+			case BitComp:
+			case LogNot:
+				Operator op = new Operator(currType(), currText(), currPosition());
 				nextToken();
 				return op;
-			}
+			default:
+				return null;
 		}
-		return null;
 	}
 
 	private boolean parseOptionalNum() {
-		TokenType[] numTokens = { TokenType.ByteLiteral, TokenType.IntLiteral, TokenType.LongLiteral, TokenType.FloatLiteral, TokenType.DoubleLiteral, TokenType.CharLiteral };
-		for (TokenType token : numTokens) {
-			if (optionalAccept(token)) return true;
+		switch (currType()) {
+			case ByteLiteral:
+			case IntLiteral:
+			case LongLiteral:
+			case FloatLiteral:
+			case DoubleLiteral:
+			case CharLiteral:
+				nextToken();
+				return true;
+			default:
+				return false;
 		}
-		return false;
 	}
 
 	private void nextToken() throws SyntaxError {
-		currToken = scanner.scan();
-		if (unitTest) testData.tokenList.add(currToken);
-		if (currTokenMatches(TokenType.Error)) {
-			throw new SyntaxError();
+		currIndex += 1;
+		// scan the token before reporting, an on demand buffer only learns of its errors by scanning it
+		TokenType type = currType();
+		if (!holdScannerErrors) tokens.reportErrors(currIndex, errors);
+		if (unitTest) testData.tokenCount = currIndex + 1;
+		if (type == TokenType.Error) {
+			throw SyntaxError.INSTANCE;
 		}
 	}
 
+	private TokenType currType() {
+		return tokens.type(currIndex);
+	}
+
+	// type of the token k positions past the current one, without consuming anything
+	private TokenType peekType(int k) {
+		return tokens.type(currIndex + k);
+	}
+
+	private String currText() {
+		return tokens.text(currIndex);
+	}
+
+	private long currPosition() {
+		return tokens.position(currIndex);
+	}
+
+	private Identifier identifier(int index) {
+		return new Identifier(tokens.type(index), tokens.text(index), tokens.nameId(index), tokens.position(index));
+	}
+
 	// This method will accept the token and retrieve the next token.
 	//  Can be useful if you want to error check and accept all-in-one.
 	private void accept(TokenType... expectedTypes) throws SyntaxError {
 		for (TokenType expectedType : expectedTypes) {
-			if (currToken.getTokenType() != expectedType) {
-				errors.reportError(currToken.getLine(), currToken.getOffset(), String.format("Expected token %s, but got %s", expectedType, currToken.getTokenText()));
-				throw new SyntaxError();
+			if (currType() != expectedType) {
+				errors.reportError(currPosition(), String.format("Expected token %s, but got %s", expectedType, currText()));
+				throw SyntaxError.INSTANCE;
 			}
 			nextToken();
 		}
 	}
 
 	private boolean optionalAccept(TokenType type) throws SyntaxError {
-		if (currToken.getTokenType() != type) return false;
+		if (currType() != type) return false;
 		nextToken();
 		return true;
 	}
 
 	private boolean currTokenMatches(TokenType type) {
-		return currToken != null && currToken.getTokenType() == type;
+		return currIndex >= 0 && currType() == type;
 	}
 }
\ No newline at end of file
@@ -2,76 +2,219 @@ package miniJava.SyntacticAnalyzer;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.Arrays;
 
 import miniJava.ErrorReporter;
 
 public class Scanner {
+	// Switch dispatches on the current char with nested switches
+	// Table walks precomputed char class and transition tables (see LexTable)
+	public enum Mode {Switch, Table}
+
 	int line;
 	int offset;
 	final static char EOF = '\u001a';
-	private InputStream in;
+	private final SourceBuffer buffer;
+	private final byte[] source;
+	private final int sourceLength; // scanning treats this index as the end of input
+	private int pos; // index of next unread byte in source
+	private int currPos; // index of currChar in source (source length at end of input)
+	private int tokenStart; // index of the first char of the current token
 	private ErrorReporter errors;
-	private StringBuilder currText;
+	private final Mode mode;
+	private TokenBuffer sink; // set while scanning into a token buffer
+	private int textStart; // current token text is source[textStart, textStart + textLength)
+	private int textLength;
+	private char prevChar; // previous char inside a multiline comment
 	private char currChar;
-	private static final HashMap<String,TokenType> keywords = new HashMap<>();
+	private static final String[] fixedText = new String[TokenType.values().length];
+	private static final long MAX_FAST_DOUBLE_MANTISSA = 1L << 53; // exact doubles, see decodeDouble
+	private static final int MAX_FAST_FLOAT_MANTISSA = 1 << 24;
+	private static final double[] DOUBLE_POWERS_OF_TEN = new double[23]; // all exact
+	private static final float[] FLOAT_POWERS_OF_TEN = new float[11];
+
+	// reserved words, looked up by length and first char so no string is built per identifier
+	private enum Keyword {
+		CLASS("class", TokenType.Class),
+		THIS("this", TokenType.This),
+		NEW("new", TokenType.New),
+		IF("if", TokenType.If),
+		ELSE("else", TokenType.Else),
+		FOR("for", TokenType.For),
+		WHILE("while", TokenType.While),
+		DO("do", TokenType.Do),
+		SWITCH("switch", TokenType.Switch),
+		PUBLIC("public", TokenType.Visibility),
+		PRIVATE("private", TokenType.Visibility),
+		PROTECTED("protected", TokenType.Visibility),
+		DEFAULT("default", TokenType.Visibility),
+		STATIC("static", TokenType.Static),
+		VOID("void", TokenType.VoidType),
+		BOOLEAN("boolean", TokenType.BooleanType),
+		BYTE("byte", TokenType.ByteType),
+		CHAR("char", TokenType.CharType),
+		INT("int", TokenType.IntType),
+		LONG("long", TokenType.LongType),
+		FLOAT("float", TokenType.FloatType),
+		DOUBLE("double", TokenType.DoubleType),
+		RETURN("return", TokenType.Return),
+		TRUE("true", TokenType.BooleanLiteral),
+		FALSE("false", TokenType.BooleanLiteral),
+		NULL("null", TokenType.NullLiteral),
+		EXTENDS("extends", TokenType.Extends),
+		SUPER("super", TokenType.Super),
+		INSTANCEOF("instanceof", TokenType.InstanceOf);
+
+		final String text;
+		final TokenType type;
+
+		Keyword(String text, TokenType type) {
+			this.text = text;
+			this.type = type;
+		}
+	}
+	private static final int MAX_KEYWORD_LENGTH = 16;
+	private static final Keyword[][][] keywordTable = new Keyword[MAX_KEYWORD_LENGTH][128][];
 
 	static {
-		keywords.put("class", TokenType.Class);
-		keywords.put("this", TokenType.This);
-		keywords.put("new", TokenType.New);
-		keywords.put("if", TokenType.If);
-		keywords.put("else", TokenType.Else);
-		keywords.put("for", TokenType.For);
-		keywords.put("while", TokenType.While);
-		keywords.put("do", TokenType.Do);
-		keywords.put("switch", TokenType.Switch);
-		keywords.put("public", TokenType.Visibility);
-		keywords.put("private", TokenType.Visibility);
-		keywords.put("protected", TokenType.Visibility);
-		keywords.put("default", TokenType.Visibility);
-		keywords.put("static", TokenType.Static);
-		keywords.put("void", TokenType.VoidType);
-		keywords.put("boolean", TokenType.BooleanType);
-		keywords.put("byte", TokenType.ByteType);
-		keywords.put("char", TokenType.CharType);
-		keywords.put("int", TokenType.IntType);
-		keywords.put("long", TokenType.LongType);
-		keywords.put("float", TokenType.FloatType);
-		keywords.put("double", TokenType.DoubleType);
-		keywords.put("return", TokenType.Return);
-		keywords.put("true", TokenType.BooleanLiteral);
-		keywords.put("false", TokenType.BooleanLiteral);
-		keywords.put("null", TokenType.NullLiteral);
-		keywords.put("extends", TokenType.Extends);
-		keywords.put("super", TokenType.Super);
-		keywords.put("instanceof", TokenType.InstanceOf);
+		DOUBLE_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < DOUBLE_POWERS_OF_TEN.length; ++i) DOUBLE_POWERS_OF_TEN[i] = DOUBLE_POWERS_OF_TEN[i - 1] * 10;
+		FLOAT_POWERS_OF_TEN[0] = 1;
+		for (int i = 1; i < FLOAT_POWERS_OF_TEN.length; ++i) FLOAT_POWERS_OF_TEN[i] = FLOAT_POWERS_OF_TEN[i - 1] * 10;
+
+		// tokens whose text never varies share one string instead of copying from the source
+		fixedText[TokenType.Add.ordinal()] = "+";
+		fixedText[TokenType.Minus.ordinal()] = "-";
+		fixedText[TokenType.Multiply.ordinal()] = "*";
+		fixedText[TokenType.Divide.ordinal()] = "/";
+		fixedText[TokenType.RelLT.ordinal()] = "<";
+		fixedText[TokenType.RelGT.ordinal()] = ">";
+		fixedText[TokenType.RelLEq.ordinal()] = "<=";
+		fixedText[TokenType.RelGEq.ordinal()] = ">=";
+		fixedText[TokenType.RelEq.ordinal()] = "==";
+		fixedText[TokenType.RelNEq.ordinal()] = "!=";
+		fixedText[TokenType.BitAnd.ordinal()] = "&";
+		fixedText[TokenType.BitXor.ordinal()] = "^";
+		fixedText[TokenType.BitOr.ordinal()] = "|";
+		fixedText[TokenType.BitComp.ordinal()] = "~";
+		fixedText[TokenType.LogAnd.ordinal()] = "&&";
+		fixedText[TokenType.LogOr.ordinal()] = "||";
+		fixedText[TokenType.LogNot.ordinal()] = "!";
+		fixedText[TokenType.AssignmentOp.ordinal()] = "=";
+		fixedText[TokenType.LCurly.ordinal()] = "{";
+		fixedText[TokenType.RCurly.ordinal()] = "}";
+		fixedText[TokenType.LParen.ordinal()] = "(";
+		fixedText[TokenType.RParen.ordinal()] = ")";
+		fixedText[TokenType.LBracket.ordinal()] = "[";
+		fixedText[TokenType.RBracket.ordinal()] = "]";
+		fixedText[TokenType.Comma.ordinal()] = ",";
+		fixedText[TokenType.Semicolon.ordinal()] = ";";
+		fixedText[TokenType.Colon.ordinal()] = ":";
+		fixedText[TokenType.Dot.ordinal()] = ".";
+		fixedText[TokenType.End.ordinal()] = "EOF";
+
+		for (Keyword keyword : Keyword.values()) {
+			Keyword[][] byFirst = keywordTable[keyword.text.length()];
+			int first = keyword.text.charAt(0);
+			Keyword[] candidates = byFirst[first] == null ? new Keyword[1] : Arrays.copyOf(byFirst[first], byFirst[first].length + 1);
+			candidates[candidates.length - 1] = keyword;
+			byFirst[first] = candidates;
+		}
 	}
 	
-	public Scanner( InputStream in, ErrorReporter errors ) {
-		this.in = in;
+	public Scanner( SourceBuffer source, ErrorReporter errors, Mode mode ) {
+		this.mode = mode;
+		this.buffer = source;
+		this.source = source.data;
+		this.sourceLength = source.length;
 		this.errors = errors;
-		currText = new StringBuilder();
 		line = 0;
 		offset = -1;
 
 		nextChar();
 	}
 
+	public Scanner( SourceBuffer source, ErrorReporter errors ) {
+		this(source, errors, Mode.Switch);
+	}
+
+	// scanner over source[start, end) where the char at start sits at line:offset
+	// start must be the first char of a token, the start of a line, or 0, so the scanner is in its initial state there
+	private Scanner( SourceBuffer source, ErrorReporter errors, Mode mode, int start, int end, int line, int offset ) {
+		this.mode = mode;
+		this.buffer = source;
+		this.source = source.data;
+		this.sourceLength = end;
+		this.errors = errors;
+		this.pos = start;
+		this.line = line;
+		this.offset = offset - 1;
+
+		nextChar();
+	}
+
+	// same settings as this scanner, restarted on a different source
+	Scanner restartAt( SourceBuffer source, int start, int line, int offset ) {
+		return new Scanner(source, errors, mode, start, source.length, line, offset);
+	}
+
+	// same settings as this scanner, scanning only source[start, end) as if end were the end of input
+	Scanner slice( int start, int end, int line, int offset ) {
+		return new Scanner(buffer, errors, mode, start, end, line, offset);
+	}
+
+	// index of the char the scanner is on
+	int position() {
+		return currPos;
+	}
+
+	public Scanner( InputStream in, ErrorReporter errors ) {
+		this(readStream(in, errors), errors);
+	}
+
+	private static SourceBuffer readStream(InputStream in, ErrorReporter errors) {
+		try {
+			return SourceBuffer.read(in);
+		} catch (IOException e) {
+			errors.reportError("Unable to read source input");
+			return new SourceBuffer(new byte[0], 0);
+		}
+	}
+
 	private enum State { Unknown, Token, TokenEnd, SingleLineComment, MultiLineComment }
 	
 	public Token scan() {
+		return mode == Mode.Table ? scanTable() : scanSwitch();
+	}
+
+	// scans the next token straight into the token buffer without allocating a Token
+	void scanInto(TokenBuffer tokens) {
+		sink = tokens;
+		try {
+			scan();
+		} finally {
+			sink = null;
+		}
+	}
+
+	SourceBuffer getSource() {
+		return buffer;
+	}
+
+	private Token scanSwitch() {
 		clearCurrText();
 		State state = State.Unknown;
 		TokenType tokenType = TokenType.End;
 		int startLine = line;
 		int startOffset = offset;
+		tokenStart = currPos;
 
 		while (state != State.TokenEnd) {
 			switch (state) {
 				case Unknown: {
 					startLine = line;
 					startOffset = offset;
+					tokenStart = currPos;
 					switch (currChar) {
 						case EOF: state = State.TokenEnd; break;
 						case '/': {
@@ -84,7 +227,7 @@ public class Scanner {
 								state = State.MultiLineComment;
 								clearCurrText();
 								skipCurr();
-								currText.append(' ');
+								prevChar = ' ';
 							} else { // check for "/" operator
 								state = State.TokenEnd;
 								tokenType = TokenType.Divide;
@@ -215,7 +358,9 @@ public class Scanner {
 							tokenType = TokenType.Identifier;
 						} break;
 						default: {
-							if (currIsWhitespace()) {
+							if (currChar == ' ' || currChar == '\t') {
+								skipBlanks();
+							} else if (currIsWhitespace()) {
 								skipCurr();
 							} else if (currIsDigit()) {
 								state = State.Token;
@@ -232,29 +377,24 @@ public class Scanner {
 				} break;
 				case SingleLineComment: {
 					if (currIsNewline()) state = State.Unknown;
-					skipCurr();
+					skipLineCommentText();
 				} break;
 				case MultiLineComment: {
 					if (currIsEnd()) {
-						errors.reportError(startLine, startOffset, "Unclosed multiline comment.");
-						return makeToken(TokenType.Error, startLine, startOffset);
+						reportError(startLine, startOffset, "Unclosed multiline comment.");
+						return makeToken(TokenType.Error, String.valueOf(prevChar), startLine, startOffset);
 					}
-					if (currText.charAt(0) == '*' && currChar == '/') {
-						clearCurrText();
+					if (prevChar == '*' && currChar == '/') {
 						state = State.Unknown;
-					} else currText.setCharAt(0, currChar);
-					skipCurr();
+						skipCurr();
+					} else skipBlockCommentText();
 				} break;
 				case Token: {
-					boolean backslash = currText.length() != 0 && currText.charAt(currText.length()-1) == '\\';
+					boolean backslash = textLength != 0 && source[textStart + textLength - 1] == '\\';
 					switch (tokenType) {
 						case Identifier: {
 							// check for invalid identifier characters (all keywords must also comply with this)
 							if (currIsNewline() || (!currIsLetter() && !currIsDigit() && currChar != '_')) {
-								// check for keyword match
-								String key = currText.toString();
-								if (currText.length() < 16 && keywords.containsKey(key))
-									tokenType = keywords.get(key);
 								state = State.TokenEnd;
 								break;
 							}
@@ -299,7 +439,7 @@ public class Scanner {
 						} break;
 						case StringLiteral: {
 							if (currIsNewline()) {
-								errors.reportError(startLine, startOffset, "Unclosed string literal.");
+								reportError(startLine, startOffset, "Unclosed string literal.");
 								return makeToken(TokenType.Error, startLine, startOffset);
 							} else if (!backslash && currChar == '"') {
 								state = State.TokenEnd;
@@ -310,7 +450,7 @@ public class Scanner {
 						} break;
 						case CharLiteral: {
 							if (currIsNewline()) {
-								errors.reportError(startLine, startOffset, "Unclosed char literal.");
+								reportError(startLine, startOffset, "Unclosed char literal.");
 								return makeToken(TokenType.Error, startLine, startOffset);
 							} else if (!backslash && currChar == '\'') {
 								state = State.TokenEnd;
@@ -326,23 +466,184 @@ public class Scanner {
 				} break;
 			}
 		}
+		return finishToken(tokenType, startLine, startOffset);
+	}
+
+	private Token scanTable() {
+		clearCurrText();
+		int state = LexTable.START;
+		int startLine = line;
+		int startOffset = offset;
+		tokenStart = currPos;
+
+		while (true) {
+			if (state == LexTable.START) {
+				startLine = line;
+				startOffset = offset;
+				tokenStart = currPos;
+			}
+			int transition = LexTable.transitions[state * LexTable.CLASS_COUNT + LexTable.charClass[currChar]];
+			int operand = transition & 0xff;
+			switch (transition >>> 8) {
+				case LexTable.TAKE: takeCurr(); state = operand; break;
+				case LexTable.SKIP: {
+					if (operand == LexTable.LINE_COMMENT) skipLineCommentText();
+					else if (operand == LexTable.BLOCK_COMMENT) skipBlockCommentText();
+					else if (currChar == ' ' || currChar == '\t') skipBlanks();
+					else skipCurr();
+					state = operand;
+				} break;
+				case LexTable.CLEAR_SKIP: clearCurrText(); skipCurr(); state = operand; break;
+				case LexTable.EMIT: return finishToken(LexTable.tokenTypes[operand], startLine, startOffset);
+				case LexTable.TAKE_EMIT: takeCurr(); return finishToken(LexTable.tokenTypes[operand], startLine, startOffset);
+				case LexTable.SKIP_EMIT: skipCurr(); return finishToken(LexTable.tokenTypes[operand], startLine, startOffset);
+				case LexTable.UNCLOSED_LITERAL: {
+					reportError(startLine, startOffset, operand == TokenType.StringLiteral.ordinal() ? "Unclosed string literal." : "Unclosed char literal.");
+					return makeToken(TokenType.Error, startLine, startOffset);
+				}
+				case LexTable.UNCLOSED_COMMENT: {
+					reportError(startLine, startOffset, "Unclosed multiline comment.");
+					// the comment opener is still at textStart, report the char before the end like the switch scanner
+					int end = pos > 0 && source[pos - 1] == EOF ? pos - 1 : pos;
+					char prev = end - 1 >= textStart + 2 ? (char)(source[end - 1] & 0xff) : ' ';
+					return makeToken(TokenType.Error, String.valueOf(prev), startLine, startOffset);
+				}
+			}
+		}
+	}
+
+	private Token finishToken(TokenType tokenType, int startLine, int startOffset) {
+		if (tokenType == TokenType.Identifier && textLength != 0) {
+			Keyword keyword = matchKeyword(textStart, textLength);
+			if (keyword != null) return makeToken(keyword.type, keyword.text, keyword == Keyword.TRUE ? 1 : 0, startLine, startOffset);
+			int nameId = NamePool.intern(source, textStart, textLength);
+			return makeToken(tokenType, NamePool.name(nameId), nameId, startLine, startOffset);
+		}
 		if (tokenType == TokenType.StringLiteral || tokenType == TokenType.CharLiteral) {
-			currText = new StringBuilder(currText.substring(1, currText.length()-1).replaceAll("\\\\n", "\n"));
-			if (tokenType == TokenType.CharLiteral && currText.length() != 1) {
-				errors.reportError(String.format("Invalid char literal '%s'", currText));
+			String text = decodeLiteralText(textStart + 1, textLength - 2);
+			if (tokenType == TokenType.CharLiteral && text.length() != 1) {
+				reportError(String.format("Invalid char literal '%s'", text));
 			}
+			long payload = tokenType == TokenType.CharLiteral && text.length() == 1 ? text.charAt(0) : 0;
+			return makeToken(tokenType, text, payload, startLine, startOffset);
+		}
+		else if (tokenType != TokenType.End && textLength == 0) {
+			reportError(line, offset, String.format("Invalid symbol %c", currChar));
+			return makeToken(TokenType.Error, String.valueOf(currChar), startLine, startOffset);
 		}
-		else if (tokenType != TokenType.End && currText.length() == 0) {
-			errors.reportError(line, offset, String.format("Invalid symbol %c", currChar));
-			tokenType = TokenType.Error;
-			currText.append(currChar);
+		switch (tokenType) {
+			case IntLiteral:
+			case LongLiteral:
+				return makeToken(tokenType, null, decodeInteger(tokenType, startLine, startOffset), startLine, startOffset);
+			case FloatLiteral:
+				return makeToken(tokenType, null, decodeFloat(startLine, startOffset), startLine, startOffset);
+			case DoubleLiteral:
+				return makeToken(tokenType, null, decodeDouble(startLine, startOffset), startLine, startOffset);
+			default:
+				return makeToken(tokenType, startLine, startOffset);
 		}
-		if (tokenType == TokenType.End) currText = new StringBuilder("EOF");
-		return makeToken(tokenType, startLine, startOffset);
 	}
 	
+	// literal text between the quotes, where only the \n escape is decoded
+	private String decodeLiteralText(int start, int length) {
+		int end = start + length;
+		int escape = start;
+		while (escape < end - 1 && !(source[escape] == '\\' && source[escape + 1] == 'n')) escape++;
+		if (escape >= end - 1) return buffer.substring(start, length);
+		StringBuilder text = new StringBuilder(length);
+		for (int i = start; i < end; ++i) {
+			char c = (char)(source[i] & 0xff);
+			if (c == '\\' && i + 1 < end && source[i + 1] == 'n') {
+				c = '\n';
+				i += 1;
+			}
+			text.append(c);
+		}
+		return text.toString();
+	}
+
+	// int and long literals are plain decimal digits (the suffix is not part of the text)
+	// 2^31 and 2^63 decode to the min value, which the parser only accepts as the operand of a unary minus
+	private long decodeInteger(TokenType tokenType, int startLine, int startOffset) {
+		long max = tokenType == TokenType.IntLiteral ? Integer.MAX_VALUE : Long.MAX_VALUE;
+		long value = 0;
+		for (int i = textStart; i < textStart + textLength; ++i) {
+			int digit = source[i] - '0';
+			if (value > (max - digit) / 10) {
+				if (i == textStart + textLength - 1 && value == max / 10 && digit == max % 10 + 1) return -max - 1;
+				reportError(startLine, startOffset, String.format("%s literal %s out of range", tokenType == TokenType.IntLiteral ? "Int" : "Long", buffer.substring(textStart, textLength)));
+				return 0;
+			}
+			value = value * 10 + digit;
+		}
+		return value;
+	}
+
+	// float and double literals are digits with an optional '.' and more digits
+	// when the digits fit exactly in the mantissa and the power of ten is exact, dividing the two is
+	// correctly rounded, otherwise the text is parsed the slow way
+	private long decodeDouble(int startLine, int startOffset) {
+		long mantissa = 0;
+		int fractionDigits = -1;
+		for (int i = textStart; i < textStart + textLength && mantissa < MAX_FAST_DOUBLE_MANTISSA; ++i) {
+			if (source[i] == '.') fractionDigits = 0;
+			else {
+				mantissa = mantissa * 10 + source[i] - '0';
+				if (fractionDigits >= 0) fractionDigits++;
+			}
+		}
+		double value;
+		if (mantissa < MAX_FAST_DOUBLE_MANTISSA && fractionDigits < DOUBLE_POWERS_OF_TEN.length)
+			value = fractionDigits <= 0 ? mantissa : mantissa / DOUBLE_POWERS_OF_TEN[fractionDigits];
+		else value = Double.parseDouble(buffer.substring(textStart, textLength));
+		if (Double.isInfinite(value) || (value == 0 && hasNonzeroDigit()))
+			reportError(startLine, startOffset, String.format("Double literal %s out of range", buffer.substring(textStart, textLength)));
+		return Double.doubleToRawLongBits(value);
+	}
+
+	// same as decodeDouble, float bits are sign extended like an int
+	private long decodeFloat(int startLine, int startOffset) {
+		int mantissa = 0;
+		int fractionDigits = -1;
+		for (int i = textStart; i < textStart + textLength && mantissa < MAX_FAST_FLOAT_MANTISSA; ++i) {
+			if (source[i] == '.') fractionDigits = 0;
+			else {
+				mantissa = mantissa * 10 + source[i] - '0';
+				if (fractionDigits >= 0) fractionDigits++;
+			}
+		}
+		float value;
+		if (mantissa < MAX_FAST_FLOAT_MANTISSA && fractionDigits < FLOAT_POWERS_OF_TEN.length)
+			value = fractionDigits <= 0 ? mantissa : mantissa / FLOAT_POWERS_OF_TEN[fractionDigits];
+		else value = Float.parseFloat(buffer.substring(textStart, textLength));
+		if (Float.isInfinite(value) || (value == 0 && hasNonzeroDigit()))
+			reportError(startLine, startOffset, String.format("Float literal %s out of range", buffer.substring(textStart, textLength)));
+		return Float.floatToRawIntBits(value);
+	}
+
+	private boolean hasNonzeroDigit() {
+		for (int i = textStart; i < textStart + textLength; ++i)
+			if (source[i] >= '1' && source[i] <= '9') return true;
+		return false;
+	}
+
+	// compares the source range against the keywords sharing its length and first char
+	private Keyword matchKeyword(int start, int length) {
+		if (length == 0 || length >= MAX_KEYWORD_LENGTH) return null;
+		int first = source[start] & 0xff;
+		if (first >= 128) return null;
+		Keyword[] candidates = keywordTable[length][first];
+		if (candidates == null) return null;
+		for (Keyword keyword : candidates) {
+			int i = 1;
+			while (i < length && source[start + i] == keyword.text.charAt(i)) i++;
+			if (i == length) return keyword;
+		}
+		return null;
+	}
+
 	private void takeCurr() {
-		currText.append(currChar);
+		if (textLength++ == 0) textStart = pos - 1;
 		nextChar();
 	}
 	
@@ -350,6 +651,43 @@ public class Scanner {
 		nextChar();
 	}
 
+	// the bulk skips below each skip currChar plus the run of ordinary chars after it, found with
+	// ByteScan, and leave the scanner exactly where skipping them one by one would
+	// ordinary chars each advance the offset by one, so line breaks, '\r' and EOF are never skipped in bulk
+
+	// currChar must be a space or tab
+	private void skipBlanks() {
+		skipTo(ByteScan.skipBlanks(source, pos, sourceLength));
+	}
+
+	// skips comment text up to the end of the line
+	private void skipLineCommentText() {
+		if (currChar == '\r' || currIsNewline()) {
+			skipCurr();
+			return;
+		}
+		skipTo(ByteScan.find(source, pos, sourceLength, (byte) '\n', (byte) '\r', (byte) EOF));
+	}
+
+	// skips comment text up to the next '*' or line break, tracking the last char skipped in prevChar
+	private void skipBlockCommentText() {
+		if (currChar == '*' || currChar == '\r' || currIsNewline()) {
+			prevChar = currChar;
+			skipCurr();
+			return;
+		}
+		int end = ByteScan.find(source, pos, sourceLength, (byte) '*', (byte) '\n', (byte) '\r', (byte) EOF);
+		prevChar = end > pos ? (char)(source[end - 1] & 0xff) : currChar;
+		skipTo(end);
+	}
+
+	// skips currChar and the ordinary chars in source[pos, end)
+	private void skipTo(int end) {
+		offset += end - pos;
+		pos = end;
+		nextChar();
+	}
+
 	private boolean currIsNewline() {
 		return currChar == '\n' || currChar == EOF;
 	}
@@ -369,26 +707,20 @@ public class Scanner {
 	private boolean currIsEnd() { return (currChar == EOF); }
 
 	private void clearCurrText() {
-		currText.setLength(0);
+		textLength = 0;
 	}
 	
 	private void nextChar() {
-		try {
-			// handle end of file
-			if (in.available() == 0) {
-				currChar = EOF;
-				offset += 1;
-				return;
-			}
-
-			int c = in.read();
-			if (c < 0 || c > 255) throw new IOException(); // catch non-ascii
-			currChar = (char)c;
-		} catch( IOException e ) {
+		// handle end of file
+		if (pos >= sourceLength) {
 			currChar = EOF;
-			errors.reportError(line, offset+1, String.format("Lexical Error after %d:%d"));
+			currPos = sourceLength;
+			offset += 1;
+			return;
 		}
-		
+		currPos = pos;
+		currChar = (char)(source[pos++] & 0xff);
+
 		if (currIsNewline()) {
 			line += 1;
 			offset = -1;
@@ -398,6 +730,33 @@ public class Scanner {
 	}
 	
 	private Token makeToken( TokenType tokenType, int line, int offset ) {
-		return new Token(tokenType, currText.toString(), line, offset);
+		return makeToken(tokenType, fixedText[tokenType.ordinal()], line, offset);
+	}
+
+	// a null text means the token text is the current source range
+	// when scanning into a token buffer the token is appended there instead of allocated
+	private Token makeToken( TokenType tokenType, String text, int line, int offset ) {
+		return makeToken(tokenType, text, 0, line, offset);
+	}
+
+	// payload is the name pool id of identifiers and the decoded value of literals (see Token)
+	private Token makeToken( TokenType tokenType, String text, long payload, int line, int offset ) {
+		if (sink != null) {
+			// tokens with no source text (end of input, invalid symbols) still record where they start
+			sink.add(tokenType, textLength != 0 ? textStart : tokenStart, textLength, SourcePosition.pack(line, offset), text, payload);
+			return null;
+		}
+		if (text != null) return new Token(tokenType, text, payload, line, offset);
+		return new Token(tokenType, buffer, textStart, textLength, payload, line, offset);
+	}
+
+	private void reportError(int line, int offset, String message) {
+		if (sink != null) sink.deferError(SourcePosition.pack(line, offset), message);
+		else errors.reportError(line, offset, message);
+	}
+
+	private void reportError(String message) {
+		if (sink != null) sink.deferError(SourcePosition.NONE, message);
+		else errors.reportError(message);
 	}
 }
@@ -0,0 +1,99 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// entire source input held as a flat byte array so the scanner can walk it with an index
+// files are memory mapped and copied out in a single bulk transfer
+// streams (no backing file) are read in large blocks instead of one byte at a time
+public class SourceBuffer {
+	private static final int BLOCK_SIZE = 1 << 16;
+
+	final byte[] data;
+	final int length;
+
+	public SourceBuffer(byte[] data, int length) {
+		if (length < 0 || length > data.length) throw new IllegalArgumentException("invalid source buffer length");
+		this.data = data;
+		this.length = length;
+	}
+
+	public int length() {
+		return length;
+	}
+
+	public char charAt(int index) {
+		return (char)(data[index] & 0xff);
+	}
+
+	// copies a range of the source into a new string (source bytes map directly to chars)
+	public String substring(int start, int length) {
+		return new String(data, start, length, StandardCharsets.ISO_8859_1);
+	}
+
+	// view of a range of the source without copying it
+	public CharSequence slice(int start, int length) {
+		return new Slice(start, length);
+	}
+
+	private class Slice implements CharSequence {
+		private final int start;
+		private final int length;
+
+		Slice(int start, int length) {
+			this.start = start;
+			this.length = length;
+		}
+
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			if (index < 0 || index >= length) throw new IndexOutOfBoundsException(index);
+			return SourceBuffer.this.charAt(start + index);
+		}
+
+		@Override
+		public CharSequence subSequence(int from, int to) {
+			if (from < 0 || to > length || from > to) throw new IndexOutOfBoundsException();
+			return new Slice(start + from, to - from);
+		}
+
+		@Override
+		public String toString() {
+			return substring(start, length);
+		}
+	}
+
+	public static SourceBuffer map(File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size > Integer.MAX_VALUE) throw new IOException(String.format("Source file %s too large", file.getName()));
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			byte[] data = new byte[(int)size];
+			mapped.get(data);
+			return new SourceBuffer(data, data.length);
+		}
+	}
+
+	public static SourceBuffer read(InputStream in) throws IOException {
+		byte[] data = new byte[BLOCK_SIZE];
+		int length = 0;
+		while (true) {
+			if (length == data.length) data = Arrays.copyOf(data, data.length * 2);
+			int n = in.read(data, length, data.length - length);
+			if (n < 0) break;
+			length += n;
+		}
+		return new SourceBuffer(data, length);
+	}
+}
@@ -1,22 +1,56 @@
 package miniJava.SyntacticAnalyzer;
 
-public class SourcePosition implements Comparable<SourcePosition> {
-    public final int line;
-    public final int offset;
-    public SourcePosition(int line, int offset) {
-        this.line = line;
-        this.offset = offset;
+// source positions are packed into a long, file index in bits 53-62, line in bits 22-52 and offset in the low 22 bits
+// line and offset are stored plus one, so predefined declarations can sit at line and offset -1, and the sign bit
+// stays clear, so packed positions order the same as (file, line, offset) triples
+// lines use the whole field and never overflow in practice. offsets past MAX_OFFSET (a 4M character line) saturate
+// positions are in file 0 unless a multi-file compile moves them (see inFile)
+// line and offset are only unpacked when a position is printed
+public final class SourcePosition {
+    public static final int MAX_FILES = 1 << 10;
+    public static final long NONE = Long.MAX_VALUE; // no position, orders after all others
+
+    private static final int LINE_SHIFT = 22;
+    private static final int FILE_SHIFT = 53;
+    private static final long OFFSET_MASK = (1L << LINE_SHIFT) - 1;
+    private static final long LINE_MASK = (1L << (FILE_SHIFT - LINE_SHIFT)) - 1;
+
+    // the largest line and offset a position holds, the all ones line is left to NONE
+    public static final int MAX_LINE = (int) LINE_MASK - 2;
+    public static final int MAX_OFFSET = (int) OFFSET_MASK - 1;
+
+    private SourcePosition() {}
+
+    public static long pack(int line, int offset) {
+        long l = Math.max(-1, Math.min(line, MAX_LINE)) + 1;
+        long o = Math.max(-1, Math.min(offset, MAX_OFFSET)) + 1;
+        return l << LINE_SHIFT | o;
+    }
+
+    public static int file(long posn) {
+        return (int) (posn >>> FILE_SHIFT);
+    }
+
+    public static int line(long posn) {
+        return (int) (posn >>> LINE_SHIFT & LINE_MASK) - 1;
+    }
+
+    public static int offset(long posn) {
+        return (int) (posn & OFFSET_MASK) - 1;
+    }
+
+    // predefined declarations are at line -1 and in no source file
+    public static boolean inSource(long posn) {
+        return posn != NONE && line(posn) >= 0;
     }
 
-    @Override
-    public String toString() {
-        return String.format("%d:%d", line, offset);
+    // the same position in the given file
+    public static long inFile(long posn, int file) {
+        if (posn == NONE) return posn;
+        return (long) file << FILE_SHIFT | (posn & ~(-1L << FILE_SHIFT));
     }
 
-    @Override
-    public int compareTo(SourcePosition other) {
-        return line != other.line ? line < other.line ? -1 : 1
-                : offset != other.offset ? offset < other.offset ? -1 : 1
-                : 0;
+    public static String toString(long posn) {
+        return String.format("%d:%d", line(posn), offset(posn));
     }
 }
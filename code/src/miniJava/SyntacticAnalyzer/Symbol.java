@@ -2,9 +2,12 @@ package miniJava.SyntacticAnalyzer;
 
 import java.util.HashMap;
 
+// grammar for the push-down parser, left factored so one token of lookahead picks every production (see ParseTable)
+// action symbols in a production build the AST as the parser reaches them
 public class Symbol {
     private static HashMap<SymbolType, Symbol> nonTerminalSymbols = new HashMap<>();
     private static HashMap<TokenType, Symbol> terminalSymbols = new HashMap<>();
+    private static HashMap<ActionType, Symbol> actionSymbols = new HashMap<>();
     public static HashMap<SymbolType, Symbol[][]> productions = new HashMap<>();
 
     public static Symbol getSymbol(TokenType terminalType) {
@@ -15,6 +18,10 @@ public class Symbol {
         return nonTerminalSymbols.get(symbolType);
     }
 
+    public static Symbol getSymbol(ActionType actionType) {
+        return actionSymbols.get(actionType);
+    }
+
     public static Symbol[][] getProductions(SymbolType consumedSymbol) {
         return productions.containsKey(consumedSymbol) ? productions.get(consumedSymbol) : new Symbol[][] {};
     }
@@ -26,106 +33,218 @@ public class Symbol {
         for (TokenType tokenType : TokenType.values()) {
             terminalSymbols.put(tokenType, new Symbol(tokenType));
         }
+        for (ActionType actionType : ActionType.values()) {
+            actionSymbols.put(actionType, new Symbol(actionType));
+        }
+        // Program ::= ClassDeclaration* eot
         productions.put(SymbolType.Program, new Symbol[][] {
-                { getSymbol(SymbolType.ClassDeclaration), getSymbol(SymbolType.Program) },
-                { getSymbol(TokenType.End), getSymbol(TokenType.ParseEnd) }
+                { getSymbol(ActionType.Package), getSymbol(SymbolType.ClassDeclarations), getSymbol(TokenType.End) }
+        });
+        productions.put(SymbolType.ClassDeclarations, new Symbol[][] {
+                { getSymbol(SymbolType.ClassDeclaration), getSymbol(ActionType.AddClass), getSymbol(SymbolType.ClassDeclarations) },
+                {  }
         });
+        // ClassDeclaration ::= class id (extends id)? { (FieldDeclaration|MethodDeclaration)* }
         productions.put(SymbolType.ClassDeclaration, new Symbol[][] {
-                { getSymbol(TokenType.Class), getSymbol(TokenType.Identifier), getSymbol(TokenType.LCurly), getSymbol(SymbolType.MemberDeclarations), getSymbol(TokenType.RCurly) }
+                { getSymbol(ActionType.Class), getSymbol(TokenType.Class), getSymbol(ActionType.ClassName), getSymbol(TokenType.Identifier), getSymbol(SymbolType.OptionalExtends), getSymbol(TokenType.LCurly), getSymbol(SymbolType.MemberDeclarations), getSymbol(TokenType.RCurly) }
+        });
+        productions.put(SymbolType.OptionalExtends, new Symbol[][] {
+                { getSymbol(TokenType.Extends), getSymbol(ActionType.Parent), getSymbol(TokenType.Identifier) },
+                {  }
         });
         productions.put(SymbolType.MemberDeclarations, new Symbol[][] {
-                { getSymbol(SymbolType.FieldDeclaration), getSymbol(SymbolType.MemberDeclarations) },
-                { getSymbol(SymbolType.MethodDeclaration), getSymbol(SymbolType.MemberDeclarations) },
+                { getSymbol(SymbolType.MemberDeclaration), getSymbol(SymbolType.MemberDeclarations) },
+                {  }
+        });
+        // fields and methods share their prefix up to the name, so one declaration is built and turned into a method at (
+        productions.put(SymbolType.MemberDeclaration, new Symbol[][] {
+                { getSymbol(ActionType.Member), getSymbol(SymbolType.OptionalVisibility), getSymbol(SymbolType.Access), getSymbol(SymbolType.MemberRest) }
+        });
+        productions.put(SymbolType.OptionalVisibility, new Symbol[][] {
+                { getSymbol(ActionType.Visibility), getSymbol(TokenType.Visibility) },
+                {  }
+        });
+        productions.put(SymbolType.Access, new Symbol[][] {
+                { getSymbol(ActionType.Static), getSymbol(TokenType.Static) },
                 {  }
         });
-        productions.put(SymbolType.FieldDeclaration, new Symbol[][] {
-                { getSymbol(SymbolType.OptionalVisibility), getSymbol(SymbolType.Access), getSymbol(SymbolType.Type), getSymbol(TokenType.Identifier), getSymbol(TokenType.Semicolon) }
+        productions.put(SymbolType.MemberRest, new Symbol[][] {
+                { getSymbol(ActionType.Void), getSymbol(TokenType.VoidType), getSymbol(ActionType.MemberName), getSymbol(TokenType.Identifier), getSymbol(SymbolType.MethodDeclaration) },
+                { getSymbol(SymbolType.Type), getSymbol(ActionType.MemberType), getSymbol(ActionType.MemberName), getSymbol(TokenType.Identifier), getSymbol(SymbolType.FieldOrMethod) }
+        });
+        productions.put(SymbolType.FieldOrMethod, new Symbol[][] {
+                { getSymbol(TokenType.Semicolon), getSymbol(ActionType.AddField) },
+                { getSymbol(SymbolType.MethodDeclaration) }
         });
         productions.put(SymbolType.MethodDeclaration, new Symbol[][] {
-                { getSymbol(SymbolType.OptionalVisibility), getSymbol(SymbolType.Access), getSymbol(SymbolType.TypeOrVoid), getSymbol(TokenType.Identifier), getSymbol(TokenType.LParen), getSymbol(SymbolType.OptionalParameterList), getSymbol(TokenType.RParen), getSymbol(TokenType.LCurly), getSymbol(SymbolType.Statements), getSymbol(TokenType.RCurly) }
+                { getSymbol(ActionType.Method), getSymbol(TokenType.LParen), getSymbol(SymbolType.OptionalParameterList), getSymbol(TokenType.RParen), getSymbol(TokenType.LCurly), getSymbol(ActionType.MethodBody), getSymbol(SymbolType.Statements), getSymbol(TokenType.RCurly), getSymbol(ActionType.AddMethod) }
         });
-        productions.put(SymbolType.TypeOrVoid, new Symbol[][] {
-                { getSymbol(SymbolType.Type) },
-                { getSymbol(TokenType.VoidType) }
+        productions.put(SymbolType.OptionalParameterList, new Symbol[][] {
+                { getSymbol(SymbolType.Parameter), getSymbol(SymbolType.ParameterListRest) },
+                {  }
         });
-        productions.put(SymbolType.OptionalVisibility, new Symbol[][] {
-                {  },
-                { getSymbol(TokenType.Visibility) }
+        productions.put(SymbolType.ParameterListRest, new Symbol[][] {
+                { getSymbol(TokenType.Comma), getSymbol(SymbolType.Parameter), getSymbol(SymbolType.ParameterListRest) },
+                {  }
         });
-        productions.put(SymbolType.Access, new Symbol[][] {
-                {  },
-                { getSymbol(TokenType.Static) }
+        productions.put(SymbolType.Parameter, new Symbol[][] {
+                { getSymbol(ActionType.Parameter), getSymbol(SymbolType.Type), getSymbol(ActionType.ParameterName), getSymbol(TokenType.Identifier) }
         });
+        // Type ::= (int | boolean | ... | id)([])?
         productions.put(SymbolType.Type, new Symbol[][] {
-                { getSymbol(TokenType.IntType) },
+                { getSymbol(SymbolType.BaseType), getSymbol(SymbolType.OptionalArray) },
+                { getSymbol(ActionType.ClassType), getSymbol(TokenType.Identifier), getSymbol(SymbolType.OptionalArray) }
+        });
+        productions.put(SymbolType.BaseType, new Symbol[][] {
+                { getSymbol(ActionType.BaseType), getSymbol(SymbolType.PrimitiveType) }
+        });
+        productions.put(SymbolType.PrimitiveType, new Symbol[][] {
                 { getSymbol(TokenType.BooleanType) },
-                { getSymbol(TokenType.Identifier) },
-                { getSymbol(TokenType.IntType), getSymbol(TokenType.LBracket), getSymbol(TokenType.RBracket) },
-                { getSymbol(TokenType.Identifier), getSymbol(TokenType.LBracket), getSymbol(TokenType.RBracket) }
+                { getSymbol(TokenType.IntType) },
+                { getSymbol(TokenType.LongType) },
+                { getSymbol(TokenType.FloatType) },
+                { getSymbol(TokenType.DoubleType) },
+                { getSymbol(TokenType.CharType) }
         });
-        productions.put(SymbolType.OptionalParameterList, new Symbol[][] {
-                {  },
-                { getSymbol(SymbolType.ParameterList) }
+        productions.put(SymbolType.OptionalArray, new Symbol[][] {
+                { getSymbol(TokenType.LBracket), getSymbol(TokenType.RBracket), getSymbol(ActionType.ArrayType) },
+                {  }
+        });
+        productions.put(SymbolType.Statements, new Symbol[][] {
+                { getSymbol(SymbolType.Statement), getSymbol(ActionType.AddStatement), getSymbol(SymbolType.Statements) },
+                {  }
+        });
+        // statements without a nested statement are simple statements, which also appear without their ; in a for header
+        productions.put(SymbolType.Statement, new Symbol[][] {
+                { getSymbol(ActionType.Position), getSymbol(TokenType.LCurly), getSymbol(ActionType.StatementList), getSymbol(SymbolType.Statements), getSymbol(TokenType.RCurly), getSymbol(ActionType.Block) },
+                { getSymbol(SymbolType.SimpleStatement), getSymbol(TokenType.Semicolon) },
+                { getSymbol(ActionType.Position), getSymbol(TokenType.If), getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement), getSymbol(SymbolType.OptionalElse) },
+                { getSymbol(ActionType.Position), getSymbol(TokenType.While), getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement), getSymbol(ActionType.While) },
+                { getSymbol(ActionType.Position), getSymbol(TokenType.For), getSymbol(TokenType.LParen), getSymbol(SymbolType.OptionalSimpleStatement), getSymbol(TokenType.Semicolon), getSymbol(SymbolType.OptionalExpression), getSymbol(TokenType.Semicolon), getSymbol(SymbolType.OptionalSimpleStatement), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement), getSymbol(ActionType.For) }
+        });
+        // a dangling else binds to the nearest if
+        productions.put(SymbolType.OptionalElse, new Symbol[][] {
+                { getSymbol(TokenType.Else), getSymbol(SymbolType.Statement), getSymbol(ActionType.IfElse) },
+                { getSymbol(ActionType.If) }
+        });
+        productions.put(SymbolType.OptionalSimpleStatement, new Symbol[][] {
+                { getSymbol(SymbolType.SimpleStatement) },
+                { getSymbol(ActionType.None) }
+        });
+        productions.put(SymbolType.SimpleStatement, new Symbol[][] {
+                { getSymbol(ActionType.Position), getSymbol(SymbolType.SimpleStatementRest) }
+        });
+        productions.put(SymbolType.SimpleStatementRest, new Symbol[][] {
+                { getSymbol(ActionType.Token), getSymbol(TokenType.Identifier), getSymbol(SymbolType.IdStatementRest) },
+                { getSymbol(SymbolType.ThisOrSuper), getSymbol(SymbolType.ReferenceTail), getSymbol(SymbolType.ReferenceStatementRest) },
+                { getSymbol(SymbolType.BaseType), getSymbol(SymbolType.OptionalArray), getSymbol(SymbolType.VarDeclRest) },
+                { getSymbol(TokenType.Return), getSymbol(SymbolType.OptionalExpression), getSymbol(ActionType.Return) }
         });
-        productions.put(SymbolType.ParameterList, new Symbol[][] {
-                { getSymbol(SymbolType.Type), getSymbol(TokenType.Identifier) },
-                { getSymbol(SymbolType.Type), getSymbol(TokenType.Identifier), getSymbol(TokenType.Comma), getSymbol(SymbolType.ParameterList) }
+        // id id and id [ ] start declarations, anything else after id is a reference
+        productions.put(SymbolType.IdStatementRest, new Symbol[][] {
+                { getSymbol(ActionType.TokenClassType), getSymbol(SymbolType.VarDeclRest) },
+                { getSymbol(TokenType.LBracket), getSymbol(SymbolType.IdBracketRest) },
+                { getSymbol(ActionType.TokenIdRef), getSymbol(SymbolType.IdReferenceRest) }
         });
-        productions.put(SymbolType.OptionalArgumentList, new Symbol[][] {
-                {  },
-                { getSymbol(SymbolType.ArgumentList) }
+        productions.put(SymbolType.IdBracketRest, new Symbol[][] {
+                { getSymbol(TokenType.RBracket), getSymbol(ActionType.TokenArrayType), getSymbol(SymbolType.VarDeclRest) },
+                { getSymbol(ActionType.TokenIdRef), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(ActionType.IndexedAssign) }
         });
+        productions.put(SymbolType.IdReferenceRest, new Symbol[][] {
+                { getSymbol(TokenType.Dot), getSymbol(ActionType.Qualify), getSymbol(TokenType.Identifier), getSymbol(SymbolType.ReferenceTail), getSymbol(SymbolType.ReferenceStatementRest) },
+                { getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(ActionType.Assign) },
+                { getSymbol(TokenType.LParen), getSymbol(SymbolType.ArgumentList), getSymbol(TokenType.RParen), getSymbol(ActionType.Call) }
+        });
+        productions.put(SymbolType.VarDeclRest, new Symbol[][] {
+                { getSymbol(ActionType.Token), getSymbol(TokenType.Identifier), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(ActionType.VarDecl) }
+        });
+        productions.put(SymbolType.ReferenceStatementRest, new Symbol[][] {
+                { getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(ActionType.IndexedAssign) },
+                { getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(ActionType.Assign) },
+                { getSymbol(TokenType.LParen), getSymbol(SymbolType.ArgumentList), getSymbol(TokenType.RParen), getSymbol(ActionType.Call) }
+        });
+        productions.put(SymbolType.ThisOrSuper, new Symbol[][] {
+                { getSymbol(ActionType.This), getSymbol(TokenType.This) },
+                { getSymbol(ActionType.Super), getSymbol(TokenType.Super) }
+        });
+        // Reference ::= id | this | super | Reference . id
+        productions.put(SymbolType.ReferenceStart, new Symbol[][] {
+                { getSymbol(ActionType.IdRef), getSymbol(TokenType.Identifier) },
+                { getSymbol(SymbolType.ThisOrSuper) }
+        });
+        productions.put(SymbolType.ReferenceTail, new Symbol[][] {
+                { getSymbol(TokenType.Dot), getSymbol(ActionType.Qualify), getSymbol(TokenType.Identifier), getSymbol(SymbolType.ReferenceTail) },
+                {  }
+        });
+        // ArgumentList ::= (Expression (, Expression)*)?
         productions.put(SymbolType.ArgumentList, new Symbol[][] {
+                { getSymbol(ActionType.Arguments), getSymbol(SymbolType.Arguments) }
+        });
+        productions.put(SymbolType.Arguments, new Symbol[][] {
+                { getSymbol(SymbolType.Expression), getSymbol(ActionType.AddArgument), getSymbol(SymbolType.ArgumentsRest) },
+                {  }
+        });
+        productions.put(SymbolType.ArgumentsRest, new Symbol[][] {
+                { getSymbol(TokenType.Comma), getSymbol(SymbolType.Expression), getSymbol(ActionType.AddArgument), getSymbol(SymbolType.ArgumentsRest) },
+                {  }
+        });
+        productions.put(SymbolType.OptionalExpression, new Symbol[][] {
                 { getSymbol(SymbolType.Expression) },
-                { getSymbol(SymbolType.Expression), getSymbol(TokenType.Comma), getSymbol(SymbolType.ArgumentList) }
+                { getSymbol(ActionType.None) }
         });
-        productions.put(SymbolType.Reference, new Symbol[][] {
-                { getSymbol(SymbolType.IdentifierOrThis), getSymbol(SymbolType.ReferenceIdRepeat) },
+        // an expression is a chain of terms and binary operators, precedence is applied to the whole chain at its end
+        productions.put(SymbolType.Expression, new Symbol[][] {
+                { getSymbol(ActionType.Chain), getSymbol(SymbolType.Term), getSymbol(SymbolType.TermSuffix), getSymbol(SymbolType.ExpressionRest), getSymbol(ActionType.EndChain) }
         });
-        productions.put(SymbolType.ReferenceIdRepeat, new Symbol[][] {
-                {  },
-                { getSymbol(TokenType.Dot), getSymbol(TokenType.Identifier), getSymbol(SymbolType.ReferenceIdRepeat) },
+        productions.put(SymbolType.TermSuffix, new Symbol[][] {
+                { getSymbol(TokenType.InstanceOf), getSymbol(ActionType.InstanceOf), getSymbol(TokenType.Identifier) },
+                {  }
         });
-        productions.put(SymbolType.IdentifierOrThis, new Symbol[][] {
-                { getSymbol(TokenType.Identifier) },
-                { getSymbol(TokenType.This) }
+        // a plain id followed by another term is a cast of that term to class id, so ( id ) term parses as a cast
+        productions.put(SymbolType.ExpressionRest, new Symbol[][] {
+                { getSymbol(ActionType.Operator), getSymbol(SymbolType.BinaryOp), getSymbol(SymbolType.Term), getSymbol(SymbolType.TermSuffix), getSymbol(SymbolType.ExpressionRest) },
+                { getSymbol(ActionType.CastTarget), getSymbol(SymbolType.Term), getSymbol(ActionType.Cast), getSymbol(SymbolType.CastRest) },
+                {  }
         });
-        productions.put(SymbolType.Statements, new Symbol[][] {
-                {  },
-                { getSymbol(SymbolType.Statement), getSymbol(SymbolType.Statements) }
+        productions.put(SymbolType.CastRest, new Symbol[][] {
+                { getSymbol(ActionType.Operator), getSymbol(SymbolType.BinaryOp), getSymbol(SymbolType.Term), getSymbol(SymbolType.TermSuffix), getSymbol(SymbolType.ExpressionRest) },
+                {  }
         });
-        productions.put(SymbolType.Statement, new Symbol[][] {
-                { getSymbol(TokenType.LCurly), getSymbol(SymbolType.Statements), getSymbol(TokenType.RCurly) },
-                { getSymbol(SymbolType.Type), getSymbol(TokenType.Identifier), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(TokenType.Semicolon) },
-                { getSymbol(SymbolType.Reference), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(TokenType.Semicolon) },
-                { getSymbol(SymbolType.Reference), getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(TokenType.AssignmentOp), getSymbol(SymbolType.Expression), getSymbol(TokenType.Semicolon) },
-                { getSymbol(SymbolType.Reference), getSymbol(TokenType.LParen), getSymbol(SymbolType.OptionalArgumentList), getSymbol(TokenType.RParen), getSymbol(TokenType.Semicolon) },
-                { getSymbol(TokenType.Return), getSymbol(TokenType.Semicolon) },
-                { getSymbol(TokenType.Return), getSymbol(SymbolType.Expression), getSymbol(TokenType.Semicolon) },
-                { getSymbol(TokenType.If), getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement) },
-                { getSymbol(TokenType.If), getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement), getSymbol(TokenType.Else), getSymbol(SymbolType.Statement) },
-                { getSymbol(TokenType.While), getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(SymbolType.Statement) }
+        productions.put(SymbolType.Term, new Symbol[][] {
+                { getSymbol(SymbolType.ReferenceStart), getSymbol(SymbolType.ReferenceTail), getSymbol(SymbolType.TermReferenceRest) },
+                { getSymbol(ActionType.UnaryOperator), getSymbol(SymbolType.UnaryOp), getSymbol(SymbolType.Term), getSymbol(ActionType.Unary) },
+                { getSymbol(ActionType.Position), getSymbol(TokenType.LParen), getSymbol(SymbolType.ParenthesizedRest) },
+                { getSymbol(ActionType.Literal), getSymbol(SymbolType.Literal) },
+                { getSymbol(ActionType.Position), getSymbol(TokenType.New), getSymbol(SymbolType.NewRest) }
         });
-        productions.put(SymbolType.Expression, new Symbol[][] {
-                { getSymbol(SymbolType.ExpressionTerminator) },
-                { getSymbol(SymbolType.ExpressionTerminator), getSymbol(SymbolType.BinaryOp), getSymbol(SymbolType.Expression) }
+        productions.put(SymbolType.TermReferenceRest, new Symbol[][] {
+                { getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(ActionType.IndexExpr) },
+                { getSymbol(TokenType.LParen), getSymbol(SymbolType.ArgumentList), getSymbol(TokenType.RParen), getSymbol(ActionType.CallExpr) },
+                { getSymbol(ActionType.RefExpr) }
         });
-        productions.put(SymbolType.ExpressionTerminator, new Symbol[][] {
-                { getSymbol(TokenType.BooleanLiteral) },
-                { getSymbol(TokenType.New), getSymbol(TokenType.Identifier), getSymbol(TokenType.LParen), getSymbol(TokenType.RParen) },
-                { getSymbol(TokenType.New), getSymbol(TokenType.IntType), getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket) },
-                { getSymbol(TokenType.New), getSymbol(TokenType.Identifier), getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket) },
-                { getSymbol(TokenType.LParen), getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen) },
-                { getSymbol(SymbolType.Reference) },
-                { getSymbol(SymbolType.Reference), getSymbol(TokenType.LParen), getSymbol(SymbolType.OptionalArgumentList), getSymbol(TokenType.RParen) },
-                { getSymbol(SymbolType.UnaryOp), getSymbol(SymbolType.Expression) },
-                { getSymbol(SymbolType.Number) },
-                { getSymbol(SymbolType.Reference), getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket) }
+        productions.put(SymbolType.ParenthesizedRest, new Symbol[][] {
+                { getSymbol(SymbolType.Expression), getSymbol(TokenType.RParen), getSymbol(ActionType.Parenthesized) },
+                { getSymbol(SymbolType.BaseType), getSymbol(SymbolType.OptionalArray), getSymbol(TokenType.RParen), getSymbol(SymbolType.Term), getSymbol(ActionType.TypeCast) }
+        });
+        productions.put(SymbolType.NewRest, new Symbol[][] {
+                { getSymbol(ActionType.ClassType), getSymbol(TokenType.Identifier), getSymbol(SymbolType.NewObjectRest) },
+                { getSymbol(ActionType.BaseType), getSymbol(SymbolType.ArrayElementType), getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(ActionType.NewArray) }
+        });
+        productions.put(SymbolType.NewObjectRest, new Symbol[][] {
+                { getSymbol(TokenType.LParen), getSymbol(TokenType.RParen), getSymbol(ActionType.NewObject) },
+                { getSymbol(TokenType.LBracket), getSymbol(SymbolType.Expression), getSymbol(TokenType.RBracket), getSymbol(ActionType.NewArray) }
+        });
+        productions.put(SymbolType.ArrayElementType, new Symbol[][] {
+                { getSymbol(TokenType.IntType) },
+                { getSymbol(TokenType.LongType) },
+                { getSymbol(TokenType.FloatType) },
+                { getSymbol(TokenType.DoubleType) },
+                { getSymbol(TokenType.CharType) }
         });
         productions.put(SymbolType.UnaryOp, new Symbol[][] {
+                { getSymbol(TokenType.Minus) },
                 { getSymbol(TokenType.BitComp) },
-                { getSymbol(TokenType.LogNot) },
-                { getSymbol(TokenType.Minus) }
+                { getSymbol(TokenType.LogNot) }
         });
         productions.put(SymbolType.BinaryOp, new Symbol[][] {
                 { getSymbol(TokenType.Add) },
@@ -139,29 +258,43 @@ public class Symbol {
                 { getSymbol(TokenType.RelEq) },
                 { getSymbol(TokenType.RelNEq) },
                 { getSymbol(TokenType.BitAnd) },
+                { getSymbol(TokenType.BitXor) },
                 { getSymbol(TokenType.BitOr) },
                 { getSymbol(TokenType.LogAnd) },
                 { getSymbol(TokenType.LogOr) }
         });
-        productions.put(SymbolType.Number, new Symbol[][] {
-                { getSymbol(TokenType.ByteLiteral) },
+        productions.put(SymbolType.Literal, new Symbol[][] {
                 { getSymbol(TokenType.IntLiteral) },
+                { getSymbol(TokenType.LongLiteral) },
+                { getSymbol(TokenType.FloatLiteral) },
                 { getSymbol(TokenType.DoubleLiteral) },
-                { getSymbol(TokenType.FloatLiteral) }
+                { getSymbol(TokenType.CharLiteral) },
+                { getSymbol(TokenType.BooleanLiteral) },
+                { getSymbol(TokenType.NullLiteral) }
         });
+
     }
 
-    private final TokenType terminalType; // null if non-terminal
-    private final SymbolType symbolType; // null if terminal
+    private final TokenType terminalType; // null if not a terminal
+    private final SymbolType symbolType; // null if not a non-terminal
+    private final ActionType actionType; // null if not an action
 
     private Symbol(TokenType terminalType) {
         this.terminalType = terminalType;
         symbolType = null;
+        actionType = null;
     }
 
     private Symbol(SymbolType symbolType) {
         terminalType = null;
         this.symbolType = symbolType;
+        actionType = null;
+    }
+
+    private Symbol(ActionType actionType) {
+        terminalType = null;
+        symbolType = null;
+        this.actionType = actionType;
     }
 
     public TokenType getTerminalType() {
@@ -172,12 +305,21 @@ public class Symbol {
         return symbolType;
     }
 
+    public ActionType getActionType() {
+        return actionType;
+    }
+
     public boolean isTerminal() {
         return terminalType != null;
     }
 
+    public boolean isAction() {
+        return actionType != null;
+    }
+
     @Override
     public String toString() {
+        if (isAction()) return "@" + actionType;
         return isTerminal() ? terminalType.toString() : symbolType.toString();
     }
 }
\ No newline at end of file
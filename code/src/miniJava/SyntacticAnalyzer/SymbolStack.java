@@ -1,43 +1,68 @@
 package miniJava.SyntacticAnalyzer;
 
+// immutable push-down stack state, a linked list from the top symbol down
+// pushing and popping make a new top node and share the rest of the stack, so a step costs the
+// length of the production instead of the depth of the stack
 public class SymbolStack {
-    public final Symbol[] stack;
-    public final int tokenIndex;
-    public final int prodCount;
-    public SymbolStack(Symbol[] stack, int tokenIndex, int prodCount) {
-        this.stack = stack;
-        this.tokenIndex = tokenIndex;
-        this.prodCount = prodCount;
+    private static class Node {
+        final Symbol symbol;
+        final Node below;
+        final int size;
+
+        Node(Symbol symbol, Node below) {
+            this.symbol = symbol;
+            this.below = below;
+            this.size = below == null ? 1 : below.size + 1;
+        }
+    }
+
+    private final Node top;
+
+    // stack lists symbols from the bottom up
+    public SymbolStack(Symbol[] stack) {
+        Node top = null;
+        for (Symbol symbol : stack) top = new Node(symbol, top);
+        this.top = top;
+    }
+
+    private SymbolStack(Node top) {
+        this.top = top;
+    }
+
+    public int size() {
+        return top == null ? 0 : top.size;
     }
 
     public Symbol top() {
-        return stack[stack.length - 1];
+        if (top == null) throw new ArrayIndexOutOfBoundsException();
+        return top.symbol;
     }
 
     public SymbolStack handleProduction(Symbol[] production) {
-        if (stack.length == 0) throw new ArrayIndexOutOfBoundsException(); 
-        Symbol[] newStack = new Symbol[stack.length + production.length - 1];
-        System.arraycopy(stack, 0, newStack, 0, stack.length - 1);
-        for (int i = 0; i < production.length; i++) {
-            newStack[newStack.length - 1 - i] = production[i];
+        if (top == null) throw new ArrayIndexOutOfBoundsException();
+        Node newTop = top.below;
+        for (int i = production.length - 1; i >= 0; i--) {
+            newTop = new Node(production[i], newTop);
         }
-        return new SymbolStack(newStack, tokenIndex, prodCount + 1);
+        return new SymbolStack(newTop);
+    }
+
+    public SymbolStack handleAction() {
+        if (top == null) throw new ArrayIndexOutOfBoundsException();
+        return new SymbolStack(top.below);
     }
 
     public SymbolStack handleTerminal() {
-        if (stack.length == 0) throw new ArrayIndexOutOfBoundsException();
-        Symbol[] newStack = new Symbol[stack.length - 1];
-        System.arraycopy(stack, 0, newStack, 0, stack.length - 1);
-        return new SymbolStack(newStack, tokenIndex + 1, 0);
+        if (top == null) throw new ArrayIndexOutOfBoundsException();
+        return new SymbolStack(top.below);
     }
 
     @Override
     public String toString() {
+        Symbol[] stack = new Symbol[size()];
+        int i = stack.length;
+        for (Node node = top; node != null; node = node.below) stack[--i] = node.symbol;
         StringBuilder s = new StringBuilder();
-        s.append(tokenIndex);
-        s.append(":");
-        s.append(prodCount);
-        s.append(" ");
         for (Symbol symbol : stack) {
             s.append(symbol.toString());
             s.append(" ");
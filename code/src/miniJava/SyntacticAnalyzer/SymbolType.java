@@ -4,27 +4,53 @@ public enum SymbolType {
     // PRIMARY
     Program,
     ClassDeclaration,
-    FieldDeclaration,
+    MemberDeclaration,
     MethodDeclaration,
+    Parameter,
     Access,
     Type,
-    ParameterList,
     ArgumentList,
-    Reference,
     Statement,
     Expression,
+    Term,
     UnaryOp,
     BinaryOp,
-    Number,
+    Literal,
 
     // HELPER
+    ClassDeclarations,
+    OptionalExtends,
     MemberDeclarations,
     OptionalVisibility,
-    TypeOrVoid,
+    MemberRest,
+    FieldOrMethod,
     OptionalParameterList,
-    OptionalArgumentList,
+    ParameterListRest,
+    BaseType,
+    PrimitiveType,
+    OptionalArray,
     Statements,
-    IdentifierOrThis,
-    ExpressionTerminator,
-    ReferenceIdRepeat,
+    OptionalElse,
+    SimpleStatement,
+    SimpleStatementRest,
+    OptionalSimpleStatement,
+    IdStatementRest,
+    IdBracketRest,
+    IdReferenceRest,
+    VarDeclRest,
+    ReferenceStatementRest,
+    ThisOrSuper,
+    ReferenceStart,
+    ReferenceTail,
+    Arguments,
+    ArgumentsRest,
+    OptionalExpression,
+    TermSuffix,
+    ExpressionRest,
+    CastRest,
+    TermReferenceRest,
+    ParenthesizedRest,
+    NewRest,
+    NewObjectRest,
+    ArrayElementType,
 }
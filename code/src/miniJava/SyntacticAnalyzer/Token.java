@@ -1,18 +1,39 @@
 package miniJava.SyntacticAnalyzer;
 
-import miniJava.SyntacticAnalyzer.SourcePosition;
-
 public class Token {
 	private final TokenType type;
-	private final String text;
-	private final int line;
-	private final int offset;
+	private String text; // materialized on first request when the token is a slice of the source
+	private final SourceBuffer source;
+	private final int start;
+	private final int length;
+	private final long posn;
+	private final long payload;
 	
 	public Token(TokenType type, String text, int line, int offset) {
+		this(type, text, 0, line, offset);
+	}
+
+	// payload is the name pool id of an identifier, the value of a literal (long bits of numbers,
+	// raw IEEE 754 bits of floats and doubles, the char of a char literal, 1 for true) or 0
+	Token(TokenType type, String text, long payload, int line, int offset) {
 		this.type = type;
+		this.payload = payload;
 		this.text = text;
-		this.line = line;
-		this.offset = offset;
+		this.source = null;
+		this.start = 0;
+		this.length = text.length();
+		this.posn = SourcePosition.pack(line, offset);
+	}
+
+	// token whose text is the given range of the source buffer
+	Token(TokenType type, SourceBuffer source, int start, int length, long payload, int line, int offset) {
+		this.type = type;
+		this.payload = payload;
+		this.text = null;
+		this.source = source;
+		this.start = start;
+		this.length = length;
+		this.posn = SourcePosition.pack(line, offset);
 	}
 	
 	public TokenType getTokenType() {
@@ -20,17 +41,31 @@ public class Token {
 	}
 	
 	public String getTokenText() {
+		if (text == null) text = source.substring(start, length);
 		return text;
 	}
 
+	// token text without forcing a copy out of the source buffer
+	public CharSequence getTokenChars() {
+		return text != null ? text : source.slice(start, length);
+	}
+
+	public long getPayload() {
+		return payload;
+	}
+
+	public int getTextLength() {
+		return length;
+	}
+
 	public int getLine() {
-		return line;
+		return SourcePosition.line(posn);
 	}
 
 	public int getOffset() {
-		return offset;
+		return SourcePosition.offset(posn);
 	}
-	public SourcePosition getTokenPosition() {
-		return new SourcePosition(line, offset);
+	public long getTokenPosition() {
+		return posn;
 	}
 }
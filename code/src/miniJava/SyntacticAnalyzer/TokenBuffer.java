@@ -0,0 +1,268 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import miniJava.ErrorReporter;
+
+// tokens of a compilation unit held as parallel primitive arrays and addressed by token index
+// filled from the scanner on demand as the parser looks ahead, all at once up front (eager), or by a scanner
+// thread running ahead of the parser (pipelined, see TokenPipe)
+// scanner errors are held back per token and only reported once the parser reaches that token,
+// so lookahead and eager lexing never report errors past the point where parsing stops
+public class TokenBuffer {
+	private static final int MIN_CAPACITY = 64;
+	private static final int PIPE_BATCH_TOKENS = 512;
+	private static final int PIPE_BATCHES = 64;
+	private static final TokenType[] tokenTypes = TokenType.values();
+	private static final byte IDENTIFIER = (byte)TokenType.Identifier.ordinal();
+
+	private static class DeferredError {
+		final int token;
+		final long posn;
+		final String message;
+		DeferredError(int token, long posn, String message) {
+			this.token = token;
+			this.posn = posn;
+			this.message = message;
+		}
+	}
+
+	private final Scanner scanner;
+	private final TokenPipe pipe; // null unless pipelined
+	private final SourceBuffer source;
+	private byte[] types;
+	private int[] starts;
+	private int[] lengths;
+	private long[] positions; // packed line and offset
+	private String[] texts; // null when the text is the token's range of the source
+	private long[] payloads; // see Token
+	private int count;
+	private boolean complete; // last buffered token is End or Error, nothing left to scan
+	private final List<DeferredError> deferredErrors = new ArrayList<>();
+	private int reportedErrors;
+
+	public TokenBuffer(Scanner scanner) {
+		this(scanner, MIN_CAPACITY);
+	}
+
+	TokenBuffer(Scanner scanner, int capacity) {
+		this(scanner, null, capacity);
+	}
+
+	private TokenBuffer(Scanner scanner, TokenPipe pipe, int capacity) {
+		this.scanner = scanner;
+		this.pipe = pipe;
+		this.source = scanner.getSource();
+		types = new byte[capacity];
+		starts = new int[capacity];
+		lengths = new int[capacity];
+		positions = new long[capacity];
+		texts = new String[capacity];
+		payloads = new long[capacity];
+	}
+
+	// lexes the entire input before parsing starts
+	public static TokenBuffer eager(Scanner scanner) {
+		// roughly one token per 4 bytes of source keeps regrowth rare
+		TokenBuffer tokens = new TokenBuffer(scanner, Math.max(MIN_CAPACITY, scanner.getSource().length() / 4));
+		tokens.scanAll();
+		return tokens;
+	}
+
+	// lexes on a thread of its own, ahead of the parser reading the tokens, with positions in the given file
+	// tokens are handed over in batches of batchTokens through a ring of that many batches
+	// (call close if the tokens will not be read up to the end)
+	public static TokenBuffer pipelined(Scanner scanner, int file, int batchTokens, int batches) {
+		TokenPipe pipe = new TokenPipe(scanner, file, batchTokens, batches);
+		return new TokenBuffer(scanner, pipe, Math.max(MIN_CAPACITY, scanner.getSource().length() / 4));
+	}
+
+	public static TokenBuffer pipelined(Scanner scanner, int file) {
+		return pipelined(scanner, file, PIPE_BATCH_TOKENS, PIPE_BATCHES);
+	}
+
+	// stops the scanner thread of a pipelined buffer
+	public void close() {
+		if (pipe != null) pipe.close();
+	}
+
+	void scanAll() {
+		while (!complete) scanNext();
+	}
+
+	private void scanNext() {
+		if (pipe != null) pipe.takeInto(this);
+		else scanner.scanInto(this);
+	}
+
+	boolean isComplete() {
+		return complete;
+	}
+
+	SourceBuffer getSource() {
+		return source;
+	}
+
+	Scanner getScanner() {
+		return scanner;
+	}
+
+	// number of tokens scanned so far
+	public int size() {
+		return count;
+	}
+
+	public TokenType type(int index) {
+		int i = at(index);
+		return tokenTypes[types[i]];
+	}
+
+	public String text(int index) {
+		int i = at(index);
+		if (texts[i] == null) texts[i] = source.substring(starts[i], lengths[i]);
+		return texts[i];
+	}
+
+	public CharSequence chars(int index) {
+		int i = at(index);
+		return texts[i] != null ? texts[i] : source.slice(starts[i], lengths[i]);
+	}
+
+	// name pool id of an identifier, -1 for other tokens
+	public int nameId(int index) {
+		int i = at(index);
+		return types[i] == IDENTIFIER ? (int)payloads[i] : -1;
+	}
+
+	// decoded value of a literal (see Token)
+	public long payload(int index) {
+		int i = at(index);
+		return payloads[i];
+	}
+
+	public int start(int index) {
+		int i = at(index);
+		return starts[i];
+	}
+
+	public int length(int index) {
+		int i = at(index);
+		return lengths[i];
+	}
+
+	public int line(int index) {
+		int i = at(index);
+		return SourcePosition.line(positions[i]);
+	}
+
+	public int offset(int index) {
+		int i = at(index);
+		return SourcePosition.offset(positions[i]);
+	}
+
+	public long position(int index) {
+		int i = at(index);
+		return positions[i];
+	}
+
+	// reports held back scanner errors belonging to tokens up to and including index
+	public void reportErrors(int index, ErrorReporter errors) {
+		while (reportedErrors < deferredErrors.size() && deferredErrors.get(reportedErrors).token <= index) {
+			DeferredError error = deferredErrors.get(reportedErrors++);
+			errors.reportError(error.posn, error.message);
+		}
+	}
+
+	// moves every token and held back error into the given file of a multi-file compile, scanning what is left first
+	public void moveToFile(int file) {
+		scanAll();
+		for (int i = 0; i < count; ++i) positions[i] = SourcePosition.inFile(positions[i], file);
+		for (int i = 0; i < deferredErrors.size(); ++i) {
+			DeferredError error = deferredErrors.get(i);
+			deferredErrors.set(i, new DeferredError(error.token, SourcePosition.inFile(error.posn, file), error.message));
+		}
+	}
+
+	// scans up to index if needed, indexes past the final token refer to the final token
+	// (call before reading the arrays, scanning may reallocate them)
+	private int at(int index) {
+		while (index >= count && !complete) scanNext();
+		return index < count ? index : count - 1;
+	}
+
+	void add(TokenType type, int start, int length, long posn, String text, long payload) {
+		if (count == types.length) grow(count + 1);
+		types[count] = (byte)type.ordinal();
+		starts[count] = start;
+		lengths[count] = length;
+		positions[count] = posn;
+		texts[count] = text;
+		payloads[count] = payload;
+		count += 1;
+		if (type == TokenType.End || type == TokenType.Error) complete = true;
+	}
+
+	private void grow(int needed) {
+		int capacity = Math.max(needed, count * 2);
+		types = Arrays.copyOf(types, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		lengths = Arrays.copyOf(lengths, capacity);
+		positions = Arrays.copyOf(positions, capacity);
+		texts = Arrays.copyOf(texts, capacity);
+		payloads = Arrays.copyOf(payloads, capacity);
+	}
+
+	// appends every token of a batch scanned by a pipe along with its held back errors, moved into the given file
+	void appendBatch(TokenBuffer batch, int file) {
+		int first = count;
+		int n = batch.count;
+		if (count + n > types.length) grow(count + n);
+		System.arraycopy(batch.types, 0, types, first, n);
+		System.arraycopy(batch.starts, 0, starts, first, n);
+		System.arraycopy(batch.lengths, 0, lengths, first, n);
+		System.arraycopy(batch.texts, 0, texts, first, n);
+		System.arraycopy(batch.payloads, 0, payloads, first, n);
+		if (file == 0) System.arraycopy(batch.positions, 0, positions, first, n);
+		else for (int i = 0; i < n; ++i) positions[first + i] = SourcePosition.inFile(batch.positions[i], file);
+		for (DeferredError error : batch.deferredErrors)
+			deferredErrors.add(new DeferredError(error.token + first, SourcePosition.inFile(error.posn, file), error.message));
+		count += n;
+		complete = batch.complete;
+	}
+
+	// error raised while scanning the next token to be added
+	void deferError(long posn, String message) {
+		deferredErrors.add(new DeferredError(count, posn, message));
+	}
+
+	// drops tokens from index onwards along with their held back errors
+	void truncate(int index) {
+		count = index;
+		complete = false;
+		while (!deferredErrors.isEmpty() && deferredErrors.get(deferredErrors.size() - 1).token >= index)
+			deferredErrors.remove(deferredErrors.size() - 1);
+	}
+
+	// appends tokens [from, to) of other, moved by startShift bytes and lineShift lines
+	// tokens (and errors) on line shiftedLine also move by offsetShift within that line
+	void append(TokenBuffer other, int from, int to, int startShift, int shiftedLine, int lineShift, int offsetShift) {
+		int first = count;
+		for (int i = from; i < to; ++i) {
+			long posn = shift(other.positions[i], shiftedLine, lineShift, offsetShift);
+			add(tokenTypes[other.types[i]], other.starts[i] + startShift, other.lengths[i], posn, other.texts[i], other.payloads[i]);
+		}
+		for (DeferredError error : other.deferredErrors) {
+			if (error.token < from || error.token >= to) continue;
+			long posn = error.posn == SourcePosition.NONE ? error.posn : shift(error.posn, shiftedLine, lineShift, offsetShift);
+			deferredErrors.add(new DeferredError(error.token - from + first, posn, error.message));
+		}
+	}
+
+	private static long shift(long posn, int shiftedLine, int lineShift, int offsetShift) {
+		int line = SourcePosition.line(posn);
+		int offset = SourcePosition.offset(posn);
+		return SourcePosition.pack(line + lineShift, line == shiftedLine ? offset + offsetShift : offset);
+	}
+}
@@ -0,0 +1,83 @@
+package miniJava.SyntacticAnalyzer;
+
+import java.util.concurrent.locks.LockSupport;
+
+// pipelined lexing: a scanner thread feeds the token buffer a parser reads, so lexing and parsing overlap
+// the two threads share a bounded single-producer, single-consumer ring of token batches. the scanner fills the
+// free batch at tail with up to batchTokens tokens (and the errors held back for them) and publishes it with one
+// write of tail, the reader copies every published batch at once and frees them with one write of head. neither
+// side takes a lock, and batches are reused, so the ring allocates nothing once running.
+// backpressure: the scanner stops while the ring is full and the reader while it is empty, each spinning
+// briefly, then yielding, then parking in short intervals, so a slow side never has the other burning a core.
+// scanner errors travel with their tokens and are reported when the parser reaches them, as without the pipe
+final class TokenPipe {
+	private static final int SPINS = 64;
+	private static final int YIELDS = 16;
+	private static final long PARK_NANOS = 20_000;
+
+	private final Scanner scanner;
+	private final TokenBuffer[] batches;
+	private final int mask;
+	private final int batchTokens;
+	private final int file;
+	private volatile long head; // batches taken by the reader
+	private volatile long tail; // batches published by the scanner
+	private volatile boolean closed; // the reader stopped early, the scanner gives up
+	private volatile Throwable failure; // what stopped the scanner thread, if anything did
+
+	// batches is rounded up to a power of two
+	TokenPipe(Scanner scanner, int file, int batchTokens, int batches) {
+		int capacity = Integer.highestOneBit(Math.max(1, batches) * 2 - 1);
+		this.scanner = scanner;
+		this.batches = new TokenBuffer[capacity];
+		this.mask = capacity - 1;
+		this.batchTokens = Math.max(1, batchTokens);
+		this.file = file;
+		for (int i = 0; i < capacity; ++i) this.batches[i] = new TokenBuffer(scanner, this.batchTokens);
+		Thread thread = new Thread(this::produce, "miniJava scanner");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	private void produce() {
+		try {
+			long published = 0;
+			boolean complete = false;
+			while (!complete && !closed) {
+				for (int idle = 0; published - head == batches.length; ++idle) {
+					if (closed) return;
+					await(idle);
+				}
+				TokenBuffer batch = batches[(int)published & mask];
+				batch.truncate(0);
+				while (batch.size() < batchTokens && !batch.isComplete()) scanner.scanInto(batch);
+				complete = batch.isComplete();
+				tail = ++published;
+			}
+		} catch (Throwable e) {
+			failure = e;
+		}
+	}
+
+	// appends the next published batches to tokens, waiting for the scanner if there are none yet
+	void takeInto(TokenBuffer tokens) {
+		long taken = head;
+		for (int idle = 0; taken == tail; ++idle) {
+			// a batch published just before the scanner failed is still taken first
+			if (failure != null && taken == tail) throw new IllegalStateException("pipelined scanner failed", failure);
+			await(idle);
+		}
+		for (long available = tail; taken < available; ++taken) tokens.appendBatch(batches[(int)taken & mask], file);
+		head = taken;
+	}
+
+	void close() {
+		closed = true;
+	}
+
+	private static void await(int idle) {
+		if (idle < SPINS) Thread.onSpinWait();
+		else if (idle < SPINS + YIELDS) Thread.yield();
+		else LockSupport.parkNanos(PARK_NANOS);
+	}
+}
@@ -0,0 +1,111 @@
+package miniJava.UnitTests;
+
+import miniJava.Compiler;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+// whole program tests, for what the unit tester's parse can't show (contextual errors, several files, generated code)
+// each input is compiled, and what the compiler prints from its outcome (Success or Error) on, followed by what the
+// generated a.out prints when it is run, must match the expected output. an input holds one source file, or several
+// that each start with a line "//// file {file name}". a first line "//// args {options}" passes those options to the
+// compiler, and a line "//// lines {count}" stands for that many empty lines
+public class CompileTester {
+    private static final String DIRECTIVE = "//// ";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) throw new IllegalArgumentException("missing test folder path");
+        File testFolder = new File(args[0] + "/compile_tests");
+        if (!testFolder.isDirectory())
+            throw new RuntimeException(String.format("invalid test folder path %s", args[0]));
+        TreeMap<String, File> inputs = new TreeMap<>();
+        for (File file : testFolder.listFiles()) {
+            String name = file.getName();
+            if (name.endsWith("_input.txt")) inputs.put(name.substring(0, name.length() - "_input.txt".length()), file);
+            else if (!name.endsWith("_expected.txt")) throw new RuntimeException(String.format("invalid test file %s", name));
+        }
+
+        int failed = 0;
+        for (String name : inputs.keySet()) {
+            String output = run(inputs.get(name));
+            String expected = new String(Files.readAllBytes(new File(testFolder, name + "_expected.txt").toPath()), StandardCharsets.ISO_8859_1);
+            if (output.trim().equals(expected.trim())) {
+                System.out.printf("test %s passed\n", name);
+            } else {
+                failed++;
+                System.err.printf("test %s failed\n", name);
+                try (OutputStream out = new FileOutputStream(new File(args[0] + "/failed_test_outputs/" + name + ".txt"))) {
+                    out.write(output.getBytes(StandardCharsets.ISO_8859_1));
+                }
+            }
+        }
+        if (failed > 0) System.exit(1);
+    }
+
+    // splits the input into its files in a scratch directory, compiles them and runs the result
+    private static String run(File input) throws IOException, InterruptedException {
+        File dir = Files.createTempDirectory("compile_test").toFile();
+        List<String> compilerArgs = new ArrayList<>();
+        List<File> files = new ArrayList<>();
+        StringBuilder text = null;
+        for (String line : Files.readAllLines(input.toPath(), StandardCharsets.ISO_8859_1)) {
+            if (line.startsWith(DIRECTIVE + "args ") && files.isEmpty() && text == null) {
+                for (String arg : line.substring(DIRECTIVE.length() + 5).trim().split("\\s+")) compilerArgs.add(arg);
+                continue;
+            }
+            if (line.startsWith(DIRECTIVE + "file ")) {
+                if (text != null) write(files.get(files.size() - 1), text);
+                files.add(new File(dir, line.substring(DIRECTIVE.length() + 5).trim()));
+                text = new StringBuilder();
+                continue;
+            }
+            if (text == null) {
+                files.add(new File(dir, input.getName()));
+                text = new StringBuilder();
+            }
+            if (line.startsWith(DIRECTIVE + "lines ")) text.append("\n".repeat(Integer.parseInt(line.substring(DIRECTIVE.length() + 6).trim())));
+            else text.append(line).append('\n');
+        }
+        if (text != null) write(files.get(files.size() - 1), text);
+        for (File file : files) compilerArgs.add(file.getPath());
+
+        File program = new File("a.out");
+        program.delete();
+        ByteArrayOutputStream compilerOut = new ByteArrayOutputStream();
+        PrintStream stdout = System.out;
+        System.setOut(new PrintStream(compilerOut, true));
+        try {
+            Compiler.main(compilerArgs.toArray(new String[0]));
+        } catch (RuntimeException e) {
+            System.out.println(e);
+        } finally {
+            System.setOut(stdout);
+        }
+        // the tree display and class listing before the outcome are left out. file names are printed as given, without
+        // the scratch directory
+        String output = compilerOut.toString("ISO-8859-1").replace(dir.getPath() + File.separator, "");
+        int outcome = Math.max(output.lastIndexOf("Success\n"), output.lastIndexOf("Error\n"));
+        if (outcome > 0 && output.charAt(outcome - 1) == '\n') output = output.substring(outcome);
+        for (File file : files) file.delete();
+        dir.delete();
+
+        if (program.exists()) {
+            program.setExecutable(true);
+            Process process = new ProcessBuilder(program.getAbsolutePath()).redirectErrorStream(true).start();
+            byte[] programOut = process.getInputStream().readAllBytes();
+            if (!process.waitFor(10, TimeUnit.SECONDS)) process.destroyForcibly();
+            output += "Run\n" + new String(programOut, StandardCharsets.ISO_8859_1);
+            program.delete();
+        }
+        return output;
+    }
+
+    private static void write(File file, StringBuilder text) throws IOException {
+        Files.write(file.toPath(), text.toString().getBytes(StandardCharsets.ISO_8859_1));
+    }
+}
@@ -0,0 +1,100 @@
+package miniJava.UnitTests;
+
+import miniJava.ErrorReporter;
+import miniJava.AbstractSyntaxTrees.AST;
+import miniJava.AbstractSyntaxTrees.ClassDecl;
+import miniJava.AbstractSyntaxTrees.FlatAST;
+import miniJava.AbstractSyntaxTrees.MethodDecl;
+import miniJava.AbstractSyntaxTrees.Package;
+import miniJava.SyntacticAnalyzer.ParallelParser;
+import miniJava.SyntacticAnalyzer.Parser;
+import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.SourceBuffer;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+// recursive descent against the table driven push-down parser, lazy method bodies, parallel class parsing and
+// rebuilding from the binary flat AST of the AST cache
+// on a generated source
+// the source is lexed once up front so only parsing is timed, except for the last two rows, which time lexing
+// followed by parsing against lexing on a scanner thread overlapped with parsing (TokenBuffer.pipelined)
+// usage: ParserBenchmark [megabytes] [rounds]
+public class ParserBenchmark {
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        SourceBuffer source = generate(megabytes << 20);
+        TokenBuffer tokens = TokenBuffer.eager(new Scanner(source, new ErrorReporter()));
+        for (Parser.Mode mode : Parser.Mode.values()) {
+            time(mode.toString(), source, tokens, rounds, () -> new Parser(tokens, new ErrorReporter(), mode).parse());
+        }
+        // headers only, the bodies are never read
+        time("Lazy bodies", source, tokens, rounds, () -> {
+            Parser parser = new Parser(tokens, new ErrorReporter());
+            parser.enableLazyBodies();
+            return parser.parse();
+        });
+        time(String.format("Parallel (%d workers)", ForkJoinPool.commonPool().getParallelism()), source, tokens, rounds,
+                () -> ParallelParser.parse(tokens, new ErrorReporter(), ParallelParser.MIN_GROUP_TOKENS, ForkJoinPool.commonPool()));
+        // what an AST cache hit costs once the entry is read from disk, then with every method body read
+        byte[] cached = FlatAST.flatten((Package) new Parser(tokens, new ErrorReporter()).parse()).toBytes();
+        time("Cached AST", source, tokens, rounds, () -> FlatAST.fromBytes(cached, 0).view());
+        time("Cached AST, bodies read", source, tokens, rounds, () -> {
+            Package ast = FlatAST.fromBytes(cached, 0).view();
+            for (ClassDecl cd : ast.classDeclList) {
+                for (MethodDecl md : cd.methodDeclList) md.statementList.size();
+            }
+            return ast;
+        });
+        time("Scan + recursive descent", source, tokens, rounds, () -> new Parser(new Scanner(source, new ErrorReporter()), new ErrorReporter()).parse());
+        time("Pipelined scan + recursive descent", source, tokens, rounds, () -> {
+            TokenBuffer pipelined = TokenBuffer.pipelined(new Scanner(source, new ErrorReporter()), 0);
+            try {
+                return new Parser(pipelined, new ErrorReporter()).parse();
+            } finally {
+                pipelined.close();
+            }
+        });
+    }
+
+    private static void time(String name, SourceBuffer source, TokenBuffer tokens, int rounds, Supplier<AST> parse) {
+        // warm up before timing so the parser is compiled
+        for (int i = 0; i < 3; ++i) parse.get();
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < rounds; ++i) {
+            long start = System.nanoTime();
+            AST ast = parse.get();
+            best = Math.min(best, System.nanoTime() - start);
+            if (ast == null) throw new RuntimeException(String.format("%s parser failed", name));
+        }
+        System.out.printf("%s parser: %d tokens in %.3fms, %.1f MB/s\n", name, tokens.size(),
+                (double)best / 1000000, source.length() / ((double)best / 1000000000) / (1 << 20));
+    }
+
+    // repeats a class exercising most statement and expression forms until the source reaches the given size
+    private static SourceBuffer generate(int size) {
+        String body = " {\n"
+                + "    private int[] values;\n"
+                + "    public static boolean flag;\n"
+                + "    public int sum(int[] a, int n) {\n"
+                + "        int total = 0;\n"
+                + "        for (int i = 0; i < n; i = i + 1) {\n"
+                + "            if (a[i] > 0 && !(a[i] == 2 || flag)) total = total + a[i] * (3 - i) / 2;\n"
+                + "            else this.values[i] = -a[i];\n"
+                + "        }\n"
+                + "        Node node = new Node();\n"
+                + "        while (node.next != null) node = node.next;\n"
+                + "        node.visit(this, total, (long) total);\n"
+                + "        return total;\n"
+                + "    }\n"
+                + "}\n";
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < size; ++i) sb.append("class C").append(i).append(body);
+        byte[] data = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        return new SourceBuffer(data, data.length);
+    }
+}
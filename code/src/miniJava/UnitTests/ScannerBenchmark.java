@@ -0,0 +1,81 @@
+package miniJava.UnitTests;
+
+import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.SourceBuffer;
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenType;
+
+import java.nio.charset.StandardCharsets;
+
+// scanner throughput on generated comment heavy and code heavy sources
+// run once as is and once with -DminiJava.swar=false to compare word at a time skipping with byte at a time
+// usage: ScannerBenchmark [megabytes] [rounds]
+public class ScannerBenchmark {
+    public static void main(String[] args) {
+        int megabytes = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        System.out.printf("word at a time skipping %s\n", Boolean.parseBoolean(System.getProperty("miniJava.swar", "true")) ? "on" : "off");
+
+        SourceBuffer comments = generate(megabytes << 20, true);
+        SourceBuffer code = generate(megabytes << 20, false);
+        for (Scanner.Mode mode : Scanner.Mode.values()) {
+            report("comment heavy", mode, comments, rounds);
+            report("code heavy", mode, code, rounds);
+        }
+    }
+
+    private static void report(String name, Scanner.Mode mode, SourceBuffer source, int rounds) {
+        // warm up before timing so the scanner is compiled
+        for (int i = 0; i < 3; ++i) scan(source, mode);
+        long best = Long.MAX_VALUE;
+        int tokens = 0;
+        for (int i = 0; i < rounds; ++i) {
+            long start = System.nanoTime();
+            tokens = scan(source, mode);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%s, %s scanner: %d tokens in %.3fms, %.1f MB/s\n", name, mode, tokens,
+                (double)best / 1000000, source.length() / ((double)best / 1000000000) / (1 << 20));
+    }
+
+    private static int scan(SourceBuffer source, Scanner.Mode mode) {
+        Scanner scanner = new Scanner(source, new ErrorReporter(), mode);
+        int tokens = 0;
+        Token token;
+        do {
+            token = scanner.scan();
+            ++tokens;
+        } while (token.getTokenType() != TokenType.End && token.getTokenType() != TokenType.Error);
+        return tokens;
+    }
+
+    // repeats a documented method until the source reaches the given size
+    private static SourceBuffer generate(int size, boolean commentHeavy) {
+        String method = commentHeavy
+                ? "    /**\n"
+                + "     * Returns the sum of the first n elements of the array, skipping any negative entries.\n"
+                + "     * The array must hold at least n elements; no bounds are checked here.\n"
+                + "     */\n"
+                + "    public int sum(int[] a, int n) {\n"
+                + "        int total = 0; // running total of the non negative elements seen so far\n"
+                + "        int i = 0;     // index of the next element to add\n"
+                + "        while (i < n) {\n"
+                + "            // negative entries are treated as missing values and left out\n"
+                + "            if (a[i] > 0) total = total + a[i];\n"
+                + "            i = i + 1;\n"
+                + "        }\n"
+                + "        return total;\n"
+                + "    }\n\n"
+                : "    public int sum(int[] a, int n) {\n"
+                + "        int total = 0; int i = 0;\n"
+                + "        while (i < n) { if (a[i] > 0) total = total + a[i]; i = i + 1; }\n"
+                + "        return total;\n"
+                + "    }\n";
+        StringBuilder sb = new StringBuilder("class Bench {\n");
+        while (sb.length() < size) sb.append(method);
+        sb.append("}\n");
+        byte[] data = sb.toString().getBytes(StandardCharsets.ISO_8859_1);
+        return new SourceBuffer(data, data.length);
+    }
+}
@@ -1,13 +1,25 @@
 package miniJava.UnitTests;
 
 import miniJava.ErrorReporter;
+import miniJava.SyntacticAnalyzer.IncrementalLexer;
+import miniJava.SyntacticAnalyzer.NamePool;
+import miniJava.SyntacticAnalyzer.ParallelLexer;
+import miniJava.SyntacticAnalyzer.ParallelParser;
 import miniJava.SyntacticAnalyzer.Parser;
 import miniJava.SyntacticAnalyzer.Scanner;
+import miniJava.SyntacticAnalyzer.SourceBuffer;
+import miniJava.SyntacticAnalyzer.Token;
+import miniJava.SyntacticAnalyzer.TokenBuffer;
+import miniJava.SyntacticAnalyzer.TokenType;
 import miniJava.AbstractSyntaxTrees.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 // TODO: use Compiler object directly to reduce redundant code
 
@@ -49,16 +61,7 @@ public class UnitTester {
                 parser.enableUnitTest();
                 AST ast = parser.parse();
                 String terminalOutput = "";
-                if (ast != null) {
-                    java.io.ByteArrayOutputStream printCatcher = new java.io.ByteArrayOutputStream();
-                    PrintStream stdOut = System.out;
-                    System.setOut(new java.io.PrintStream(printCatcher));
-                    ASTDisplay display = new ASTDisplay();
-                    display.showTree(ast);
-                    System.setOut(stdOut);
-                    terminalOutput = printCatcher.toString();
-                    printCatcher.close();
-                }
+                if (ast != null) terminalOutput = displayTree(ast);
                 String output = trimString(parser.getTestOutput() + "\n" + terminalOutput);
                 File expectedFile = new File(test.expectedPath);
                 InputStream expectedIn = new FileInputStream(expectedFile);
@@ -67,6 +70,124 @@ public class UnitTester {
                     expectedSb.append((char)expectedIn.read());
                 }
                 String expected = trimString(expectedSb.toString());
+
+                // both scanner modes must agree on the token stream
+                SourceBuffer source = SourceBuffer.map(file);
+                long switchTime = System.nanoTime();
+                List<String> switchTokens = scanAll(source, Scanner.Mode.Switch);
+                long tableTime = System.nanoTime();
+                List<String> tableTokens = scanAll(source, Scanner.Mode.Table);
+                long scanEndTime = System.nanoTime();
+                switchTime = tableTime - switchTime;
+                tableTime = scanEndTime - tableTime;
+                if (!switchTokens.equals(tableTokens))
+                    output = "scanner modes disagree\nswitch:\n" + String.join("\n", switchTokens) + "\ntable:\n" + String.join("\n", tableTokens);
+
+                // incremental re-lexing must match lexing the edited source from scratch
+                String relexMismatch = checkRelex(source);
+                if (relexMismatch != null) output = relexMismatch;
+
+                // parallel lexing (with tiny chunks so chunk boundaries land everywhere) must match sequential lexing
+                TokenBuffer sequential = TokenBuffer.eager(new Scanner(source, new ErrorReporter()));
+                List<String> sequentialTokens = dumpTokens(sequential);
+                List<String> parallelTokens = dumpTokens(ParallelLexer.lex(new Scanner(source, new ErrorReporter()), 16, ForkJoinPool.commonPool()));
+                if (!parallelTokens.equals(sequentialTokens))
+                    output = "parallel lexing disagrees\nsequential:\n" + String.join("\n", sequentialTokens) + "\nparallel:\n" + String.join("\n", parallelTokens);
+
+                // pipelined lexing must match sequential lexing too, and a parse reading it must give the same AST and
+                // errors. tiny batches in a ring of two keep the scanner thread waiting on the reader
+                TokenBuffer pipelinedLex = TokenBuffer.pipelined(new Scanner(source, new ErrorReporter()), 0, 3, 2);
+                // reading the final token waits for the scanner thread to get there
+                for (int i = 0; pipelinedLex.type(i) != TokenType.End && pipelinedLex.type(i) != TokenType.Error; ++i);
+                List<String> pipelinedTokens = dumpTokens(pipelinedLex);
+                if (!pipelinedTokens.equals(sequentialTokens))
+                    output = "pipelined lexing disagrees\nsequential:\n" + String.join("\n", sequentialTokens) + "\npipelined:\n" + String.join("\n", pipelinedTokens);
+                ErrorReporter pipelinedErrors = new ErrorReporter();
+                TokenBuffer pipelinedParseTokens = TokenBuffer.pipelined(new Scanner(source, pipelinedErrors), 0, 3, 2);
+                AST pipelinedAst = new Parser(pipelinedParseTokens, pipelinedErrors).parse();
+                pipelinedParseTokens.close();
+                String pipelinedOutput = pipelinedAst == null ? "" : displayTree(pipelinedAst);
+                if (!pipelinedOutput.equals(terminalOutput) || !pipelinedErrors.getErrors().equals(errors.getErrors()))
+                    output = "pipelined parse disagrees\nsequential:\n" + terminalOutput + String.join("\n", errors.getErrors())
+                            + "\npipelined:\n" + pipelinedOutput + String.join("\n", pipelinedErrors.getErrors());
+
+                // identifiers must carry the name pool id of their spelling, with the pooled string as their text
+                String internMismatch = checkInterned(sequential);
+                if (internMismatch != null) output = internMismatch;
+
+                // the table driven push-down parser must build the same AST as recursive descent
+                ErrorReporter pushDownErrors = new ErrorReporter();
+                AST pushDownAst = new Parser(TokenBuffer.eager(new Scanner(source, pushDownErrors)), pushDownErrors, Parser.Mode.PushDown).parse();
+                String pushDownOutput = pushDownAst == null ? "" : displayTree(pushDownAst);
+                if (!pushDownOutput.equals(terminalOutput))
+                    output = "push-down parser disagrees\nrecursive descent:\n" + terminalOutput + "\npush-down:\n" + pushDownOutput;
+
+                // the flat AST view must show the same tree, also after a trip through its binary form
+                if (ast != null) {
+                    FlatAST flat = FlatAST.flatten((miniJava.AbstractSyntaxTrees.Package) ast);
+                    String flatOutput = displayTree(flat.view());
+                    if (!flatOutput.equals(terminalOutput))
+                        output = "flat AST disagrees\ntree:\n" + terminalOutput + "\nflat:\n" + flatOutput;
+                    String binaryOutput = displayTree(FlatAST.fromBytes(flat.toBytes(), 0).view());
+                    if (!binaryOutput.equals(terminalOutput))
+                        output = "binary flat AST disagrees\ntree:\n" + terminalOutput + "\nbinary:\n" + binaryOutput;
+                }
+
+                // lazily parsed method bodies must give the same AST once read, and the same errors for valid programs
+                ErrorReporter lazyErrors = new ErrorReporter();
+                Parser lazyParser = new Parser(TokenBuffer.eager(new Scanner(source, lazyErrors)), lazyErrors);
+                lazyParser.enableLazyBodies();
+                AST lazyAst = lazyParser.parse();
+                String lazyMismatch = checkLazyBodies(lazyAst);
+                if (lazyMismatch == null && lazyAst != null) {
+                    String lazyOutput = displayTree(lazyAst);
+                    if (ast != null && (!lazyOutput.equals(terminalOutput) || !lazyErrors.getErrors().equals(errors.getErrors())))
+                        lazyMismatch = "lazy method bodies disagree\neager:\n" + terminalOutput + String.join("\n", errors.getErrors())
+                                + "\nlazy:\n" + lazyOutput + String.join("\n", lazyErrors.getErrors());
+                }
+                if (lazyMismatch == null && ast == null && !lazyErrors.hasErrors())
+                    lazyMismatch = "lazy method bodies hide the syntax error";
+                if (lazyMismatch != null) output = lazyMismatch;
+
+                // the header parse of a one pass compile must give the same AST and errors for a valid program. an
+                // invalid one must report the plain parse's errors, right away or once its method bodies are read
+                ErrorReporter headerErrors = new ErrorReporter();
+                AST headerAst = ParallelParser.parseHeaders(List.of(source), headerErrors, null, false, false);
+                String headerOutput = headerAst == null ? "" : displayTree(headerAst);
+                if (ast != null ? !headerOutput.equals(terminalOutput) || !headerErrors.getErrors().equals(errors.getErrors())
+                        : headerAst == null ? !headerErrors.getErrors().equals(errors.getErrors()) : !headerErrors.getErrors().containsAll(errors.getErrors()))
+                    output = "header parse disagrees\nsequential:\n" + terminalOutput + String.join("\n", errors.getErrors())
+                            + "\nheaders:\n" + headerOutput + String.join("\n", headerErrors.getErrors());
+
+                // parsing class spans in parallel (one class per task) must give the same AST and errors
+                ErrorReporter parallelErrors = new ErrorReporter();
+                AST parallelAst = ParallelParser.parse(TokenBuffer.eager(new Scanner(source, parallelErrors)), parallelErrors, 1, ForkJoinPool.commonPool());
+                String parallelOutput = parallelAst == null ? "" : displayTree(parallelAst);
+                if (!parallelOutput.equals(terminalOutput) || !parallelErrors.getErrors().equals(errors.getErrors()))
+                    output = "parallel parser disagrees\nsequential:\n" + terminalOutput + String.join("\n", errors.getErrors())
+                            + "\nparallel:\n" + parallelOutput + String.join("\n", parallelErrors.getErrors());
+
+                // error recovery must leave a valid parse as it is and report at least the errors a plain parse does,
+                // the same ones when classes are parsed in parallel
+                ErrorReporter recoveryErrors = new ErrorReporter();
+                Parser recoveryParser = new Parser(TokenBuffer.eager(new Scanner(source, recoveryErrors)), recoveryErrors);
+                recoveryParser.enableRecovery();
+                AST recoveryAst = recoveryParser.parse();
+                ErrorReporter parallelRecoveryErrors = new ErrorReporter();
+                ParallelParser.parse(TokenBuffer.eager(new Scanner(source, parallelRecoveryErrors)), parallelRecoveryErrors, 1, ForkJoinPool.commonPool(), true);
+                if (ast != null && (recoveryAst == null || !displayTree(recoveryAst).equals(terminalOutput)))
+                    output = "error recovery changes a valid parse\nsequential:\n" + terminalOutput + "\nrecovering:\n" + (recoveryAst == null ? "" : displayTree(recoveryAst));
+                else if (!recoveryErrors.getErrors().containsAll(errors.getErrors()))
+                    output = "error recovery loses errors\nsequential:\n" + String.join("\n", errors.getErrors()) + "\nrecovering:\n" + String.join("\n", recoveryErrors.getErrors());
+                else if (!parallelRecoveryErrors.getErrors().equals(recoveryErrors.getErrors()))
+                    output = "parallel error recovery disagrees\nsequential:\n" + String.join("\n", recoveryErrors.getErrors()) + "\nparallel:\n" + String.join("\n", parallelRecoveryErrors.getErrors());
+
+                // a program that parses, split into one file per class, must give the same AST and errors
+                if (ast != null) {
+                    String multiFileMismatch = checkMultiFile(source, sequential, terminalOutput, errors.getErrors());
+                    if (multiFileMismatch != null) output = multiFileMismatch;
+                }
+
                 if (output.equals(expected)) {
 
                     // timing analysis
@@ -76,7 +197,8 @@ public class UnitTester {
                     final long startTime = System.nanoTime();
                     parser.parse();
                     final long endTime = System.nanoTime();
-                    System.out.printf("test %s passed in %.3fms\n", entry.getKey(), (double)(endTime - startTime) / 1000000);
+                    System.out.printf("test %s passed in %.3fms (scan: switch %.3fms, table %.3fms)\n", entry.getKey(), (double)(endTime - startTime) / 1000000,
+                            (double)switchTime / 1000000, (double)tableTime / 1000000);
                 } else {
                     System.err.printf("test %s failed\n", entry.getKey());
                     File errFile = new File(args[0] + "/failed_test_outputs/" + entry.getKey() + ".txt");
@@ -90,6 +212,110 @@ public class UnitTester {
         }
     }
 
+    // each file runs up to the next top-level class
+    private static String checkMultiFile(SourceBuffer source, TokenBuffer tokens, String expected, List<String> expectedErrors) throws IOException {
+        List<SourceBuffer> files = new ArrayList<>();
+        int fileStart = 0;
+        int depth = 0;
+        for (int i = 0; tokens.type(i) != TokenType.End; ++i) {
+            TokenType type = tokens.type(i);
+            if (type == TokenType.LCurly) depth++;
+            else if (type == TokenType.RCurly) depth--;
+            else if (type == TokenType.Class && depth == 0 && tokens.start(i) > fileStart) {
+                files.add(sourceRange(source, fileStart, tokens.start(i)));
+                fileStart = tokens.start(i);
+            }
+        }
+        files.add(sourceRange(source, fileStart, source.length()));
+        ErrorReporter errors = new ErrorReporter();
+        AST ast = ParallelParser.parse(files, errors);
+        String output = ast == null ? "" : displayTree(ast);
+        if (!output.equals(expected) || !errors.getErrors().equals(expectedErrors))
+            return String.format("parsing %d files disagrees\none file:\n%s%s\nfiles:\n%s%s", files.size(), expected, String.join("\n", expectedErrors),
+                    output, String.join("\n", errors.getErrors()));
+        return null;
+    }
+
+    private static SourceBuffer sourceRange(SourceBuffer source, int start, int end) {
+        byte[] data = source.substring(start, end - start).getBytes(StandardCharsets.ISO_8859_1);
+        return new SourceBuffer(data, data.length);
+    }
+
+    // no method body may be parsed before something reads it
+    private static String checkLazyBodies(AST ast) {
+        if (ast == null) return null;
+        for (ClassDecl classDecl : ((miniJava.AbstractSyntaxTrees.Package) ast).classDeclList) {
+            for (MethodDecl methodDecl : classDecl.methodDeclList) {
+                if (methodDecl.statementList.isParsed())
+                    return String.format("method body of %s.%s parsed before use", classDecl.name, methodDecl.name);
+            }
+        }
+        return null;
+    }
+
+    // scans until the end of input or the first error token (the scanner does not advance past invalid symbols)
+    private static List<String> scanAll(SourceBuffer source, Scanner.Mode mode) {
+        ErrorReporter errors = new ErrorReporter();
+        Scanner scanner = new Scanner(source, errors, mode);
+        List<String> tokens = new ArrayList<>();
+        Token token;
+        do {
+            token = scanner.scan();
+            tokens.add(String.format("%d:%d %s{%s}", token.getLine(), token.getOffset(), token.getTokenType(), token.getTokenText()));
+        } while (token.getTokenType() != TokenType.End && token.getTokenType() != TokenType.Error);
+        return tokens;
+    }
+
+    // inserts (or deletes) a few edits spread across the source, including ones opening comments and literals
+    private static String checkRelex(SourceBuffer source) {
+        String[] inserts = { "/*", "\"", "x", "" };
+        TokenBuffer tokens = TokenBuffer.eager(new Scanner(source, new ErrorReporter()));
+        for (int i = 0; i <= 8; ++i) {
+            int offset = source.length() * i / 8;
+            for (String insert : inserts) {
+                int deleted = insert.isEmpty() ? Math.min(1, source.length() - offset) : 0;
+                IncrementalLexer.Result result = IncrementalLexer.relex(tokens, offset, deleted, insert);
+                TokenBuffer expected = TokenBuffer.eager(new Scanner(result.source, new ErrorReporter()));
+                if (!dumpTokens(result.tokens).equals(dumpTokens(expected)))
+                    return String.format("incremental relex mismatch for edit {%s} at %d, deleting %d", insert, offset, deleted);
+            }
+        }
+        return null;
+    }
+
+    private static String checkInterned(TokenBuffer tokens) {
+        for (int i = 0; i < tokens.size(); ++i) {
+            boolean identifier = tokens.type(i) == TokenType.Identifier;
+            if (identifier != (tokens.nameId(i) >= 0))
+                return String.format("token %d:%d %s has name id %d", tokens.line(i), tokens.offset(i), tokens.type(i), tokens.nameId(i));
+            if (identifier && (tokens.text(i) != NamePool.name(tokens.nameId(i)) || NamePool.intern(tokens.text(i)) != tokens.nameId(i)))
+                return String.format("identifier %s at %d:%d is not interned", tokens.text(i), tokens.line(i), tokens.offset(i));
+        }
+        return null;
+    }
+
+    private static String displayTree(AST ast) throws IOException {
+        java.io.ByteArrayOutputStream printCatcher = new java.io.ByteArrayOutputStream();
+        PrintStream stdOut = System.out;
+        System.setOut(new java.io.PrintStream(printCatcher));
+        ASTDisplay display = new ASTDisplay();
+        display.showTree(ast);
+        System.setOut(stdOut);
+        String output = printCatcher.toString();
+        printCatcher.close();
+        return output;
+    }
+
+    private static List<String> dumpTokens(TokenBuffer tokens) {
+        List<String> dump = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); ++i)
+            dump.add(String.format("%d:%d %s{%s}", tokens.line(i), tokens.offset(i), tokens.type(i), tokens.text(i)));
+        ErrorReporter errors = new ErrorReporter();
+        tokens.reportErrors(tokens.size(), errors);
+        dump.addAll(errors.getErrors());
+        return dump;
+    }
+
     private static String trimString(String string) {
         String[] lines = string.split("\n");
         for (int i = 0; i < lines.length; ++i) {